@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.1"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.keola"
@@ -31,13 +32,27 @@ dependencies {
     annotationProcessor("org.mapstruct:mapstruct-processor:1.5.2.Final")  // Procesador de anotaciones de MapStruct
     implementation("org.springframework.boot:spring-boot-starter-webflux:3.0.10")
     implementation("org.springframework.boot:spring-boot-starter-data-r2dbc:3.0.10")
-    runtimeOnly("org.postgresql:r2dbc-postgresql:1.0.2.RELEASE")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-rsocket")  // Acceso entre servicios por RSocket sobre TCP
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")  // Codificación binaria (CBOR) de los mensajes RSocket
+    implementation("org.postgresql:r2dbc-postgresql:1.0.2.RELEASE")
+    implementation("io.r2dbc:r2dbc-proxy")
+    implementation("io.github.resilience4j:resilience4j-circuitbreaker:2.2.0")  // Circuit breaker alrededor de la capa de datos
+    implementation("io.github.resilience4j:resilience4j-reactor:2.2.0")
+    implementation("io.github.resilience4j:resilience4j-micrometer:2.2.0")
     implementation("org.springdoc:springdoc-openapi-starter-webflux-api:2.8.3")
     implementation("org.springdoc:springdoc-openapi-starter-webflux-ui:2.8.3")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("io.projectreactor:reactor-test:3.5.9")
 }
 
+// Microbenchmarks en src/jmh/java: ./gradlew jmh (el perfilador gc informa de la memoria asignada por operación)
+// Los benchmarks contra una base de datos o un servicio en marcha se ejecutan por separado: ./gradlew jmh -PjmhIncludes=ProductImportBenchmark
+jmh {
+    profilers.add("gc")
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
 tasks.withType<Test> {
     useJUnitPlatform()
 }
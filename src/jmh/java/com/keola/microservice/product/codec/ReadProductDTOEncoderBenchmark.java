@@ -0,0 +1,77 @@
+package com.keola.microservice.product.codec;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.codec.Encoder;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default Jackson encoder with ReadProductDTOEncoder on the pooled Netty buffers
+ * used by Reactor Netty, for a single product and for a 100-product list.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports {@code gc.alloc.rate.norm} (bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadProductDTOEncoderBenchmark {
+
+    private static final ResolvableType TYPE = ResolvableType.forClass(ReadProductDTO.class);
+
+    @Param({"jackson", "specialized"})
+    public String encoderName;
+
+    private Encoder<ReadProductDTO> encoder;
+    private NettyDataBufferFactory bufferFactory;
+    private ReadProductDTO product;
+    private List<ReadProductDTO> products;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        encoder = "jackson".equals(encoderName) ? (Encoder<ReadProductDTO>) (Encoder<?>) new Jackson2JsonEncoder() : new ReadProductDTOEncoder();
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            products.add(new ReadProductDTO((long) i, "Wireless Mouse " + i, "Ergonomic wireless mouse with adjustable DPI.",
+                    new BigDecimal("19.99"), 50, "Electronics", "https://example.com/images/mouse.jpg", "activo"));
+        }
+        product = products.get(0);
+    }
+
+    @Benchmark
+    public int encodeProduct() {
+        return release(encoder.encode(Mono.just(product), bufferFactory, TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public int encodeProductList() {
+        return release(encoder.encode(Flux.fromIterable(products), bufferFactory, TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    // Buffers go back to the pool, as they do once Reactor Netty has written them
+    private static int release(Flux<DataBuffer> buffers) {
+        int[] bytes = {0};
+        buffers.doOnNext(buffer -> {
+            bytes[0] += buffer.readableByteCount();
+            DataBufferUtils.release(buffer);
+        }).blockLast();
+        return bytes[0];
+    }
+}
@@ -0,0 +1,67 @@
+package com.keola.microservice.product.related;
+
+import com.keola.microservice.product.related.RelatedProductIndex.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and lookup and update latency of the related products index over one million products
+ * in 50 categories and 2,000 brands. Run with {@code ./gradlew jmh}; the build benchmark reports
+ * the time of a full parallel build, the others the p99 and p99.9 of a lookup and of a price change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RelatedProductIndexBenchmark {
+
+    @Param({"1000000"})
+    public int products;
+
+    private List<Product> catalog;
+    private RelatedProductIndex index;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalog.add(product(i));
+        }
+        index = RelatedProductIndex.build(catalog, 10, 0.5, 64);
+    }
+
+    @Benchmark
+    public long[] related() {
+        return index.related(random.nextInt(products));
+    }
+
+    @Benchmark
+    public void changePrice() {
+        // Same category and brand: only the position within them moves
+        Product current = catalog.get(random.nextInt(products));
+        index.put(new Product(current.id(), current.name(), current.category(), current.brand(),
+                500 + random.nextInt(200_000), current.inStock()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public RelatedProductIndex build() {
+        return RelatedProductIndex.build(catalog, 10, 0.5, 64);
+    }
+
+    private Product product(int id) {
+        return new Product(id, "Producto " + id, "Categoría " + random.nextInt(50), "Marca " + random.nextInt(2_000),
+                500 + random.nextInt(200_000), random.nextInt(10) != 0);
+    }
+}
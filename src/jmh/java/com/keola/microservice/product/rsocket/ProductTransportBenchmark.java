@@ -0,0 +1,74 @@
+package com.keola.microservice.product.rsocket;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of product lookups by id over HTTP/1.1 JSON and over RSocket with CBOR, with concurrent callers.
+ * Needs a running service, with rate limiting disabled so that it does not throttle the HTTP requests, e.g.
+ * {@code TRANSPORT_BENCHMARK_HTTP_URL=http://localhost:9020 TRANSPORT_BENCHMARK_RSOCKET_URL=tcp://localhost:7020
+ * TRANSPORT_BENCHMARK_PRODUCT_ID=1 ./gradlew jmh -PjmhIncludes=ProductTransportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class ProductTransportBenchmark {
+
+    private long productId;
+    private WebClient webClient;
+    private RSocketRequester requester;
+
+    @Setup
+    public void setUp() {
+        String rsocketUrl = System.getenv("TRANSPORT_BENCHMARK_RSOCKET_URL");
+        if (rsocketUrl == null || rsocketUrl.isBlank()) {
+            throw new IllegalStateException("Set TRANSPORT_BENCHMARK_RSOCKET_URL to run this benchmark");
+        }
+        productId = Long.parseLong(System.getenv().getOrDefault("TRANSPORT_BENCHMARK_PRODUCT_ID", "1"));
+        webClient = WebClient.create(System.getenv().getOrDefault("TRANSPORT_BENCHMARK_HTTP_URL", "http://localhost:9020"));
+        URI rsocket = URI.create(rsocketUrl);
+        requester = RSocketRequester.builder()
+                .rsocketStrategies(RSocketStrategies.builder()
+                        .encoders(encoders -> encoders.add(new Jackson2CborEncoder()))
+                        .decoders(decoders -> decoders.add(new Jackson2CborDecoder()))
+                        .build())
+                .dataMimeType(MediaType.APPLICATION_CBOR)
+                .tcp(rsocket.getHost(), rsocket.getPort());
+    }
+
+    @TearDown
+    public void tearDown() {
+        requester.dispose();
+    }
+
+    @Benchmark
+    public ReadProductDTO http() {
+        return webClient.get()
+                .uri("/api/v1/products/{id}", productId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(ReadProductDTO.class)
+                .block();
+    }
+
+    @Benchmark
+    public ReadProductDTO rsocket() {
+        return requester.route("products.get")
+                .data(productId)
+                .retrieveMono(ReadProductDTO.class)
+                .block();
+    }
+}
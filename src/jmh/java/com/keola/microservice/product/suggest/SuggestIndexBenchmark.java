@@ -0,0 +1,63 @@
+package com.keola.microservice.product.suggest;
+
+import com.keola.microservice.product.suggest.SuggestIndex.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and lookup latency of the suggestion index over one million products, for one- to four-letter
+ * prefixes. Run with {@code ./gradlew jmh}; the build benchmark reports the time of a full build, the lookup
+ * benchmark the p99 and p99.9 of a lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SuggestIndexBenchmark {
+
+    private static final String[] NOUNS = {"Silla", "Mesa", "Lámpara", "Cafetera", "Teclado", "Ratón", "Auriculares",
+            "Mochila", "Zapatillas", "Camiseta", "Pantalón", "Cámara", "Altavoz", "Reloj", "Cuaderno", "Bicicleta"};
+    private static final String[] ADJECTIVES = {"ergonómica", "inalámbrico", "básico", "de oficina", "plegable",
+            "eléctrica", "portátil", "gamer", "clásico", "térmica", "compacto", "deportiva"};
+    private static final String[] BRANDS = {"Acme", "Ñandú", "Orión", "Técnica Sur", "Logi", "Norte", "Pampa", "Río"};
+    private static final String[] PREFIXES = {"s", "si", "sil", "sill", "cafe", "cáf", "ña", "nand", "inal", "ergo", "tec", "mesa p"};
+
+    @Param({"1000000"})
+    public int products;
+
+    private List<Product> catalog;
+    private SuggestIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            String name = NOUNS[random.nextInt(NOUNS.length)] + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + i;
+            catalog.add(new Product(i, name, BRANDS[random.nextInt(BRANDS.length)], random.nextInt(500)));
+        }
+        index = SuggestIndex.build(catalog);
+    }
+
+    @Benchmark
+    public List<Product> top10() {
+        String prefix = SuggestText.normalize(PREFIXES[next++ % PREFIXES.length]);
+        return index.top(prefix, 10, id -> false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SuggestIndex build() {
+        return SuggestIndex.build(catalog);
+    }
+}
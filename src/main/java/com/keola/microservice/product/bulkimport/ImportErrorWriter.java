@@ -0,0 +1,55 @@
+package com.keola.microservice.product.bulkimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the rejected records of an import as NDJSON, one {@code {"record", "errors", "raw"}} object per line.
+ * The file is only created when the first record is rejected. Not thread-safe: the import pipeline
+ * writes from a single thread at a time.
+ */
+public class ImportErrorWriter implements Closeable {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private BufferedWriter writer;
+
+    public ImportErrorWriter(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(long recordNumber, String raw, List<String> errors) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("record", recordNumber);
+        line.put("errors", errors);
+        line.put("raw", raw);
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            }
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
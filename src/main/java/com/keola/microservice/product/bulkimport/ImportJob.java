@@ -0,0 +1,99 @@
+package com.keola.microservice.product.bulkimport;
+
+import com.keola.microservice.product.models.ImportReport;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one bulk import. Counters are updated by the import pipeline and
+ * read concurrently by the progress endpoint.
+ */
+public class ImportJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final ProductImportFormat format;
+    private final Path errorFile;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong recordsAccepted = new AtomicLong();
+    private final AtomicLong recordsRejected = new AtomicLong();
+    private volatile long rowsInserted;
+    private volatile long rowsUpdated;
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ImportJob(ProductImportFormat format, Path errorDirectory) {
+        this.format = format;
+        this.errorFile = errorDirectory.resolve(id + ".errors.ndjson");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getErrorFile() {
+        return errorFile;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void recordAccepted() {
+        recordsAccepted.incrementAndGet();
+    }
+
+    public void recordRejected() {
+        recordsRejected.incrementAndGet();
+    }
+
+    public long getRecordsRejected() {
+        return recordsRejected.get();
+    }
+
+    public void complete(long rowsInserted, long rowsUpdated) {
+        this.rowsInserted = rowsInserted;
+        this.rowsUpdated = rowsUpdated;
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    public void fail(Throwable ex) {
+        this.error = ex.getMessage();
+        this.finishedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    public ImportReport toReport() {
+        long accepted = recordsAccepted.get();
+        long rejected = recordsRejected.get();
+        Instant end = finishedAt == null ? Instant.now() : finishedAt;
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        return ImportReport.builder()
+                .id(id)
+                .format(format.name())
+                .state(state.name())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .bytesRead(bytesRead.get())
+                .recordsRead(accepted + rejected)
+                .recordsAccepted(accepted)
+                .recordsRejected(rejected)
+                .rowsInserted(rowsInserted)
+                .rowsUpdated(rowsUpdated)
+                .recordsPerSecond((accepted + rejected) / seconds)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,218 @@
+package com.keola.microservice.product.bulkimport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.dto.CreateProductDTO;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Input formats accepted by the bulk import, and the conversion of their records into
+ * {@link CreateProductDTO}s and into rows of the Postgres COPY text format.
+ * <ul>
+ *     <li>CSV (RFC 4180): the first record is a header naming the columns, in any order;
+ *     quoted fields may contain commas, doubled quotes and line breaks.</li>
+ *     <li>NDJSON: one {@link CreateProductDTO} JSON object per line.</li>
+ * </ul>
+ */
+public enum ProductImportFormat {
+
+    CSV(new MediaType("text", "csv")),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    public static final String COPY_COLUMNS = "line_no, name, description, price, quantity, category, image_url, brand, status";
+
+    private final MediaType mediaType;
+
+    ProductImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<ProductImportFormat> of(MediaType contentType) {
+        return Arrays.stream(values())
+                .filter(format -> contentType != null && format.mediaType.isCompatibleWith(contentType))
+                .findFirst();
+    }
+
+    /**
+     * Splits one CSV record into its fields.
+     * @param record the record, possibly spanning several lines.
+     * @return the unquoted field values.
+     * @throws IllegalArgumentException if a quoted field is not closed.
+     */
+    public static List<String> parseCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return true when the line leaves a quoted CSV field open, i.e. the record continues on the next line.
+     */
+    public static boolean togglesQuote(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return (quotes & 1) == 1;
+    }
+
+    /**
+     * Maps the CSV header to column positions; names are matched ignoring case and underscores,
+     * so both {@code imageUrl} and {@code image_url} are accepted.
+     */
+    public static Map<String, Integer> csvHeader(String record) {
+        List<String> names = parseCsv(record);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(normalize(names.get(i)), i);
+        }
+        return header;
+    }
+
+    /**
+     * Converts a CSV record into a product, collecting the conversion errors instead of failing.
+     */
+    public static CreateProductDTO fromCsv(Map<String, Integer> header, String record, List<String> errors) {
+        List<String> fields;
+        try {
+            fields = parseCsv(record);
+        } catch (IllegalArgumentException ex) {
+            errors.add(ex.getMessage());
+            return null;
+        }
+        CreateProductDTO product = new CreateProductDTO();
+        product.setName(field(header, fields, "name"));
+        product.setDescription(field(header, fields, "description"));
+        product.setCategory(field(header, fields, "category"));
+        product.setImageUrl(field(header, fields, "imageurl"));
+        product.setBrand(field(header, fields, "brand"));
+
+        String price = field(header, fields, "price");
+        if (price != null) {
+            try {
+                product.setPrice(new BigDecimal(price.trim()));
+            } catch (NumberFormatException ex) {
+                errors.add("Price must be a number");
+            }
+        }
+        String quantity = field(header, fields, "quantity");
+        if (quantity != null) {
+            try {
+                product.setQuantity(Integer.parseInt(quantity.trim()));
+            } catch (NumberFormatException ex) {
+                errors.add("Quantity must be an integer");
+            }
+        }
+        String status = field(header, fields, "status");
+        if (status != null) {
+            try {
+                product.setStatus(StateProduct.valueOf(status.trim()));
+            } catch (IllegalArgumentException ex) {
+                errors.add("Status must be one of " + Arrays.toString(StateProduct.values()));
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Converts an NDJSON line into a product, collecting the parse error instead of failing.
+     */
+    public static CreateProductDTO fromJson(ObjectMapper objectMapper, String line, List<String> errors) {
+        try {
+            return objectMapper.readValue(line, CreateProductDTO.class);
+        } catch (JsonProcessingException ex) {
+            errors.add("Invalid JSON: " + ex.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Formats the product as one row of the COPY text format, in the order of {@link #COPY_COLUMNS}.
+     */
+    public static String toCopyRow(long recordNumber, CreateProductDTO product) {
+        StringBuilder row = new StringBuilder(256);
+        row.append(recordNumber).append('\t');
+        appendCopyValue(row, product.getName()).append('\t');
+        appendCopyValue(row, product.getDescription()).append('\t');
+        appendCopyValue(row, product.getPrice() == null ? null : product.getPrice().toPlainString()).append('\t');
+        row.append(product.getQuantity()).append('\t');
+        appendCopyValue(row, product.getCategory()).append('\t');
+        appendCopyValue(row, product.getImageUrl()).append('\t');
+        appendCopyValue(row, product.getBrand()).append('\t');
+        appendCopyValue(row, product.getStatus() == null ? null : product.getStatus().name());
+        return row.append('\n').toString();
+    }
+
+    private static StringBuilder appendCopyValue(StringBuilder row, String value) {
+        if (value == null) {
+            return row.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+        return row;
+    }
+
+    private static String field(Map<String, Integer> header, List<String> fields, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String normalize(String column) {
+        return column.replace("\uFEFF", "").trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,61 @@
+package com.keola.microservice.product.cache;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An encoded response body kept by {@link ProductResponseCache}, with its gzip variant when worth having.
+ */
+@Getter
+public class CachedResponse {
+
+    private final long version; // Catalog version read before the products were loaded.
+    private final Instant createdAt;
+    private final byte[] body;
+    @Nullable
+    private final byte[] gzipBody;
+    @Nullable
+    private final Instant snapshotTakenAt; // Set when the products came from the catalog snapshot; never cached.
+    private final long[] productIds; // Products in the body, counted as viewed on each hit.
+    private final AtomicReference<Instant> staleSince = new AtomicReference<>();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder pendingHits = new LongAdder(); // Hits not yet counted as views of the products.
+
+    public CachedResponse(long version, Instant createdAt, byte[] body, @Nullable byte[] gzipBody, @Nullable Instant snapshotTakenAt,
+                          long[] productIds) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.snapshotTakenAt = snapshotTakenAt;
+        this.productIds = productIds;
+    }
+
+    public long size() {
+        return body.length + (gzipBody == null ? 0 : gzipBody.length) + 8L * productIds.length;
+    }
+
+    void recordHit() {
+        pendingHits.increment();
+    }
+
+    /**
+     * @return the hits recorded since the last call.
+     */
+    long drainHits() {
+        return pendingHits.sumThenReset();
+    }
+
+    /**
+     * @return the first time this entry was found out of date, recording {@code now} if it is this one.
+     */
+    Instant markStale(Instant now) {
+        staleSince.compareAndSet(null, now);
+        return staleSince.get();
+    }
+}
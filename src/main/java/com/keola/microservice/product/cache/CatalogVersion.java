@@ -0,0 +1,26 @@
+package com.keola.microservice.product.cache;
+
+import com.keola.microservice.product.event.ProductChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter bumped after every committed catalog change. Cached data tagged with an older
+ * version is out of date. The counter is local to this instance.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
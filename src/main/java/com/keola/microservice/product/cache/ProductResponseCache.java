@@ -0,0 +1,320 @@
+package com.keola.microservice.product.cache;
+
+import com.keola.microservice.product.codec.ReadProductDTOEncoder;
+import com.keola.microservice.product.config.ResponseCacheProperties;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.popularity.ProductPopularity;
+import com.keola.microservice.product.resilience.Deadline;
+import com.keola.microservice.product.service.ProductService;
+import com.keola.microservice.product.snapshot.StaleResponseMarker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of the encoded product list responses, keyed by the normalized category and status filters.
+ * Entries hold the JSON body, and its gzip variant, exactly as sent to clients, so a hit costs no
+ * query and no serialization.
+ * <p>
+ * An entry is out of date once the {@link CatalogVersion} moves past the version it was loaded at,
+ * or once it is older than the configured max age. An out-of-date entry is still served for the
+ * stale-while-revalidate window, counted from the first request that found it out of date, while a
+ * single background load replaces it; past the window requests wait for that load. Concurrent loads
+ * of the same key are shared. Entries are evicted least recently used first to stay within the
+ * entry and memory limits. Responses served from the catalog snapshot are never cached.
+ * <p>
+ * Bodies are collected only up to the max entry size: a larger listing is not cached, and until the
+ * catalog changes or the max age passes its lookups return {@link Result#BYPASS}, so that the caller
+ * streams it without buffering. Gzip variants are made after the size check, off the I/O threads.
+ * <p>
+ * Hits count as list views of the cached products in {@link ProductPopularity}, as loads do
+ * through the product service. A hit only bumps a counter on its entry; the counts are folded into
+ * the popularity sketch in the background, one weighted view per product and entry, so a hit costs
+ * the same whatever the number of products in the response.
+ */
+@Slf4j
+public class ProductResponseCache {
+
+    public enum Result {
+        HIT,
+        STALE,
+        MISS,
+        /** The response is too large to cache, or the load failed; no response is given. */
+        BYPASS
+    }
+
+    public record Lookup(Result result, @Nullable CachedResponse response) {
+    }
+
+    private record Oversized(long version, Instant foundAt) {
+    }
+
+    private static final ResolvableType PRODUCT_TYPE = ResolvableType.forClass(ReadProductDTO.class);
+
+    private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final ResponseCacheProperties properties;
+    private final ProductPopularity productPopularity;
+    private final Clock clock;
+    private final ReadProductDTOEncoder encoder = new ReadProductDTOEncoder();
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true); // Guarded by this.
+    private final Map<String, Mono<CachedResponse>> loads = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Oversized> oversized; // Keys of the responses too large to cache. Guarded by this.
+    private final Set<CachedResponse> hitResponses = ConcurrentHashMap.newKeySet(); // Entries with hits not yet counted as views.
+    private long totalSize; // Guarded by this.
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Counter evictions;
+
+    public ProductResponseCache(ProductService productService, CatalogVersion catalogVersion,
+                                ResponseCacheProperties properties, ProductPopularity productPopularity, MeterRegistry meterRegistry) {
+        this(productService, catalogVersion, properties, productPopularity, meterRegistry, Clock.systemUTC());
+    }
+
+    ProductResponseCache(ProductService productService, CatalogVersion catalogVersion, ResponseCacheProperties properties,
+                         ProductPopularity productPopularity, MeterRegistry meterRegistry, Clock clock) {
+        this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.properties = properties;
+        this.productPopularity = productPopularity;
+        this.clock = clock;
+        this.oversized = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Oversized> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        };
+        this.hits = requests("hit", meterRegistry);
+        this.staleHits = requests("stale", meterRegistry);
+        this.misses = requests("miss", meterRegistry);
+        this.bypasses = requests("bypass", meterRegistry);
+        this.evictions = Counter.builder("product.response-cache.evictions")
+                .description("Entries evicted from the product response cache to stay within its limits")
+                .register(meterRegistry);
+        Gauge.builder("product.response-cache.size", this, ProductResponseCache::size)
+                .description("Memory held by the cached product responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.response-cache.entries", this, ProductResponseCache::entryCount)
+                .description("Number of cached product responses")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param category the category filter, or null for any category.
+     * @param status the status filter, or null for any status.
+     * @return a Mono wrapping the response body for the filters and how it was obtained.
+     */
+    public Mono<Lookup> get(@Nullable String category, @Nullable StateProduct status) {
+        String key = key(category, status);
+        if (isOversized(key)) {
+            bypasses.increment();
+            return Mono.just(new Lookup(Result.BYPASS, null));
+        }
+        CachedResponse cached = entry(key);
+        if (cached != null) {
+            Instant now = clock.instant();
+            if (isCurrent(cached, now)) {
+                hits.increment();
+                recordViews(cached);
+                return Mono.just(new Lookup(Result.HIT, cached));
+            }
+            if (now.isBefore(cached.markStale(now).plus(properties.getStaleWhileRevalidate()))) {
+                staleHits.increment();
+                recordViews(cached);
+                load(key, category, status)
+                        .subscribe(null, ex -> log.warn("Could not refresh the cached products for {}: {}", key, ex.getMessage()));
+                return Mono.just(new Lookup(Result.STALE, cached));
+            }
+        }
+        misses.increment();
+        return load(key, category, status)
+                .map(response -> new Lookup(Result.MISS, response))
+                .defaultIfEmpty(new Lookup(Result.BYPASS, null));
+    }
+
+    private Mono<CachedResponse> load(String key, @Nullable String category, @Nullable StateProduct status) {
+        return loads.computeIfAbsent(key, k -> fetch(k, category, status)
+                .doFinally(signal -> loads.remove(k))
+                .cache());
+    }
+
+    /**
+     * @return a Mono wrapping the loaded response, or completing empty when it exceeds the max entry size.
+     */
+    private Mono<CachedResponse> fetch(String key, @Nullable String category, @Nullable StateProduct status) {
+        long version = catalogVersion.current(); // Read first, so that a change during the load leaves the entry out of date
+        StaleResponseMarker marker = new StaleResponseMarker();
+        LongStream.Builder productIds = LongStream.builder();
+        int maxEntrySize = (int) Math.min(properties.getMaxEntrySize().toBytes(), Integer.MAX_VALUE);
+        // The join cancels the query and releases what it collected once the limit is passed
+        return DataBufferUtils.join(encoder.encode(productService.getProducts(category, status)
+                                .doOnNext(product -> productIds.add(product.getId())),
+                        DefaultDataBufferFactory.sharedInstance, PRODUCT_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap()),
+                        maxEntrySize)
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .flatMap(body -> gzipOf(body)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .map(gzipBody -> new CachedResponse(version, clock.instant(), body, gzipBody.orElse(null),
+                                marker.getSnapshotTakenAt(), productIds.build().toArray())))
+                .onErrorResume(DataBufferLimitException.class, ex -> {
+                    markOversized(key, version);
+                    return Mono.empty();
+                })
+                .doOnNext(response -> {
+                    if (response.getSnapshotTakenAt() == null) {
+                        put(key, response);
+                    }
+                })
+                // Loads are shared between requests, so no single client's deadline applies to them
+                .contextWrite(context -> context.delete(Deadline.CONTEXT_KEY).put(StaleResponseMarker.CONTEXT_KEY, marker));
+    }
+
+    /**
+     * @return a Mono wrapping the gzip form of the body, compressed on a worker thread, or empty when not worth having.
+     */
+    private Mono<byte[]> gzipOf(byte[] body) {
+        if (body.length < properties.getGzipMinSize().toBytes()) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> gzip(body)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void recordViews(CachedResponse response) {
+        response.recordHit(); // Before queuing, so that a concurrent flush either counts this hit or leaves it queued
+        hitResponses.add(response);
+    }
+
+    /**
+     * Counts the hits recorded since the last run as list views of the products of each entry.
+     * Entries evicted or replaced in the meantime are still counted.
+     */
+    @Scheduled(initialDelayString = "${product.response-cache.view-flush-interval:PT5S}",
+            fixedDelayString = "${product.response-cache.view-flush-interval:PT5S}")
+    public void flushViews() {
+        Iterator<CachedResponse> pending = hitResponses.iterator();
+        while (pending.hasNext()) {
+            CachedResponse response = pending.next();
+            pending.remove(); // Before draining: a hit after this point queues the entry again
+            long hits = response.drainHits();
+            if (hits > 0) {
+                for (long productId : response.getProductIds()) {
+                    productPopularity.recordListViews(productId, hits);
+                }
+            }
+        }
+    }
+
+    private boolean isCurrent(CachedResponse response, Instant now) {
+        return response.getVersion() == catalogVersion.current()
+                && now.isBefore(response.getCreatedAt().plus(properties.getMaxAge()));
+    }
+
+    @Nullable
+    private synchronized CachedResponse entry(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized boolean isOversized(String key) {
+        Oversized found = oversized.get(key);
+        if (found == null) {
+            return false;
+        }
+        if (found.version() == catalogVersion.current() && clock.instant().isBefore(found.foundAt().plus(properties.getMaxAge()))) {
+            return true;
+        }
+        oversized.remove(key); // The listing may have shrunk; the next load checks again
+        return false;
+    }
+
+    private synchronized void markOversized(String key, long version) {
+        oversized.put(key, new Oversized(version, clock.instant()));
+        CachedResponse previous = entries.remove(key);
+        if (previous != null) {
+            totalSize -= previous.size();
+        }
+    }
+
+    // The body was checked against the max entry size while it was collected
+    private synchronized void put(String key, CachedResponse response) {
+        CachedResponse previous = entries.put(key, response);
+        if (previous != null) {
+            totalSize -= previous.size();
+        }
+        totalSize += response.size();
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+        while ((totalSize > properties.getMaxSize().toBytes() || entries.size() > properties.getMaxEntries()) && eldest.hasNext()) {
+            totalSize -= eldest.next().size();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    synchronized long size() {
+        return totalSize;
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    static String key(@Nullable String category, @Nullable StateProduct status) {
+        // Status names cannot contain the separator, so no two filter combinations share a key
+        return (status == null ? "" : status.name()) + "|" + (category == null ? "" : "=" + category);
+    }
+
+    /**
+     * @return the gzip form of the body, or null when it would not be smaller.
+     */
+    @Nullable
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.size() < body.length ? out.toByteArray() : null;
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("product.response-cache.requests")
+                .description("Product list requests answered by the response cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
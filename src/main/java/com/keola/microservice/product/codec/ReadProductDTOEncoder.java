@@ -0,0 +1,258 @@
+package com.keola.microservice.product.codec;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON encoder specialized for {@link ReadProductDTO}, used in place of Jackson for product responses.
+ * Values are written field by field straight into the buffers of the response's
+ * {@link DataBufferFactory} (pooled Netty buffers on Reactor Netty), with the field names
+ * pre-encoded and without reflection or intermediate byte arrays.
+ * <p>
+ * The output is byte-for-byte the one of the default {@code Jackson2JsonEncoder}: fields in
+ * declaration order, nulls written, {@link BigDecimal#toString()} for prices, Jackson's string
+ * escaping, {@code [a,b]} arrays for lists and newline-delimited values for streaming media types.
+ */
+public class ReadProductDTOEncoder implements HttpMessageEncoder<ReadProductDTO> {
+
+    private static final List<MimeType> MIME_TYPES = List.of(
+            MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), MediaType.APPLICATION_NDJSON);
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = List.of(MediaType.APPLICATION_NDJSON);
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] DESCRIPTION = ascii(",\"description\":");
+    private static final byte[] PRICE = ascii(",\"price\":");
+    private static final byte[] QUANTITY = ascii(",\"quantity\":");
+    private static final byte[] CATEGORY = ascii(",\"category\":");
+    private static final byte[] IMAGE_URL = ascii(",\"imageUrl\":");
+    private static final byte[] STATUS = ascii(",\"status\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    private static final byte[] ARRAY_START = ascii("[");
+    private static final byte[] ARRAY_SEPARATOR = ascii(",");
+    private static final byte[] ARRAY_END = ascii("]");
+    private static final byte[] NEWLINE = ascii("\n");
+    private static final int FIXED_SIZE = 128; // Field names, punctuation and numbers
+
+    // Two-character escapes used by Jackson; other control characters are written as \\u00XX
+    private static final byte[] SHORT_ESCAPES = new byte[32];
+
+    static {
+        SHORT_ESCAPES['\b'] = 'b';
+        SHORT_ESCAPES['\t'] = 't';
+        SHORT_ESCAPES['\n'] = 'n';
+        SHORT_ESCAPES['\f'] = 'f';
+        SHORT_ESCAPES['\r'] = 'r';
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        if (!ReadProductDTO.class.equals(elementType.toClass())) {
+            return false;
+        }
+        if (mimeType == null) {
+            return true;
+        }
+        Charset charset = mimeType.getCharset();
+        if (charset != null && !StandardCharsets.UTF_8.equals(charset)) {
+            return false; // Left to Jackson, which also supports UTF-16 and UTF-32
+        }
+        return MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends ReadProductDTO> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        if (inputStream instanceof Mono<? extends ReadProductDTO> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        if (isStreaming(mimeType)) {
+            return Flux.from(inputStream).map(value -> write(value, bufferFactory, null, NEWLINE));
+        }
+        boolean[] first = {true};
+        return Flux.from(inputStream)
+                .map(value -> {
+                    byte[] prefix = first[0] ? ARRAY_START : ARRAY_SEPARATOR;
+                    first[0] = false;
+                    return write(value, bufferFactory, prefix, null);
+                })
+                .switchIfEmpty(Mono.fromCallable(() -> bufferFactory.wrap(ARRAY_START)))
+                .concatWith(Mono.fromCallable(() -> bufferFactory.wrap(ARRAY_END)));
+    }
+
+    @Override
+    public DataBuffer encodeValue(ReadProductDTO value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return write(value, bufferFactory, null, null);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return STREAMING_MEDIA_TYPES;
+    }
+
+    private DataBuffer write(ReadProductDTO value, DataBufferFactory bufferFactory, @Nullable byte[] prefix, @Nullable byte[] suffix) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateSize(value));
+        try {
+            if (prefix != null) {
+                buffer.write(prefix);
+            }
+            if (value == null) {
+                buffer.write(NULL);
+            } else {
+                writeProduct(buffer, value);
+            }
+            if (suffix != null) {
+                buffer.write(suffix);
+            }
+            return buffer;
+        } catch (RuntimeException ex) {
+            DataBufferUtils.release(buffer);
+            throw ex;
+        }
+    }
+
+    private static void writeProduct(DataBuffer buffer, ReadProductDTO value) {
+        buffer.write(ID);
+        if (value.getId() == null) {
+            buffer.write(NULL);
+        } else {
+            writeLong(buffer, value.getId());
+        }
+        buffer.write(NAME);
+        writeString(buffer, value.getName());
+        buffer.write(DESCRIPTION);
+        writeString(buffer, value.getDescription());
+        buffer.write(PRICE);
+        BigDecimal price = value.getPrice();
+        if (price == null) {
+            buffer.write(NULL);
+        } else {
+            buffer.write(price.toString(), StandardCharsets.US_ASCII); // BigDecimal caches its string form
+        }
+        buffer.write(QUANTITY);
+        writeLong(buffer, value.getQuantity());
+        buffer.write(CATEGORY);
+        writeString(buffer, value.getCategory());
+        buffer.write(IMAGE_URL);
+        writeString(buffer, value.getImageUrl());
+        buffer.write(STATUS);
+        writeString(buffer, value.getStatus());
+        buffer.write((byte) '}');
+    }
+
+    private static void writeLong(DataBuffer buffer, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                buffer.write(Long.toString(value), StandardCharsets.US_ASCII);
+                return;
+            }
+            buffer.write((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Writes a JSON string. Runs of characters that need no escaping are written in one call,
+     * which Netty buffers encode to UTF-8 in place.
+     */
+    private static void writeString(DataBuffer buffer, @Nullable String value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        buffer.write((byte) '"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && !Character.isSurrogate(c)) {
+                continue;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++; // A valid pair is encoded as one 4-byte UTF-8 sequence with the run
+                continue;
+            }
+            if (i > start) {
+                buffer.write(value.subSequence(start, i), StandardCharsets.UTF_8);
+            }
+            writeEscape(buffer, c);
+            start = i + 1;
+        }
+        if (start == 0) {
+            buffer.write(value, StandardCharsets.UTF_8);
+        } else if (start < length) {
+            buffer.write(value.subSequence(start, length), StandardCharsets.UTF_8);
+        }
+        buffer.write((byte) '"');
+    }
+
+    private static void writeEscape(DataBuffer buffer, char c) {
+        if (Character.isSurrogate(c)) {
+            // Jackson rejects unpaired surrogates as well
+            throw new EncodingException(String.format("Invalid surrogate character in product field: U+%04X", (int) c));
+        }
+        buffer.write((byte) '\\');
+        if (c == '"' || c == '\\') {
+            buffer.write((byte) c);
+        } else if (SHORT_ESCAPES[c] != 0) {
+            buffer.write(SHORT_ESCAPES[c]);
+        } else {
+            buffer.write((byte) 'u');
+            buffer.write((byte) '0');
+            buffer.write((byte) '0');
+            buffer.write(HEX[c >> 4]);
+            buffer.write(HEX[c & 0xF]);
+        }
+    }
+
+    private static int estimateSize(@Nullable ReadProductDTO value) {
+        if (value == null) {
+            return 8;
+        }
+        return FIXED_SIZE + length(value.getName()) + length(value.getDescription()) + length(value.getCategory())
+                + length(value.getImageUrl()) + length(value.getStatus());
+    }
+
+    private static int length(@Nullable String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private boolean isStreaming(@Nullable MimeType mimeType) {
+        return mimeType != null && STREAMING_MEDIA_TYPES.stream().anyMatch(streaming -> streaming.isCompatibleWith(mimeType));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,36 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for streaming CSV/NDJSON product imports through Postgres COPY.
+ * Bound from the {@code product.import.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.import")
+public class BulkImportProperties {
+
+    /**
+     * Directory where the rejected records of each import are written, one file per import.
+     */
+    private Path errorDirectory = Path.of("data", "import-errors");
+
+    /**
+     * Number of rows sent to COPY in a single message.
+     */
+    private int chunkRows = 1000;
+
+    /**
+     * Longest record accepted; longer records are rejected instead of being buffered.
+     */
+    private DataSize maxRecordSize = DataSize.ofKilobytes(64);
+
+    /**
+     * Number of finished imports whose report and error file are kept.
+     */
+    private int retainedJobs = 50;
+}
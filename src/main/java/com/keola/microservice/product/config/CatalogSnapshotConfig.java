@@ -0,0 +1,16 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.filter.StaleResponseWebFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CatalogSnapshotProperties.class)
+public class CatalogSnapshotConfig {
+
+    @Bean
+    public StaleResponseWebFilter staleResponseWebFilter() {
+        return new StaleResponseWebFilter();
+    }
+}
@@ -0,0 +1,29 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the on-disk catalog snapshot used to serve reads while the database is unavailable.
+ * Bound from the {@code product.snapshot.*} properties; the write interval is read by the scheduler
+ * from {@code product.snapshot.interval} in ISO-8601 format.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.snapshot")
+public class CatalogSnapshotProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Location of the snapshot file; it is replaced atomically on every write.
+     */
+    private Path path = Path.of("data", "catalog.snapshot");
+
+    /**
+     * Retry-After sent with writes rejected while the catalog is read-only.
+     */
+    private Duration readOnlyRetryAfter = Duration.ofSeconds(30);
+}
@@ -0,0 +1,28 @@
+package com.keola.microservice.product.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.codec.ReadProductDTOEncoder;
+import com.keola.microservice.product.timing.ServerTimingEncoder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public CodecConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // Jackson encoder over the ObjectMapper configured by Spring Boot (spring.jackson.*, ISO-8601 dates),
+    // decorated to report serialization time; this configurer runs after Boot's and replaces its encoder.
+    // Product responses use the specialized encoder, registered ahead of Jackson as a typed codec.
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new ServerTimingEncoder<>(new ReadProductDTOEncoder()));
+        configurer.defaultCodecs().jackson2JsonEncoder(new ServerTimingEncoder<>(new Jackson2JsonEncoder(objectMapper)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.config.DataAccessProperties.CircuitBreakerSettings;
+import com.keola.microservice.product.exception.DeadlineExceededException;
+import com.keola.microservice.product.exception.util.DatabaseAvailability;
+import com.keola.microservice.product.filter.DeadlineWebFilter;
+import com.keola.microservice.product.resilience.DataAccessGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DataAccessProperties.class)
+public class DataAccessConfig {
+
+    static final String DATABASE_CIRCUIT_BREAKER = "database";
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(DataAccessProperties properties, MeterRegistry meterRegistry) {
+        CircuitBreakerSettings settings = properties.getCircuitBreaker();
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .slowCallRateThreshold(settings.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(settings.getSlowCallDuration())
+                .slidingWindowSize(settings.getSlidingWindowSize())
+                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(settings.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(settings.getPermittedCallsInHalfOpenState())
+                // Only database failures count; rejected or missing products say nothing about its health
+                .recordException(DatabaseAvailability::isUnavailable)
+                .ignoreExceptions(DeadlineExceededException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        // Publishes resilience4j.circuitbreaker.state, .calls and .failure.rate tagged with the breaker name
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public DataAccessGuard dataAccessGuard(DataAccessProperties properties, CircuitBreakerRegistry circuitBreakerRegistry,
+                                           MeterRegistry meterRegistry) {
+        return new DataAccessGuard(properties,
+                properties.getCircuitBreaker().isEnabled() ? circuitBreakerRegistry.circuitBreaker(DATABASE_CIRCUIT_BREAKER) : null,
+                meterRegistry);
+    }
+
+    @Bean
+    public DeadlineWebFilter deadlineWebFilter(DataAccessProperties properties) {
+        return new DeadlineWebFilter(properties);
+    }
+}
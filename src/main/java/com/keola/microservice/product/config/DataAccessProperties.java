@@ -0,0 +1,73 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.resilience.DataAccessGuard.Operation;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for the timeouts and the circuit breaker around the data layer.
+ * Bound from the {@code product.data-access.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.data-access")
+public class DataAccessProperties {
+
+    /**
+     * Header through which clients send the time they are willing to wait, e.g. {@code 500ms} or {@code 2s}.
+     * It can shorten the operation timeouts but never lengthen them.
+     */
+    private String deadlineHeader = "X-Request-Timeout";
+
+    /**
+     * Timeout of operations without an entry in {@link #timeouts}. For listings it bounds the wait for
+     * the first row and between rows, not the whole stream.
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Timeouts by operation.
+     */
+    private Map<Operation, Duration> timeouts = new EnumMap<>(Operation.class);
+
+    private CircuitBreakerSettings circuitBreaker = new CircuitBreakerSettings();
+
+    public Duration timeout(Operation operation) {
+        return timeouts.getOrDefault(operation, defaultTimeout);
+    }
+
+    @Data
+    public static class CircuitBreakerSettings {
+
+        private boolean enabled = true;
+
+        /**
+         * Percentage of failed calls, database errors and timeouts, that opens the breaker.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Percentage of calls slower than {@link #slowCallDuration} that opens the breaker.
+         */
+        private float slowCallRateThreshold = 80;
+
+        private Duration slowCallDuration = Duration.ofSeconds(1);
+
+        /**
+         * Number of most recent calls the rates are computed over.
+         */
+        private int slidingWindowSize = 50;
+
+        private int minimumNumberOfCalls = 20;
+
+        /**
+         * How long calls fail fast once the breaker opens, before trial calls are let through.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        private int permittedCallsInHalfOpenState = 5;
+    }
+}
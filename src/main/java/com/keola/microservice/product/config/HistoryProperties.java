@@ -0,0 +1,57 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the price and stock history, bound from the {@code product.history.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.history")
+public class HistoryProperties {
+
+    public enum Overflow {
+        /**
+         * Writes the entry on its own right away, bypassing the queue. Once {@code writeThroughConcurrency}
+         * such inserts are in flight the entry is dropped, as with {@link #DROP_NEWEST}.
+         */
+        WRITE_THROUGH,
+        /** Discards the oldest queued entry to make room. */
+        DROP_OLDEST,
+        /** Discards the new entry. */
+        DROP_NEWEST
+    }
+
+    private boolean enabled = true;
+
+    /**
+     * Entries waiting to be written; what happens past it is set by {@link #overflow}.
+     */
+    private int queueCapacity = 10_000;
+
+    private Overflow overflow = Overflow.WRITE_THROUGH;
+
+    /**
+     * Write-through inserts allowed in flight at once, so that a slow database is not sent one more insert per change.
+     */
+    private int writeThroughConcurrency = 4;
+
+    /**
+     * Rows per insert statement; a full batch is written without waiting for the flush interval.
+     */
+    private int batchSize = 500;
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Longest wait for the queue to drain on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Largest number of entries returned by a history query.
+     */
+    private int maxResults = 1000;
+}
@@ -0,0 +1,42 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the Idempotency-Key support of create and update requests.
+ * Bound from the {@code product.idempotency.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * How long the first response for a key is kept and replayed.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Maximum number of completed responses kept in memory; older ones are still served from the database.
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * How long a key stays reserved for a request that is still running. A reservation left behind by
+     * an instance that stopped mid-request can be taken over once it runs out; keep it above the
+     * longest create or update and above {@link #inFlightWait}.
+     */
+    private Duration lease = Duration.ofSeconds(30);
+
+    /**
+     * How long a duplicate waits for a request with the same key that is still running elsewhere.
+     */
+    private Duration inFlightWait = Duration.ofSeconds(10);
+
+    /**
+     * Interval between checks while waiting for a request that is still running elsewhere.
+     */
+    private Duration pollInterval = Duration.ofMillis(100);
+}
@@ -0,0 +1,9 @@
+package com.keola.microservice.product.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PartitioningProperties.class)
+public class PartitioningConfig {
+}
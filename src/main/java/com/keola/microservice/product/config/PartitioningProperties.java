@@ -0,0 +1,40 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the optional declarative partitioning of tbl_product.
+ * Bound from the {@code product.partitioning.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.partitioning")
+public class PartitioningProperties {
+
+    public enum Strategy {
+        /** A single heap table, as created by schema.sql. */
+        NONE,
+        /** One partition per listed category, plus a default partition for the others. */
+        CATEGORY,
+        /** A fixed number of partitions by hash of the id. */
+        ID_HASH
+    }
+
+    /**
+     * Layout of tbl_product. When not NONE and the table is not partitioned yet, it is migrated on startup.
+     */
+    private Strategy strategy = Strategy.NONE;
+
+    /**
+     * Categories given their own partition with the CATEGORY strategy.
+     */
+    private List<String> categories = new ArrayList<>(List.of("Electronics", "Furniture", "Sports", "Accessories", "Apparel"));
+
+    /**
+     * Number of partitions with the ID_HASH strategy.
+     */
+    private int hashPartitions = 8;
+}
@@ -0,0 +1,17 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.popularity.HotProductsEndpoint;
+import com.keola.microservice.product.popularity.ProductPopularity;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PopularityProperties.class)
+public class PopularityConfig {
+
+    @Bean
+    public HotProductsEndpoint hotProductsEndpoint(ProductPopularity productPopularity) {
+        return new HotProductsEndpoint(productPopularity);
+    }
+}
@@ -0,0 +1,53 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the tracking of product views.
+ * Bound from the {@code product.popularity.*} properties; the save interval of the hottest products
+ * is read by the scheduler from {@code product.popularity.save-interval} in ISO-8601 format.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.popularity")
+public class PopularityProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Views older than this no longer count; the window slides one bucket at a time.
+     */
+    private Duration window = Duration.ofHours(1);
+
+    private int buckets = 6;
+
+    /**
+     * Rows of the count-min sketch; each row lowers the odds of an overestimate.
+     */
+    private int depth = 4;
+
+    /**
+     * Counters per row, rounded up to a power of two; more counters mean smaller overestimates.
+     */
+    private int width = 16384;
+
+    /**
+     * Number of hottest products tracked.
+     */
+    private int topK = 100;
+
+    /**
+     * Weight of a product detail read, relative to an appearance in a list.
+     */
+    private int detailViewWeight = 4;
+
+    private int listViewWeight = 1;
+
+    /**
+     * File the hottest products are saved to, and restored from on startup.
+     */
+    private Path path = Path.of("data", "hot-products.csv");
+}
@@ -0,0 +1,19 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the RSocket access to products, bound from the {@code product.rsocket.*} properties.
+ * The server itself is configured with Spring Boot's {@code spring.rsocket.server.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.rsocket")
+public class RSocketProperties {
+
+    /**
+     * Changes buffered per change stream subscriber while it has no outstanding demand; once full the
+     * oldest ones are dropped for that subscriber.
+     */
+    private int changeBufferSize = 1024;
+}
@@ -0,0 +1,31 @@
+package com.keola.microservice.product.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.filter.RateLimitWebFilter;
+import com.keola.microservice.product.ratelimit.RateLimitEndpoint;
+import com.keola.microservice.product.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new TokenBucketRateLimiter(properties, meterRegistry);
+    }
+
+    @Bean
+    public RateLimitWebFilter rateLimitWebFilter(TokenBucketRateLimiter tokenBucketRateLimiter, RateLimitProperties properties,
+                                                 ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new RateLimitWebFilter(tokenBucketRateLimiter, properties, objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public RateLimitEndpoint rateLimitEndpoint(TokenBucketRateLimiter tokenBucketRateLimiter) {
+        return new RateLimitEndpoint(tokenBucketRateLimiter);
+    }
+}
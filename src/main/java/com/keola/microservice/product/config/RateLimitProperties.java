@@ -0,0 +1,74 @@
+package com.keola.microservice.product.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the per-client rate limiting of the product API.
+ * Bound from the {@code product.rate-limit.*} properties; tiers and client assignments
+ * can also be changed at runtime through the {@code ratelimits} actuator endpoint on the management port.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Header carrying the client API key. Clients without it, or with a key missing from {@link #clients},
+     * are identified by IP address.
+     */
+    private String apiKeyHeader = "X-API-Key";
+
+    /**
+     * Whether the first X-Forwarded-For entry identifies anonymous clients, when running behind a proxy.
+     */
+    private boolean trustForwardedFor = false;
+
+    /**
+     * Tier applied to anonymous clients and to API keys without an explicit assignment.
+     */
+    private String defaultTier = "standard";
+
+    /**
+     * Buckets untouched for this long are evicted; an evicted bucket is recreated full.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Upper bound on the number of tracked clients, apart from API keys with a tier assignment.
+     * New anonymous clients past it share a single bucket until idle ones are evicted.
+     */
+    private int maxClients = 1_000_000;
+
+    /**
+     * Number of independent bucket maps; must be a power of two.
+     */
+    private int stripes = 64;
+
+    /**
+     * Limits by tier name.
+     */
+    private Map<String, TierLimits> tiers = new HashMap<>(Map.of("standard", new TierLimits(50, 100, 10, 20)));
+
+    /**
+     * Tier name by API key.
+     */
+    private Map<String, String> clients = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TierLimits {
+        private double readPerSecond;
+        private int readBurst;
+        private double writePerSecond;
+        private int writeBurst;
+    }
+}
@@ -0,0 +1,31 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the precomputed related products.
+ * Bound from the {@code product.related.*} properties; the full rebuild interval is read by the
+ * scheduler from {@code product.related.refresh-interval} in ISO-8601 format.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.related")
+public class RelatedProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Related products kept per product; also the largest limit of a request.
+     */
+    private int neighbors = 10;
+
+    /**
+     * Largest relative price difference, {@code |a - b| / max(a, b)}, between related products.
+     */
+    private double maxPriceDistance = 0.5;
+
+    /**
+     * Products of the same category, and of the same brand, looked at per product, nearest price first.
+     */
+    private int scanWindow = 64;
+}
@@ -0,0 +1,28 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.cache.CatalogVersion;
+import com.keola.microservice.product.cache.ProductResponseCache;
+import com.keola.microservice.product.filter.ResponseCacheWebFilter;
+import com.keola.microservice.product.popularity.ProductPopularity;
+import com.keola.microservice.product.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ProductResponseCache productResponseCache(ProductService productService, CatalogVersion catalogVersion,
+                                                     ResponseCacheProperties properties, ProductPopularity productPopularity,
+                                                     MeterRegistry meterRegistry) {
+        return new ProductResponseCache(productService, catalogVersion, properties, productPopularity, meterRegistry);
+    }
+
+    @Bean
+    public ResponseCacheWebFilter responseCacheWebFilter(ProductResponseCache productResponseCache, ResponseCacheProperties properties) {
+        return new ResponseCacheWebFilter(productResponseCache, properties);
+    }
+}
@@ -0,0 +1,53 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the cache of encoded product list responses.
+ * Bound from the {@code product.response-cache.*} properties; the interval at which cache hits are
+ * counted as product views is read by the scheduler from {@code product.response-cache.view-flush-interval}
+ * in ISO-8601 format.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on the number of cached query variants.
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * Upper bound on the memory held by the cache, counting the plain and gzip bodies.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Responses larger than this are not cached; they are streamed by the controller instead, until
+     * the catalog changes or {@link #maxAge} passes.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(4);
+
+    /**
+     * Responses smaller than this are not given a gzip variant.
+     */
+    private DataSize gzipMinSize = DataSize.ofBytes(1024);
+
+    /**
+     * How long an out-of-date entry may still be served while it is refreshed in the background.
+     * Zero makes every out-of-date entry a miss.
+     */
+    private Duration staleWhileRevalidate = Duration.ofSeconds(2);
+
+    /**
+     * Entries older than this are out of date even without a local catalog change, which bounds
+     * how long changes written through other instances stay invisible.
+     */
+    private Duration maxAge = Duration.ofMinutes(1);
+}
@@ -0,0 +1,20 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.filter.ServerTimingWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ServerTimingProperties.class)
+public class ServerTimingConfig {
+
+    @Bean
+    public ServerTimingWebFilter serverTimingWebFilter(ServerTimingProperties properties, MeterRegistry meterRegistry,
+                                                       ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new ServerTimingWebFilter(properties, meterRegistry, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+}
@@ -0,0 +1,25 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the per-request stage timing reported in the Server-Timing header.
+ * Bound from the {@code product.server-timing.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.server-timing")
+public class ServerTimingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Request header that turns timing on for a single request when its value is "true".
+     */
+    private String requestHeader = "X-Server-Timing";
+
+    /**
+     * Fraction of requests timed without the request header, between 0 and 1.
+     */
+    private double sampleRate = 0.0;
+}
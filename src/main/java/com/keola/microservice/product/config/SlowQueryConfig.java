@@ -0,0 +1,47 @@
+package com.keola.microservice.product.config;
+
+import com.keola.microservice.product.slowquery.SlowQueryEndpoint;
+import com.keola.microservice.product.slowquery.SlowQueryLog;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryConfig {
+
+    @Bean
+    public SlowQueryLog slowQueryLog(SlowQueryProperties properties) {
+        return new SlowQueryLog(properties);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+
+    /**
+     * Wraps the application ConnectionFactory in an R2DBC proxy that reports every statement to the slow-query log.
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryConnectionFactoryPostProcessor(ObjectProvider<SlowQueryProperties> properties,
+                                                                            ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ConnectionFactory connectionFactory) || !properties.getObject().isEnabled()) {
+                    return bean;
+                }
+                SlowQueryLog listener = slowQueryLog.getObject();
+                listener.setExplainConnectionFactory(connectionFactory);
+                return ProxyConnectionFactory.builder(connectionFactory)
+                        .listener(listener)
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the slow-query log of R2DBC statements.
+ * Bound from the {@code product.slow-query.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.slow-query")
+public class SlowQueryProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Statements taking at least this long are recorded.
+     */
+    private Duration threshold = Duration.ofMillis(200);
+
+    /**
+     * Number of slow statements kept; older ones are overwritten.
+     */
+    private int bufferSize = 256;
+
+    /**
+     * Maximum number of distinct statement shapes tracked.
+     */
+    private int maxShapes = 500;
+
+    /**
+     * Number of slowest SELECT shapes for which an execution plan is captured once.
+     */
+    private int explainTopShapes = 10;
+
+    /**
+     * Maximum time allowed for capturing one execution plan, also set as the statement timeout of the
+     * {@code EXPLAIN ANALYZE} run.
+     */
+    private Duration explainTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,25 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the in-memory product name and brand suggestions.
+ * Bound from the {@code product.suggest.*} properties; the full reload interval is read by the
+ * scheduler from {@code product.suggest.refresh-interval} in ISO-8601 format.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.suggest")
+public class SuggestProperties {
+
+    private boolean enabled = true;
+
+    private int defaultLimit = 10;
+
+    private int maxLimit = 50;
+
+    /**
+     * Number of products changed since the last build above which the index is rebuilt in the background.
+     */
+    private int maxPendingChanges = 2000;
+}
@@ -0,0 +1,41 @@
+package com.keola.microservice.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the optional group commit of single-product inserts.
+ * Bound from the {@code product.write.coalescing.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "product.write.coalescing")
+public class WriteCoalescingProperties {
+
+    /**
+     * Whether concurrent inserts are grouped into multi-row statements. Disabled by default.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum time an insert waits for other inserts before its batch is flushed.
+     */
+    private Duration window = Duration.ofMillis(5);
+
+    /**
+     * Maximum number of rows written by a single INSERT statement.
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * Number of batches that may be written to the database at the same time.
+     */
+    private int maxInFlightBatches = 4;
+
+    /**
+     * Maximum number of inserts waiting for a batch, rounded up to a power of two; further inserts are
+     * rejected until the queue drains.
+     */
+    private int maxQueuedInserts = 4096;
+}
@@ -1,10 +1,13 @@
 package com.keola.microservice.product.cors;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.reactive.config.CorsRegistry;
 import org.springframework.web.reactive.config.EnableWebFlux;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
 
+import java.util.List;
+
 @Configuration
 @EnableWebFlux
 
@@ -17,4 +20,16 @@ public class CorsConfig implements WebFluxConfigurer {
                 .allowedMethods("*")
                 .maxAge(3600);
     }
+
+    /**
+     * The rules registered in {@link #addCorsMappings(CorsRegistry)}, for filters that answer
+     * before the handler mappings get to apply them.
+     */
+    public static CorsConfiguration corsConfiguration() {
+        CorsConfiguration configuration = new CorsConfiguration().applyPermitDefaultValues();
+        configuration.setAllowedOrigins(List.of("*"));
+        configuration.setAllowedMethods(List.of("*"));
+        configuration.setMaxAge(3600L);
+        return configuration;
+    }
 }
@@ -0,0 +1,45 @@
+package com.keola.microservice.product.event;
+
+import com.keola.microservice.product.config.RSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * Relays committed {@link ProductChangedEvent}s to live subscribers, such as RSocket change streams.
+ * Each subscriber gets its own bounded buffer for the changes it has not requested yet; when it
+ * fills up the oldest changes are dropped for that subscriber only, so a slow consumer never holds
+ * back writes or the other subscribers.
+ */
+@Slf4j
+@Component
+public class ProductChangeStream {
+
+    private final Sinks.Many<ProductChangedEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final RSocketProperties properties;
+
+    public ProductChangeStream(RSocketProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // Events are published from several threads; retry briefly when another emission is in progress
+        sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    /**
+     * @return the changes committed from now on.
+     */
+    public Flux<ProductChangedEvent> changes() {
+        return sink.asFlux()
+                .onBackpressureBuffer(properties.getChangeBufferSize(),
+                        dropped -> log.debug("Dropped change of product {} for a slow subscriber", dropped.getProductId()),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+}
@@ -0,0 +1,40 @@
+package com.keola.microservice.product.event;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import lombok.Value;
+
+/**
+ * Published once a change to tbl_product has been committed.
+ */
+@Value
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Many products changed at once (bulk import); productId and product are null. */
+        BULK
+    }
+
+    Type type;
+    Long productId;
+    ReadProductDTO product; // State after the change; null for deletes and bulk changes.
+    ReadProductDTO previous; // State before the change; only set for updates.
+
+    public static ProductChangedEvent created(ReadProductDTO product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product, null);
+    }
+
+    public static ProductChangedEvent updated(ReadProductDTO previous, ReadProductDTO product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product, previous);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null, null);
+    }
+
+    public static ProductChangedEvent bulk() {
+        return new ProductChangedEvent(Type.BULK, null, null, null);
+    }
+}
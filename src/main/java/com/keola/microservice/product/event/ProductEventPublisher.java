@@ -0,0 +1,48 @@
+package com.keola.microservice.product.event;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes {@link ProductChangedEvent}s to the application's listeners.
+ * Inside a reactive transaction the event is held until the commit, so listeners never see
+ * a change that is rolled back, nor reload data before the change is visible.
+ */
+@Component
+@AllArgsConstructor
+public class ProductEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * @return a Mono completing once the event is published, or registered for publication after the commit.
+     */
+    public Mono<Void> publishAfterCommit(ProductChangedEvent event) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .map(synchronizationManager -> {
+                    synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return publish(event);
+                        }
+                    });
+                    return true;
+                })
+                .onErrorResume(NoTransactionException.class, ex -> Mono.empty())
+                .switchIfEmpty(publish(event).thenReturn(true))
+                .then();
+    }
+
+    /**
+     * Publishes the event right away, for changes committed outside of Spring's transactions.
+     */
+    public Mono<Void> publish(ProductChangedEvent event) {
+        return Mono.fromRunnable(() -> applicationEventPublisher.publishEvent(event));
+    }
+}
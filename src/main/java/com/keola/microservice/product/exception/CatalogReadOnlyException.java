@@ -0,0 +1,17 @@
+package com.keola.microservice.product.exception;
+
+import java.time.Duration;
+
+public class CatalogReadOnlyException extends RuntimeException{
+
+    private final Duration retryAfter;
+
+    public CatalogReadOnlyException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -2,8 +2,10 @@ package com.keola.microservice.product.exception;
 
 import com.keola.microservice.product.exception.util.ErrorUtils;
 import com.keola.microservice.product.models.ApiError;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -58,6 +60,112 @@ public class GlobalExceptionHandler {
                 .body(apiError));
     }
 
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public Mono<ResponseEntity<ApiError>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.UNPROCESSABLE_ENTITY)
+                .errorMessage(ex.getMessage())
+                .detail("Use a new Idempotency-Key for a different request.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public Mono<ResponseEntity<ApiError>> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.CONFLICT)
+                .errorMessage(ex.getMessage())
+                .detail("Retry the request later with the same Idempotency-Key.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public Mono<ResponseEntity<ApiError>> handleInsufficientStock(InsufficientStockException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.CONFLICT)
+                .errorMessage(ex.getMessage())
+                .detail("Reduce the adjustment to at most the available quantity.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
+    @ExceptionHandler(ImportFormatException.class)
+    public Mono<ResponseEntity<ApiError>> handleImportFormat(ImportFormatException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.BAD_REQUEST)
+                .errorMessage(ex.getMessage())
+                .detail("Send text/csv with a header row or application/x-ndjson with one product per line.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
+    @ExceptionHandler(CatalogReadOnlyException.class)
+    public Mono<ResponseEntity<ApiError>> handleCatalogReadOnly(CatalogReadOnlyException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.SERVICE_UNAVAILABLE)
+                .errorMessage(ex.getMessage())
+                .detail("The catalog is read-only while the database is unavailable. Retry the request later.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(apiError));
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public Mono<ResponseEntity<ApiError>> handleWriteQueueFull(WriteQueueFullException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.SERVICE_UNAVAILABLE)
+                .errorMessage(ex.getMessage())
+                .detail("Too many products are being created at once. Retry the request later.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(apiError));
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public Mono<ResponseEntity<ApiError>> handleDeadlineExceeded(DeadlineExceededException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.GATEWAY_TIMEOUT)
+                .errorMessage(ex.getMessage())
+                .detail("The request could not be completed within the time given in its timeout header.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
+    @ExceptionHandler(CallNotPermittedException.class)
+    public Mono<ResponseEntity<ApiError>> handleCallNotPermitted(CallNotPermittedException ex) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.SERVICE_UNAVAILABLE)
+                .errorMessage("The database is temporarily unavailable.")
+                .detail("Calls to the database are suspended after repeated failures. Retry the request later.")
+                .build();
+
+        return Mono.just(ResponseEntity
+                .status(apiError.getErrorCode())
+                .body(apiError));
+    }
+
     @ExceptionHandler(Exception.class)
     public Mono<ResponseEntity<ApiError>> handleGenericException(Exception ex) {
         ApiError apiError = ApiError.builder()
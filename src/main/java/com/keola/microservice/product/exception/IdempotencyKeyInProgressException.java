@@ -0,0 +1,7 @@
+package com.keola.microservice.product.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException{
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.keola.microservice.product.exception;
+
+public class ImportFormatException extends RuntimeException{
+    public ImportFormatException(String message) {
+        super(message);
+    }
+}
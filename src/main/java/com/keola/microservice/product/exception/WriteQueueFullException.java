@@ -0,0 +1,17 @@
+package com.keola.microservice.product.exception;
+
+import java.time.Duration;
+
+public class WriteQueueFullException extends RuntimeException{
+
+    private final Duration retryAfter;
+
+    public WriteQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
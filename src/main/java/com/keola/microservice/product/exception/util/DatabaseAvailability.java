@@ -0,0 +1,38 @@
+package com.keola.microservice.product.exception.util;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+public class DatabaseAvailability {
+
+    // Método para detectar si el error se debe a que la base de datos no está disponible (caída, failover, timeout, circuit breaker abierto)
+    public static boolean isUnavailable(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof DataAccessResourceFailureException
+                    || current instanceof TransientDataAccessResourceException
+                    || current instanceof QueryTimeoutException
+                    || current instanceof R2dbcNonTransientResourceException
+                    || current instanceof R2dbcTransientResourceException
+                    || current instanceof R2dbcTimeoutException
+                    || current instanceof TimeoutException
+                    || current instanceof CallNotPermittedException
+                    || current instanceof IOException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.keola.microservice.product.filter;
+
+import com.keola.microservice.product.config.DataAccessProperties;
+import com.keola.microservice.product.resilience.Deadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * DeadlineWebFilter turns the client's timeout header (e.g. {@code X-Request-Timeout: 500ms}, plain
+ * numbers being milliseconds) into a {@link Deadline} in the Reactor context, which data layer calls
+ * use to give up once the client no longer waits for the answer. Unparseable values are ignored.
+ */
+@Slf4j
+public class DeadlineWebFilter implements WebFilter, Ordered {
+
+    private final DataAccessProperties properties;
+
+    public DeadlineWebFilter(DataAccessProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String value = exchange.getRequest().getHeaders().getFirst(properties.getDeadlineHeader());
+        if (value == null || value.isBlank()) {
+            return chain.filter(exchange);
+        }
+        Duration timeout;
+        try {
+            timeout = DurationStyle.detectAndParse(value.trim());
+        } catch (IllegalArgumentException ex) {
+            log.debug("Ignoring invalid {} header: {}", properties.getDeadlineHeader(), value);
+            return chain.filter(exchange);
+        }
+        Deadline deadline = Deadline.after(timeout);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, deadline));
+    }
+
+    // Starts the clock as early as possible, right after the rate limit
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 15;
+    }
+}
@@ -0,0 +1,119 @@
+package com.keola.microservice.product.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.config.RateLimitProperties;
+import com.keola.microservice.product.models.ApiError;
+import com.keola.microservice.product.ratelimit.TokenBucketRateLimiter;
+import com.keola.microservice.product.ratelimit.TokenBucketRateLimiter.Budget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+/**
+ * RateLimitWebFilter applies the per-client read (GET/HEAD) and write budgets to the product API,
+ * answering 429 Too Many Requests with a Retry-After header when the client's bucket is empty.
+ * Clients are identified by API key when the key is assigned to a tier, and by IP address otherwise,
+ * so inventing a new key per request does not buy a fresh bucket.
+ */
+public class RateLimitWebFilter implements WebFilter, Ordered {
+
+    private static final String PRODUCTS_PATH = api_v1 + "products";
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final byte[] rejectionBody;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    public RateLimitWebFilter(TokenBucketRateLimiter rateLimiter, RateLimitProperties properties,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.rejectionBody = rejectionBody(objectMapper);
+        this.rejectedReads = Counter.builder("product.rate-limit.rejected")
+                .description("Requests rejected by the per-client rate limit")
+                .tag("budget", "read")
+                .register(meterRegistry);
+        this.rejectedWrites = Counter.builder("product.rate-limit.rejected")
+                .description("Requests rejected by the per-client rate limit")
+                .tag("budget", "write")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || !request.getPath().value().startsWith(PRODUCTS_PATH)) {
+            return chain.filter(exchange);
+        }
+
+        Budget budget = HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod())
+                ? Budget.READ
+                : Budget.WRITE;
+        String apiKey = request.getHeaders().getFirst(properties.getApiKeyHeader());
+        long waitNanos = apiKey != null && rateLimiter.isAssigned(apiKey)
+                ? rateLimiter.tryAcquire(apiKey, true, budget)
+                : rateLimiter.tryAcquire(clientAddress(request), false, budget);
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+
+        (budget == Budget.READ ? rejectedReads : rejectedWrites).increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(rejectionBody)));
+    }
+
+    private String clientAddress(ServerHttpRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+
+    private static byte[] rejectionBody(ObjectMapper objectMapper) {
+        ApiError apiError = ApiError.builder()
+                .errorCode(HttpStatus.TOO_MANY_REQUESTS)
+                .errorMessage("Rate limit exceeded.")
+                .detail("Too many requests for this client, retry after the time given in the Retry-After header.")
+                .build();
+        try {
+            return objectMapper.writeValueAsBytes(apiError);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize the rate limit error", ex);
+        }
+    }
+
+    // Runs before any other filter so rejected requests cost as little as possible
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+}
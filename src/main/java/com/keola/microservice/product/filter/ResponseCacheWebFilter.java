@@ -0,0 +1,168 @@
+package com.keola.microservice.product.filter;
+
+import com.keola.microservice.product.cache.CachedResponse;
+import com.keola.microservice.product.cache.ProductResponseCache;
+import com.keola.microservice.product.cache.ProductResponseCache.Lookup;
+import com.keola.microservice.product.cache.ProductResponseCache.Result;
+import com.keola.microservice.product.config.ResponseCacheProperties;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.cors.CorsConfig;
+import com.keola.microservice.product.snapshot.StaleResponseMarker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.cors.reactive.CorsProcessor;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.cors.reactive.DefaultCorsProcessor;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+/**
+ * ResponseCacheWebFilter answers {@code GET /products}, optionally filtered by category and status,
+ * from the {@link ProductResponseCache}, writing the cached bytes without going through the
+ * controller or the encoders. The gzip variant is sent to clients accepting it. Responses carry
+ * {@code X-Cache: HIT}, {@code STALE} or {@code MISS}.
+ * <p>
+ * Listings too large to cache, and requests whose load failed, are passed on to the controller
+ * with {@code X-Cache: BYPASS}: it streams the former, and its errors go through the exception handler.
+ * <p>
+ * Requests the controller could answer differently are passed on untouched: other parameters,
+ * repeated or empty values, unknown statuses (left to the controller's 400) and Accept headers
+ * asking for anything but JSON.
+ */
+@Slf4j
+public class ResponseCacheWebFilter implements WebFilter, Ordered {
+
+    public static final String CACHE_HEADER = "X-Cache";
+    private static final String PRODUCTS_PATH = api_v1 + "products";
+    private static final String CATEGORY = "category";
+    private static final String STATUS = "status";
+    private static final Set<String> CACHEABLE_PARAMETERS = Set.of(CATEGORY, STATUS);
+    private static final String GZIP = "gzip";
+
+    private final ProductResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    public ResponseCacheWebFilter(ProductResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || !HttpMethod.GET.equals(request.getMethod())
+                || !PRODUCTS_PATH.equals(request.getPath().value()) || !acceptsJson(request.getHeaders())) {
+            return chain.filter(exchange);
+        }
+        MultiValueMap<String, String> parameters = request.getQueryParams();
+        if (!CACHEABLE_PARAMETERS.containsAll(parameters.keySet())) {
+            return chain.filter(exchange);
+        }
+        List<String> categories = parameters.getOrDefault(CATEGORY, List.of());
+        List<String> statuses = parameters.getOrDefault(STATUS, List.of());
+        if (!isSingleValue(categories) || !isSingleValue(statuses)) {
+            return chain.filter(exchange);
+        }
+        StateProduct status = null;
+        if (!statuses.isEmpty()) {
+            try {
+                status = StateProduct.valueOf(statuses.get(0).trim());
+            } catch (IllegalArgumentException ex) {
+                return chain.filter(exchange);
+            }
+        }
+        // Cached responses skip the handler mappings, which is where CORS is applied otherwise
+        if (CorsUtils.isCorsRequest(request) && !corsProcessor.process(CorsConfig.corsConfiguration(), exchange)) {
+            return chain.filter(exchange);
+        }
+        return responseCache.get(categories.isEmpty() ? null : categories.get(0), status)
+                .onErrorResume(ex -> {
+                    log.debug("Passing {} on after a failed load: {}", request.getURI(), ex.getMessage());
+                    return Mono.just(new Lookup(Result.BYPASS, null));
+                })
+                .flatMap(lookup -> {
+                    if (lookup.result() == Result.BYPASS) {
+                        exchange.getResponse().getHeaders().set(CACHE_HEADER, Result.BYPASS.name());
+                        return chain.filter(exchange);
+                    }
+                    return write(exchange, lookup);
+                });
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Lookup lookup) {
+        CachedResponse cached = lookup.response();
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(CACHE_HEADER, lookup.result().name());
+        byte[] body = cached.getBody();
+        if (cached.getGzipBody() != null) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING))) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                body = cached.getGzipBody();
+            }
+        }
+        headers.setContentLength(body.length);
+        byte[] content = body;
+        return Mono.deferContextual(context -> {
+            if (cached.getSnapshotTakenAt() != null) {
+                context.<StaleResponseMarker>getOrEmpty(StaleResponseMarker.CONTEXT_KEY)
+                        .ifPresent(marker -> marker.markStale(cached.getSnapshotTakenAt()));
+            }
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(content)));
+        });
+    }
+
+    private static boolean isSingleValue(List<String> values) {
+        return values.size() <= 1 && values.stream().noneMatch(value -> value == null || value.isBlank());
+    }
+
+    /**
+     * Cached bodies are UTF-8 JSON, so only requests for which the controller would pick that are served.
+     */
+    private static boolean acceptsJson(HttpHeaders headers) {
+        List<MediaType> accept;
+        try {
+            accept = headers.getAccept();
+        } catch (RuntimeException ex) {
+            return false; // Left to the controller to reject
+        }
+        return accept.stream().allMatch(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON) && mediaType.getCharset() == null);
+    }
+
+    static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(GZIP) || name.equals("*")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Runs inside StaleResponseWebFilter so that responses built from the catalog snapshot are flagged
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 40;
+    }
+}
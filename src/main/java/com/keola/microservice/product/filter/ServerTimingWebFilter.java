@@ -0,0 +1,90 @@
+package com.keola.microservice.product.filter;
+
+import com.keola.microservice.product.config.ServerTimingProperties;
+import com.keola.microservice.product.timing.RequestTimings;
+import com.keola.microservice.product.timing.RequestTimings.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServerTimingWebFilter times the requests that ask for it (request header) or are sampled.
+ * The stage breakdown is returned in the Server-Timing response header, recorded as
+ * {@code product.request.stage} timers and attached to a {@code product.request.timing} observation,
+ * which becomes a trace span when a tracing bridge is on the classpath.
+ * Stages still running when the response is committed (e.g. streamed lists) only appear in the metrics.
+ */
+public class ServerTimingWebFilter implements WebFilter, Ordered {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final ServerTimingProperties properties;
+    private final ObservationRegistry observationRegistry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+
+    public ServerTimingWebFilter(ServerTimingProperties properties, MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.properties = properties;
+        this.observationRegistry = observationRegistry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("product.request.stage")
+                    .description("Time spent by timed requests in each stage")
+                    .tag("stage", stage.getMetricName())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!isTimed(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        RequestTimings timings = new RequestTimings();
+        Observation observation = Observation.createNotStarted("product.request.timing", observationRegistry)
+                .lowCardinalityKeyValue("method", exchange.getRequest().getMethod().name())
+                .start();
+        exchange.getResponse().beforeCommit(() -> {
+            exchange.getResponse().getHeaders().add(SERVER_TIMING_HEADER, timings.toHeaderValue());
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(RequestTimings.CONTEXT_KEY, timings))
+                .doFinally(signal -> {
+                    for (Stage stage : Stage.values()) {
+                        long nanos = timings.get(stage);
+                        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+                        observation.highCardinalityKeyValue("stage." + stage.getMetricName() + ".us",
+                                String.valueOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+                    }
+                    observation.stop();
+                });
+    }
+
+    private boolean isTimed(ServerWebExchange exchange) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if ("true".equalsIgnoreCase(exchange.getRequest().getHeaders().getFirst(properties.getRequestHeader()))) {
+            return true;
+        }
+        return properties.getSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    // Runs right after rate limiting so the total covers everything the request does
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 20;
+    }
+}
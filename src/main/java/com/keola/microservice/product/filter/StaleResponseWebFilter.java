@@ -0,0 +1,42 @@
+package com.keola.microservice.product.filter;
+
+import com.keola.microservice.product.snapshot.StaleResponseMarker;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * StaleResponseWebFilter flags responses served from the catalog snapshot instead of the database.
+ * Such responses carry {@code X-Catalog-Stale: true}, the snapshot time and a
+ * {@code Warning: 110} header so clients can tell they may be out of date.
+ */
+public class StaleResponseWebFilter implements WebFilter, Ordered {
+
+    public static final String STALE_HEADER = "X-Catalog-Stale";
+    public static final String SNAPSHOT_TIME_HEADER = "X-Catalog-Snapshot-Time";
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        StaleResponseMarker marker = new StaleResponseMarker();
+        exchange.getResponse().beforeCommit(() -> {
+            if (marker.isStale()) {
+                HttpHeaders headers = exchange.getResponse().getHeaders();
+                headers.set(STALE_HEADER, "true");
+                headers.set(SNAPSHOT_TIME_HEADER, marker.getSnapshotTakenAt().toString());
+                headers.add(HttpHeaders.WARNING, STALE_WARNING);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(StaleResponseMarker.CONTEXT_KEY, marker));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 30;
+    }
+}
@@ -0,0 +1,40 @@
+package com.keola.microservice.product.history;
+
+import com.keola.microservice.product.config.HistoryProperties;
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import com.keola.microservice.product.repo.ProductHistoryRepository;
+import com.keola.microservice.product.resilience.DataAccessGuard;
+import com.keola.microservice.product.resilience.DataAccessGuard.Operation;
+import lombok.AllArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+/**
+ * ProductHistoryService reads the price and stock history of products. Changes still queued in the
+ * {@link ProductHistoryWriter} show up once written, within the flush interval.
+ */
+@Service
+@AllArgsConstructor
+public class ProductHistoryService {
+
+    private final ProductHistoryRepository productHistoryRepository;
+    private final HistoryProperties properties;
+    private final DataAccessGuard dataAccessGuard;
+
+    /**
+     * @param from the earliest change to return, inclusive, or null for no lower bound.
+     * @param to the latest change to return, exclusive, or null for no upper bound.
+     * @param limit the maximum number of changes, or null for the configured maximum.
+     * @return a Flux of the changes of the product in the range, oldest first.
+     */
+    public Flux<ProductHistoryEntry> getHistory(Long productId, @Nullable Instant from, @Nullable Instant to, @Nullable Integer limit) {
+        int size = Math.max(1, Math.min(limit == null ? properties.getMaxResults() : limit, properties.getMaxResults()));
+        if (from != null && to != null && !from.isBefore(to)) {
+            return Flux.empty();
+        }
+        return dataAccessGuard.guard(Operation.FIND_FILTERED, productHistoryRepository.findByProductId(productId, from, to, size));
+    }
+}
@@ -0,0 +1,228 @@
+package com.keola.microservice.product.history;
+
+import com.keola.microservice.product.config.HistoryProperties;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import com.keola.microservice.product.repo.ProductHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ProductHistoryWriter appends every committed change of a product's price or quantity to
+ * tbl_product_history, off the request path (write-behind).
+ * <p>
+ * Changes are taken from {@link ProductChangedEvent}s into a bounded queue and written in multi-row
+ * batches, as soon as a batch is full or at the flush interval otherwise, one batch at a time. A
+ * failed batch goes back to the head of the queue and is retried at the next flush. What happens
+ * when the queue is full is configurable: the entry is written on its own, with a bounded number of
+ * such inserts in flight, or the oldest or newest entry is dropped.
+ * <p>
+ * On shutdown the writer stops after the web server, so that requests finishing during a graceful
+ * shutdown are recorded, and drains the queue and waits for write-through inserts before the
+ * database connections are closed.
+ */
+@Slf4j
+@Component
+public class ProductHistoryWriter implements SmartLifecycle {
+
+    private final ProductHistoryRepository productHistoryRepository;
+    private final HistoryProperties properties;
+    private final Clock clock;
+    private final BlockingDeque<ProductHistoryEntry> queue;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Semaphore writeThroughPermits;
+    private final Counter written;
+    private final Counter writtenThrough; // Written on their own because the queue was full.
+    private final Counter dropped;
+    private volatile Disposable ticker;
+    private volatile boolean running;
+
+    public ProductHistoryWriter(ProductHistoryRepository productHistoryRepository, HistoryProperties properties,
+                                MeterRegistry meterRegistry) {
+        this(productHistoryRepository, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    ProductHistoryWriter(ProductHistoryRepository productHistoryRepository, HistoryProperties properties,
+                         MeterRegistry meterRegistry, Clock clock) {
+        this.productHistoryRepository = productHistoryRepository;
+        this.properties = properties;
+        this.clock = clock;
+        this.queue = new LinkedBlockingDeque<>(properties.getQueueCapacity());
+        this.writeThroughPermits = new Semaphore(properties.getWriteThroughConcurrency());
+        this.written = entries("written", meterRegistry);
+        this.writtenThrough = entries("written-through", meterRegistry);
+        this.dropped = entries("dropped", meterRegistry);
+        Gauge.builder("product.history.queue.size", queue, Collection::size)
+                .description("Price and stock changes waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ReadProductDTO product = event.getProduct();
+        if (!properties.isEnabled() || product == null) {
+            return; // Deletes keep the history; bulk imports record theirs in the import transaction
+        }
+        ReadProductDTO previous = event.getPrevious();
+        if (previous != null && samePrice(previous.getPrice(), product.getPrice()) && previous.getQuantity() == product.getQuantity()) {
+            return;
+        }
+        record(new ProductHistoryEntry(event.getProductId(), clock.instant(),
+                previous == null ? null : previous.getPrice(), product.getPrice(),
+                previous == null ? null : previous.getQuantity(), product.getQuantity()));
+    }
+
+    /**
+     * Queues the entry for the next batch.
+     */
+    public void record(ProductHistoryEntry entry) {
+        if (queue.offerLast(entry)) {
+            if (queue.size() >= properties.getBatchSize()) {
+                flush().subscribe();
+            }
+            return;
+        }
+        switch (properties.getOverflow()) {
+            case WRITE_THROUGH -> {
+                if (!writeThroughPermits.tryAcquire()) {
+                    dropped.increment(); // The database is not keeping up; more inserts would only slow it down
+                    return;
+                }
+                productHistoryRepository.insertAll(List.of(entry))
+                        .doFinally(signal -> writeThroughPermits.release())
+                        .subscribe(rows -> writtenThrough.increment(), ex -> {
+                            dropped.increment();
+                            log.warn("Could not write the history of product {}: {}", entry.getProductId(), ex.getMessage());
+                        });
+            }
+            case DROP_OLDEST -> {
+                if (queue.pollFirst() != null) {
+                    dropped.increment();
+                }
+                if (!queue.offerLast(entry)) {
+                    dropped.increment();
+                }
+            }
+            case DROP_NEWEST -> dropped.increment();
+        }
+    }
+
+    /**
+     * Writes the queued entries batch by batch; does nothing while another flush is running.
+     * @return a Mono completing once the queue is empty or a batch failed.
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> flushing.compareAndSet(false, true)
+                ? drain().doFinally(signal -> flushing.set(false))
+                : Mono.empty());
+    }
+
+    private Mono<Void> drain() {
+        return Mono.defer(() -> {
+            List<ProductHistoryEntry> batch = new ArrayList<>(Math.min(queue.size(), properties.getBatchSize()));
+            queue.drainTo(batch, properties.getBatchSize());
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            return productHistoryRepository.insertAll(batch)
+                    .doOnNext(rows -> written.increment(batch.size()))
+                    .thenReturn(true)
+                    .onErrorResume(ex -> {
+                        log.warn("Could not write {} history entries, retrying at the next flush: {}", batch.size(), ex.getMessage());
+                        requeue(batch);
+                        return Mono.just(false);
+                    })
+                    .flatMap(succeeded -> succeeded ? drain() : Mono.empty());
+        });
+    }
+
+    private void requeue(List<ProductHistoryEntry> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (!queue.offerFirst(batch.get(i))) {
+                dropped.increment(); // Newer changes filled the queue meanwhile
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        ticker = Flux.interval(properties.getFlushInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+        running = true;
+    }
+
+    /**
+     * Stops the periodic flush, writes what is left in the queue and waits for the write-through inserts,
+     * at most for the shutdown timeout.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.dispose();
+        }
+        try {
+            drainAll().block(properties.getShutdownTimeout());
+        } catch (RuntimeException ex) {
+            log.error("Shutting down with {} price and stock changes not written to the history: {}",
+                    queue.size() + writeThroughInFlight(), ex.getMessage());
+        }
+    }
+
+    private Mono<Void> drainAll() {
+        // A flush may be running already, or a batch may fail; try again until the queue is empty
+        return flush().then(Mono.defer(() -> queue.isEmpty() && !flushing.get() && writeThroughInFlight() == 0
+                ? Mono.empty()
+                : Mono.delay(Duration.ofMillis(100)).then(drainAll())));
+    }
+
+    private int writeThroughInFlight() {
+        return properties.getWriteThroughConcurrency() - writeThroughPermits.availablePermits();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server (stopped at {@code DEFAULT_PHASE - 2048}) and before the data source is closed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static Counter entries(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("product.history.entries")
+                .description("Price and stock changes handled by the history writer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
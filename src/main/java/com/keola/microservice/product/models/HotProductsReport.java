@@ -0,0 +1,40 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotProductsReport {
+
+    @JsonProperty("generated_at")
+    private Instant generatedAt;
+
+    @JsonProperty("window_seconds")
+    private long windowSeconds;
+
+    @JsonProperty("products")
+    private List<Entry> products;
+
+    /**
+     * A product and its estimated weighted views over the window; estimates never undercount.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        @JsonProperty("id")
+        private long id;
+        @JsonProperty("views")
+        private long views;
+    }
+}
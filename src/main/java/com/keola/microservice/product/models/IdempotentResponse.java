@@ -0,0 +1,31 @@
+package com.keola.microservice.product.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * First response stored for an Idempotency-Key.
+ * A null status means the original request is still running.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentResponse {
+    private String requestHash;
+    private Integer statusCode;
+    private String responseBody;
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,57 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportReport {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("format")
+    private String format;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("started_at")
+    private Instant startedAt;
+
+    @JsonProperty("finished_at")
+    private Instant finishedAt;
+
+    @JsonProperty("bytes_read")
+    private long bytesRead;
+
+    @JsonProperty("records_read")
+    private long recordsRead;
+
+    @JsonProperty("records_accepted")
+    private long recordsAccepted;
+
+    @JsonProperty("records_rejected")
+    private long recordsRejected;
+
+    @JsonProperty("rows_inserted")
+    private long rowsInserted;
+
+    @JsonProperty("rows_updated")
+    private long rowsUpdated;
+
+    @JsonProperty("records_per_second")
+    private double recordsPerSecond;
+
+    @JsonProperty("error")
+    private String error;
+}
@@ -0,0 +1,32 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed product change, as streamed to other services.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChange {
+
+    @JsonProperty("type")
+    private ProductChangedEvent.Type type;
+
+    @JsonProperty("product_id")
+    private Long productId;
+
+    @JsonProperty("product")
+    private ReadProductDTO product; // State after the change; null for deletes and bulk changes.
+
+    public static ProductChange of(ProductChangedEvent event) {
+        return new ProductChange(event.getType(), event.getProductId(), event.getProduct());
+    }
+}
@@ -0,0 +1,38 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A change of the price or the quantity of a product; the old values are null for new products.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductHistoryEntry {
+
+    @JsonProperty("product_id")
+    private Long productId;
+
+    @JsonProperty("changed_at")
+    private Instant changedAt;
+
+    @JsonProperty("old_price")
+    private BigDecimal oldPrice;
+
+    @JsonProperty("new_price")
+    private BigDecimal newPrice;
+
+    @JsonProperty("old_quantity")
+    private Integer oldQuantity;
+
+    @JsonProperty("new_quantity")
+    private Integer newQuantity;
+}
@@ -0,0 +1,24 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.keola.microservice.product.constants.StateProduct;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters of a product listing requested over RSocket; null fields match any value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQuery {
+
+    @JsonProperty("category")
+    private String category;
+
+    @JsonProperty("status")
+    private StateProduct status;
+}
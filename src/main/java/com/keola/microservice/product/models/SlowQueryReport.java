@@ -0,0 +1,68 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQueryReport {
+
+    @JsonProperty("threshold_ms")
+    private long thresholdMs;
+
+    @JsonProperty("recent")
+    private List<Entry> recent;
+
+    @JsonProperty("shapes")
+    private List<Shape> shapes;
+
+    /**
+     * One slow execution; the statement is stored as its shape and parameter values are replaced by their types.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        @JsonProperty("executed_at")
+        private Instant executedAt;
+        @JsonProperty("duration_ms")
+        private double durationMs;
+        @JsonProperty("sql")
+        private String sql;
+        @JsonProperty("parameters")
+        private List<String> parameters;
+        @JsonProperty("success")
+        private boolean success;
+    }
+
+    /**
+     * Aggregated slow executions of one normalized statement.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Shape {
+        @JsonProperty("sql")
+        private String sql;
+        @JsonProperty("count")
+        private long count;
+        @JsonProperty("max_ms")
+        private double maxMs;
+        @JsonProperty("avg_ms")
+        private double avgMs;
+        @JsonProperty("explain")
+        private String explain;
+    }
+}
@@ -0,0 +1,23 @@
+package com.keola.microservice.product.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units to add to the stock of a product, or to remove when negative.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustment {
+
+    @JsonProperty("product_id")
+    private Long productId;
+
+    @JsonProperty("delta")
+    private int delta;
+}
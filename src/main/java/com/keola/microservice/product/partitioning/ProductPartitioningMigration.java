@@ -0,0 +1,112 @@
+package com.keola.microservice.product.partitioning;
+
+import com.keola.microservice.product.config.PartitioningProperties;
+import com.keola.microservice.product.config.PartitioningProperties.Strategy;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProductPartitioningMigration converts the heap tbl_product created by schema.sql into a partitioned
+ * table on startup, when a partitioning strategy is configured and the table is not partitioned yet.
+ * In one transaction, under an exclusive lock, the current table is renamed to
+ * {@code tbl_product_unpartitioned}, the partitioned table is created with the same columns and
+ * sequence, rows are copied and the indexes rebuilt. The old table is kept for rollback and can be
+ * dropped once the migration is verified. An advisory lock keeps several instances from migrating at once.
+ */
+@Slf4j
+@Component
+public class ProductPartitioningMigration implements ApplicationRunner {
+
+    static final String TABLE = "tbl_product";
+    static final String LEGACY_TABLE = "tbl_product_unpartitioned";
+    private static final String SEQUENCE = "tbl_product_id_seq";
+    private static final String ADVISORY_LOCK = "SELECT pg_advisory_xact_lock(hashtext('tbl_product_partitioning'))";
+    private static final String IS_PARTITIONED = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt "
+            + "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = '" + TABLE + "' AND pg_table_is_visible(c.oid))";
+
+    private final ConnectionFactory connectionFactory;
+    private final PartitioningProperties properties;
+
+    public ProductPartitioningMigration(ConnectionFactory connectionFactory, PartitioningProperties properties) {
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.getStrategy() != Strategy.NONE) {
+            migrate().block();
+        }
+    }
+
+    /**
+     * Partitions tbl_product with the configured strategy unless it is already partitioned.
+     * @return a Mono completing with true when the table was migrated.
+     */
+    public Mono<Boolean> migrate() {
+        Strategy strategy = properties.getStrategy();
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.usingWhen(Mono.from(connection.beginTransaction()).thenReturn(connection),
+                        transaction -> execute(transaction, ADVISORY_LOCK)
+                                .then(isPartitioned(transaction))
+                                .flatMap(partitioned -> {
+                                    if (partitioned) {
+                                        log.debug("{} is already partitioned", TABLE);
+                                        return Mono.just(false);
+                                    }
+                                    log.info("Partitioning {} by {}", TABLE, strategy);
+                                    return Flux.fromIterable(migrationStatements(strategy, properties))
+                                            .concatMap(sql -> execute(transaction, sql))
+                                            .then(Mono.just(true));
+                                }),
+                        Connection::commitTransaction,
+                        (transaction, ex) -> transaction.rollbackTransaction(),
+                        Connection::rollbackTransaction),
+                Connection::close)
+                .doOnNext(migrated -> {
+                    if (migrated) {
+                        log.info("{} partitioned by {}; the previous table is kept as {}", TABLE, strategy, LEGACY_TABLE);
+                    }
+                });
+    }
+
+    static List<String> migrationStatements(Strategy strategy, PartitioningProperties properties) {
+        List<String> statements = new ArrayList<>();
+        statements.add("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+        statements.add("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        // Free the index names so that the new table, and schema.sql on later startups, use them
+        for (String index : List.of("tbl_product_pkey", "idx_product_name", "idx_product_category", "idx_product_status")) {
+            statements.add("ALTER INDEX IF EXISTS " + index + " RENAME TO " + index.replace("product", "product_unpartitioned"));
+        }
+        statements.addAll(ProductTableLayout.createTable(TABLE, SEQUENCE, strategy, properties));
+        statements.add("INSERT INTO " + TABLE + " (" + ProductTableLayout.COLUMNS + ") SELECT "
+                + ProductTableLayout.COLUMNS + " FROM " + LEGACY_TABLE);
+        statements.addAll(ProductTableLayout.createIndexes(TABLE, "idx_product", strategy));
+        statements.add("ALTER SEQUENCE " + SEQUENCE + " OWNED BY " + TABLE + ".id");
+        statements.add("ANALYZE " + TABLE);
+        return statements;
+    }
+
+    private static Mono<Boolean> isPartitioned(Connection connection) {
+        return Flux.from(connection.createStatement(IS_PARTITIONED).execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Boolean.class)))
+                .next()
+                .defaultIfEmpty(false);
+    }
+
+    private static Mono<Long> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+}
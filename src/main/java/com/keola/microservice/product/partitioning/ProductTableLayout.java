@@ -0,0 +1,96 @@
+package com.keola.microservice.product.partitioning;
+
+import com.keola.microservice.product.config.PartitioningProperties;
+import com.keola.microservice.product.config.PartitioningProperties.Strategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * DDL of tbl_product for each {@link Strategy}.
+ * <ul>
+ *     <li>CATEGORY: lookups and lists filtered by category only touch one partition, and each partition
+ *     has its own small status index. Postgres requires unique indexes to include the partition key, so
+ *     the id is only unique together with the category (ids still come from one sequence), and a lookup
+ *     by id probes the id index of every partition.</li>
+ *     <li>ID_HASH: a lookup by id touches one partition and inserts spread over all of them, which
+ *     removes the hot right-most pages of the id and status indexes; filtered lists are not pruned.</li>
+ * </ul>
+ * Statements are split in two phases so that data can be copied before the indexes are built.
+ */
+public final class ProductTableLayout {
+
+    public static final String COLUMNS = "id, name, description, price, quantity, category, image_url, created_at, updated_at, brand, status";
+
+    private ProductTableLayout() {
+    }
+
+    /**
+     * @return the statements creating the table and its partitions, without indexes.
+     */
+    public static List<String> createTable(String table, String sequence, Strategy strategy, PartitioningProperties properties) {
+        String columns = "(id INTEGER NOT NULL DEFAULT nextval('" + sequence + "'), "
+                + "name VARCHAR(100) NOT NULL, description VARCHAR(500), price DECIMAL(10, 2) NOT NULL, quantity INT NOT NULL, "
+                + "category VARCHAR(255), image_url VARCHAR(255), "
+                + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                + "brand VARCHAR(255), status VARCHAR(50))";
+        List<String> statements = new ArrayList<>();
+        switch (strategy) {
+            case NONE -> statements.add("CREATE TABLE " + table + " " + columns);
+            case CATEGORY -> {
+                statements.add("CREATE TABLE " + table + " " + columns + " PARTITION BY LIST (category)");
+                Set<String> suffixes = new LinkedHashSet<>();
+                for (String category : properties.getCategories()) {
+                    String suffix = partitionSuffix(category);
+                    // Two categories may sanitize to the same name; number the later ones
+                    String unique = suffix;
+                    for (int i = 2; !suffixes.add(unique); i++) {
+                        unique = suffix + "_" + i;
+                    }
+                    statements.add("CREATE TABLE " + table + "_" + unique + " PARTITION OF " + table
+                            + " FOR VALUES IN (" + literal(category) + ")");
+                }
+                statements.add("CREATE TABLE " + table + "_default PARTITION OF " + table + " DEFAULT");
+            }
+            case ID_HASH -> {
+                statements.add("CREATE TABLE " + table + " " + columns + " PARTITION BY HASH (id)");
+                for (int i = 0; i < properties.getHashPartitions(); i++) {
+                    statements.add("CREATE TABLE " + table + "_p" + i + " PARTITION OF " + table
+                            + " FOR VALUES WITH (MODULUS " + properties.getHashPartitions() + ", REMAINDER " + i + ")");
+                }
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @param indexPrefix prefix of the index names, e.g. {@code idx_product}.
+     * @return the statements creating the key and the secondary indexes.
+     */
+    public static List<String> createIndexes(String table, String indexPrefix, Strategy strategy) {
+        List<String> statements = new ArrayList<>();
+        if (strategy == Strategy.CATEGORY) {
+            statements.add("CREATE UNIQUE INDEX " + indexPrefix + "_id_category ON " + table + " (id, category)");
+            // Named categories hold a single value, so only the default partition needs a category index
+            statements.add("CREATE INDEX " + indexPrefix + "_category ON " + table + "_default (category)");
+        } else {
+            statements.add("ALTER TABLE " + table + " ADD PRIMARY KEY (id)");
+            statements.add("CREATE INDEX " + indexPrefix + "_category ON " + table + " (category)");
+        }
+        statements.add("CREATE INDEX " + indexPrefix + "_name ON " + table + " (name)");
+        statements.add("CREATE INDEX " + indexPrefix + "_status ON " + table + " (status)");
+        return statements;
+    }
+
+    static String partitionSuffix(String category) {
+        String suffix = category.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_+|_+$", "");
+        return suffix.isEmpty() ? "category" : suffix;
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,28 @@
+package com.keola.microservice.product.popularity;
+
+import com.keola.microservice.product.models.HotProductsReport;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint reporting the hottest products, served on the management port:
+ * {@code GET /actuator/hotproducts?limit=20} returns the most read products over the popularity window,
+ * hottest first, with their estimated weighted views. Detail reads weigh more than appearances in lists.
+ */
+@Endpoint(id = "hotproducts")
+public class HotProductsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final ProductPopularity productPopularity;
+
+    public HotProductsEndpoint(ProductPopularity productPopularity) {
+        this.productPopularity = productPopularity;
+    }
+
+    @ReadOperation
+    public HotProductsReport hotProducts(@Nullable Integer limit) {
+        return productPopularity.report(limit == null ? DEFAULT_LIMIT : Math.max(limit, 0));
+    }
+}
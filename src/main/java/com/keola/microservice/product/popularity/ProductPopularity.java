@@ -0,0 +1,232 @@
+package com.keola.microservice.product.popularity;
+
+import com.keola.microservice.product.config.PopularityProperties;
+import com.keola.microservice.product.models.HotProductsReport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ProductPopularity tracks how often products are read, in fixed memory whatever the catalog size.
+ * <p>
+ * Detail and list reads are counted, with their weights, in a {@link WindowedCountMinSketch}. Next to
+ * it a bounded set of candidates holds the heavy hitters: a product enters once its count exceeds
+ * the lowest count of a full set, and the set is trimmed back to size, recounted, when it overflows
+ * and whenever the window slides. Known candidates cost one map lookup per read; only products
+ * entering the set take a lock, and never wait for it.
+ * <p>
+ * The hottest products are saved periodically and on shutdown, and restored on startup, so that
+ * caches can be warmed and admissions decided right after a restart.
+ */
+@Slf4j
+@Component
+public class ProductPopularity {
+
+    public record HotProduct(long id, long views) {
+    }
+
+    private final PopularityProperties properties;
+    private final Clock clock;
+    private final WindowedCountMinSketch sketch;
+    private final Map<Long, Boolean> candidates = new ConcurrentHashMap<>();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private volatile long admissionThreshold; // Lowest count of a full candidate set.
+    private volatile long trimmedSlice = Long.MIN_VALUE;
+    private volatile List<Long> restoredIds = List.of();
+
+    public ProductPopularity(PopularityProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    ProductPopularity(PopularityProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.sketch = new WindowedCountMinSketch(properties.getDepth(), properties.getWidth(), properties.getBuckets(),
+                properties.getWindow().toMillis());
+        Gauge.builder("product.popularity.admission-threshold", this, popularity -> popularity.admissionThreshold)
+                .description("Views over the window a product needs to enter the hottest products")
+                .register(meterRegistry);
+    }
+
+    public void recordView(long productId) {
+        record(productId, properties.getDetailViewWeight());
+    }
+
+    public void recordListView(long productId) {
+        record(productId, properties.getListViewWeight());
+    }
+
+    /**
+     * Records {@code views} appearances of the product in lists at once, e.g. hits of a cached list.
+     */
+    public void recordListViews(long productId, long views) {
+        record(productId, (int) Math.min(views * properties.getListViewWeight(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * @return the estimated weighted views of the product over the window; never an undercount.
+     */
+    public long estimate(long productId) {
+        return sketch.estimate(productId, clock.millis());
+    }
+
+    /**
+     * TinyLFU-style admission for caches of products: a newcomer replaces the entry a full cache
+     * would evict only if it is read more often.
+     */
+    public boolean admit(long candidateId, long victimId) {
+        long now = clock.millis();
+        return sketch.estimate(candidateId, now) > sketch.estimate(victimId, now);
+    }
+
+    /**
+     * @return whether the product is among the tracked hottest products.
+     */
+    public boolean isHot(long productId) {
+        return candidates.containsKey(productId);
+    }
+
+    /**
+     * @return the hottest products over the window, hottest first.
+     */
+    public List<HotProduct> hottest(int limit) {
+        List<HotProduct> ranked = rank(clock.millis());
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    /**
+     * @return the hottest product ids saved before the last shutdown, hottest first, to warm caches with.
+     */
+    public List<Long> getRestoredIds() {
+        return restoredIds;
+    }
+
+    public HotProductsReport report(int limit) {
+        return HotProductsReport.builder()
+                .generatedAt(Instant.now(clock))
+                .windowSeconds(sketch.getWindowMillis() / 1000)
+                .products(hottest(limit).stream()
+                        .map(product -> new HotProductsReport.Entry(product.id(), product.views()))
+                        .toList())
+                .build();
+    }
+
+    private void record(long productId, int weight) {
+        if (!properties.isEnabled() || weight <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        long views = sketch.add(productId, weight, now);
+        if (sketch.slice(now) != trimmedSlice) {
+            trimmedSlice = sketch.slice(now);
+            trim(now); // Counts dropped with the oldest bucket; let new products in
+        }
+        if (candidates.containsKey(productId)) {
+            return;
+        }
+        if (candidates.size() < properties.getTopK() || views > admissionThreshold) {
+            candidates.put(productId, Boolean.TRUE);
+            if (candidates.size() > properties.getTopK()) {
+                trim(now);
+            }
+        }
+    }
+
+    private void trim(long now) {
+        if (!trimLock.tryLock()) {
+            return; // Another thread is trimming; the set may briefly hold a few extra candidates
+        }
+        try {
+            List<HotProduct> ranked = rank(now);
+            for (int i = properties.getTopK(); i < ranked.size(); i++) {
+                candidates.remove(ranked.get(i).id());
+            }
+            admissionThreshold = ranked.size() >= properties.getTopK() ? ranked.get(properties.getTopK() - 1).views() : 0;
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private List<HotProduct> rank(long now) {
+        List<HotProduct> ranked = new ArrayList<>(candidates.size());
+        for (Long id : candidates.keySet()) {
+            ranked.add(new HotProduct(id, sketch.estimate(id, now)));
+        }
+        ranked.sort(Comparator.comparingLong(HotProduct::views).reversed());
+        return ranked;
+    }
+
+    @PostConstruct
+    void restore() {
+        Path path = properties.getPath();
+        if (!properties.isEnabled() || !Files.exists(path)) {
+            return;
+        }
+        try {
+            List<Long> ids = new ArrayList<>();
+            long now = clock.millis();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length != 2 || ids.size() >= properties.getTopK()) {
+                    continue;
+                }
+                long id = Long.parseLong(fields[0].trim());
+                long views = Long.parseLong(fields[1].trim());
+                // The counts restart in the current bucket, so they age out like fresh views
+                sketch.add(id, (int) Math.min(views, Integer.MAX_VALUE), now);
+                candidates.put(id, Boolean.TRUE);
+                ids.add(id);
+            }
+            restoredIds = List.copyOf(ids);
+            trim(now);
+            log.info("Restored {} hot products from {}", ids.size(), path);
+        } catch (IOException | NumberFormatException ex) {
+            log.warn("Ignoring unreadable hot products file {}: {}", path, ex.getMessage());
+        }
+    }
+
+    /**
+     * Saves the hottest products as {@code id,views} lines, replacing the previous file atomically.
+     */
+    @PreDestroy
+    @Scheduled(initialDelayString = "${product.popularity.save-interval:PT5M}", fixedDelayString = "${product.popularity.save-interval:PT5M}")
+    public void save() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path path = properties.getPath();
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "hot-products", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (HotProduct product : hottest(properties.getTopK())) {
+                    writer.write(product.id() + "," + product.views());
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not save the hot products to {}: {}", path, ex.getMessage());
+        }
+    }
+}
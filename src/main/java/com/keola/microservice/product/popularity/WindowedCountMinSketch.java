@@ -0,0 +1,120 @@
+package com.keola.microservice.product.popularity;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch over a sliding time window, lock-free and of fixed size.
+ * <p>
+ * The window is split into buckets, each a {@code depth x width} counter matrix covering one slice
+ * of time; buckets are reused round-robin and cleared by the first writer of a new slice. A count is
+ * the minimum over the rows of the row's counters summed over the buckets of the window, which like
+ * any count-min estimate never undercounts and overcounts by at most {@code e/width} of the total
+ * with probability {@code 1 - e^-depth}. A write racing with the clearing of its bucket may be lost.
+ * Memory is {@code 4 * buckets * depth * width} bytes whatever the number of keys.
+ */
+public class WindowedCountMinSketch {
+
+    private final int depth;
+    private final int width; // Power of two, so that indexes are masks.
+    private final int buckets;
+    private final long sliceMillis;
+    private final AtomicIntegerArray counters; // [bucket][row][column]
+    private final AtomicLongArray slices; // Time slice currently held by each bucket.
+
+    /**
+     * @param width counters per row, rounded up to a power of two.
+     * @param windowMillis length of the window; it slides one bucket at a time.
+     */
+    public WindowedCountMinSketch(int depth, int width, int buckets, long windowMillis) {
+        if (depth < 1 || width < 1 || buckets < 1 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Invalid sketch dimensions");
+        }
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.buckets = buckets;
+        this.sliceMillis = windowMillis / buckets;
+        this.counters = new AtomicIntegerArray(buckets * depth * this.width);
+        this.slices = new AtomicLongArray(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            slices.set(bucket, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Adds {@code weight} to the key's count in the current time slice.
+     * @return the key's count over the window, this addition included.
+     */
+    public long add(long key, int weight, long nowMillis) {
+        long slice = nowMillis / sliceMillis;
+        int bucket = (int) Math.floorMod(slice, (long) buckets);
+        rotate(bucket, slice);
+        long hash = mix(key);
+        int base = bucket * depth * width;
+        for (int row = 0; row < depth; row++) {
+            int index = base + row * width + column(hash, row);
+            // Saturate instead of wrapping to negative counts
+            if (counters.addAndGet(index, weight) < 0) {
+                counters.set(index, Integer.MAX_VALUE);
+            }
+        }
+        return estimate(key, nowMillis);
+    }
+
+    /**
+     * @return the key's count over the window ending now.
+     */
+    public long estimate(long key, long nowMillis) {
+        long slice = nowMillis / sliceMillis;
+        long hash = mix(key);
+        long minimum = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long sum = 0;
+            int column = column(hash, row);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                long bucketSlice = slices.get(bucket);
+                if (bucketSlice > slice - buckets && bucketSlice <= slice) {
+                    sum += counters.get((bucket * depth + row) * width + column);
+                }
+            }
+            minimum = Math.min(minimum, sum);
+        }
+        return minimum;
+    }
+
+    /**
+     * @return the time slice of {@code nowMillis}; it changes once per bucket length.
+     */
+    public long slice(long nowMillis) {
+        return nowMillis / sliceMillis;
+    }
+
+    public long getWindowMillis() {
+        return sliceMillis * buckets;
+    }
+
+    private void rotate(int bucket, long slice) {
+        long current = slices.get(bucket);
+        if (current < slice && slices.compareAndSet(bucket, current, slice)) {
+            int base = bucket * depth * width;
+            for (int i = 0; i < depth * width; i++) {
+                counters.set(base + i, 0);
+            }
+        }
+    }
+
+    private int column(long hash, int row) {
+        // Double hashing: row i uses h1 + i * h2, with h2 odd
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + row * h2) & (width - 1);
+    }
+
+    private static long mix(long key) {
+        // SplitMix64 finalizer
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
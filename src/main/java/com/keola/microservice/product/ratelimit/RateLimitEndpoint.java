@@ -0,0 +1,44 @@
+package com.keola.microservice.product.ratelimit;
+
+import com.keola.microservice.product.config.RateLimitProperties.TierLimits;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint to change rate limits without restarting the service.
+ * It is served on the management port, which is not exposed outside the cluster:
+ * <ul>
+ *     <li>{@code GET /actuator/ratelimits} returns the limits of every tier.</li>
+ *     <li>{@code POST /actuator/ratelimits/{tier}} with the tier limits as JSON creates or replaces a tier.</li>
+ *     <li>{@code POST /actuator/ratelimits/{tier}/{apiKey}} assigns an API key to a tier.</li>
+ * </ul>
+ */
+@Endpoint(id = "ratelimits")
+public class RateLimitEndpoint {
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public RateLimitEndpoint(TokenBucketRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, TierLimits> tiers() {
+        return rateLimiter.getTiers();
+    }
+
+    @WriteOperation
+    public void updateTier(@Selector String tier, double readPerSecond, int readBurst,
+                           double writePerSecond, int writeBurst) {
+        rateLimiter.updateTier(tier, new TierLimits(readPerSecond, readBurst, writePerSecond, writeBurst));
+    }
+
+    @WriteOperation
+    public void assignClient(@Selector String tier, @Selector String apiKey) {
+        rateLimiter.assignClient(apiKey, tier);
+    }
+}
@@ -0,0 +1,230 @@
+package com.keola.microservice.product.ratelimit;
+
+import com.keola.microservice.product.config.RateLimitProperties;
+import com.keola.microservice.product.config.RateLimitProperties.TierLimits;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBucketRateLimiter keeps a read and a write token bucket per client.
+ * Each bucket is a single "theoretical arrival time" updated with compare-and-set (GCRA),
+ * which behaves exactly like a token bucket refilled continuously, without locks or refill threads.
+ * Buckets live in a fixed number of independent maps (stripes) and are evicted once they have been
+ * full and idle for the configured timeout, so memory stays bounded by the number of active clients.
+ * Eviction only runs on schedule, never on the request path: while a stripe is full, new anonymous
+ * clients share one bucket until it makes room, but API keys with a tier assignment always get their own.
+ * Tier limits are read on every request and can be replaced at runtime through {@link RateLimitEndpoint}.
+ */
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    public enum Budget { READ, WRITE }
+
+    private final RateLimitProperties properties;
+    private final ConcurrentHashMap<String, ClientBucket>[] stripes;
+    private final int stripeMask;
+    private final int maxClientsPerStripe;
+    private final ClientBucket overflowBucket = new ClientBucket(); // Shared by new clients while the stripe is full.
+
+    private volatile Map<String, Rates> rates; // Compiled tier limits by tier name.
+    private volatile Map<String, String> clientTiers; // Tier name by API key.
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        if (Integer.bitCount(properties.getStripes()) != 1) {
+            throw new IllegalArgumentException("product.rate-limit.stripes must be a power of two");
+        }
+        this.properties = properties;
+        this.stripes = new ConcurrentHashMap[properties.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.stripeMask = stripes.length - 1;
+        this.maxClientsPerStripe = Math.max(1, properties.getMaxClients() / stripes.length);
+        this.clientTiers = Map.copyOf(properties.getClients());
+        Map<String, Rates> compiled = new HashMap<>();
+        properties.getTiers().forEach((tier, limits) -> compiled.put(tier, Rates.of(limits)));
+        this.rates = Map.copyOf(compiled);
+
+        Gauge.builder("product.rate-limit.clients", this, TokenBucketRateLimiter::trackedClients)
+                .description("Clients with a tracked token bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client's bucket.
+     * @param clientKey the API key or IP address of the client.
+     * @param apiKey true when the client is identified by API key, so its tier assignment applies.
+     * @param budget the read or write budget to charge.
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available.
+     */
+    public long tryAcquire(String clientKey, boolean apiKey, Budget budget) {
+        String tier = apiKey ? clientTiers.getOrDefault(clientKey, properties.getDefaultTier()) : properties.getDefaultTier();
+        Rates tierRates = rates.get(tier);
+        if (tierRates == null) {
+            tierRates = rates.get(properties.getDefaultTier());
+        }
+        if (tierRates == null) {
+            return 0; // No limits configured
+        }
+        long now = System.nanoTime();
+        ClientBucket bucket = bucketFor(clientKey, apiKey && clientTiers.containsKey(clientKey));
+        return budget == Budget.READ
+                ? bucket.acquire(ClientBucket.READ_TAT, tierRates.readIntervalNanos, tierRates.readToleranceNanos, now)
+                : bucket.acquire(ClientBucket.WRITE_TAT, tierRates.writeIntervalNanos, tierRates.writeToleranceNanos, now);
+    }
+
+    /**
+     * Whether the API key has a tier assignment. Unknown keys are charged to the caller's IP address.
+     */
+    public boolean isAssigned(String apiKey) {
+        return clientTiers.containsKey(apiKey);
+    }
+
+    /**
+     * @param assigned whether the client is a configured API key, which is tracked past the client limit.
+     */
+    private ClientBucket bucketFor(String clientKey, boolean assigned) {
+        ConcurrentHashMap<String, ClientBucket> stripe = stripes[spread(clientKey.hashCode()) & stripeMask];
+        ClientBucket bucket = stripe.get(clientKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        // Scanning for idle buckets here would make a flood of new clients pay for a full scan each
+        if (stripe.size() >= maxClientsPerStripe && !assigned) {
+            return overflowBucket;
+        }
+        return stripe.computeIfAbsent(clientKey, key -> new ClientBucket());
+    }
+
+    /**
+     * Replaces the limits of a tier, effective for the next request of every client in it.
+     */
+    public synchronized void updateTier(String tier, TierLimits limits) {
+        Map<String, Rates> updated = new HashMap<>(rates);
+        updated.put(tier, Rates.of(limits));
+        rates = Map.copyOf(updated);
+        properties.getTiers().put(tier, limits);
+        log.info("Rate limit tier {} updated to {}", tier, limits);
+    }
+
+    /**
+     * Assigns an API key to a tier, effective for its next request.
+     */
+    public synchronized void assignClient(String apiKey, String tier) {
+        Map<String, String> updated = new HashMap<>(clientTiers);
+        updated.put(apiKey, tier);
+        clientTiers = Map.copyOf(updated);
+        properties.getClients().put(apiKey, tier);
+    }
+
+    public synchronized Map<String, TierLimits> getTiers() {
+        return Map.copyOf(properties.getTiers());
+    }
+
+    public long trackedClients() {
+        long total = 0;
+        for (ConcurrentHashMap<String, ClientBucket> stripe : stripes) {
+            total += stripe.size();
+        }
+        return total;
+    }
+
+    /**
+     * Removes buckets that are full again and idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${product.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        long before = trackedClients();
+        for (ConcurrentHashMap<String, ClientBucket> stripe : stripes) {
+            evictIdle(stripe, now);
+        }
+        log.debug("Rate limiter evicted {} idle clients", before - trackedClients());
+    }
+
+    private void evictIdle(ConcurrentHashMap<String, ClientBucket> stripe, long now) {
+        long idleNanos = properties.getIdleTimeout().toNanos();
+        stripe.values().removeIf(bucket -> bucket.idleSince() + idleNanos - now < 0);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Tier limits converted to GCRA parameters: the time a token takes to refill and the burst allowance.
+     */
+    private record Rates(long readIntervalNanos, long readToleranceNanos, long writeIntervalNanos, long writeToleranceNanos) {
+
+        // A rate of zero blocks the budget: no burst allowance and a retry hint of one day
+        static Rates of(TierLimits limits) {
+            long readInterval = intervalNanos(limits.getReadPerSecond());
+            long writeInterval = intervalNanos(limits.getWritePerSecond());
+            return new Rates(readInterval, limits.getReadPerSecond() <= 0 ? 0 : readInterval * Math.max(1, limits.getReadBurst()),
+                    writeInterval, limits.getWritePerSecond() <= 0 ? 0 : writeInterval * Math.max(1, limits.getWriteBurst()));
+        }
+
+        private static long intervalNanos(double perSecond) {
+            return perSecond <= 0 ? TimeUnit.DAYS.toNanos(1) : (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        }
+    }
+
+    /**
+     * Read and write theoretical arrival times of one client, updated with compare-and-set.
+     */
+    static final class ClientBucket {
+
+        static final VarHandle READ_TAT;
+        static final VarHandle WRITE_TAT;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                READ_TAT = lookup.findVarHandle(ClientBucket.class, "readTat", long.class);
+                WRITE_TAT = lookup.findVarHandle(ClientBucket.class, "writeTat", long.class);
+            } catch (ReflectiveOperationException ex) {
+                throw new ExceptionInInitializerError(ex);
+            }
+        }
+
+        private volatile long readTat;
+        private volatile long writeTat;
+
+        ClientBucket() {
+            long now = System.nanoTime();
+            this.readTat = now;
+            this.writeTat = now;
+        }
+
+        long acquire(VarHandle tatHandle, long intervalNanos, long toleranceNanos, long now) {
+            for (;;) {
+                long tat = (long) tatHandle.getVolatile(this);
+                long newTat = Math.max(tat - now, 0) + now + intervalNanos;
+                long allowAt = newTat - toleranceNanos;
+                if (allowAt - now > 0) {
+                    return allowAt - now;
+                }
+                if (tatHandle.compareAndSet(this, tat, newTat)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Once both arrival times are in the past the bucket is full and indistinguishable from a new one
+        long idleSince() {
+            long read = readTat;
+            long write = writeTat;
+            return read - write > 0 ? read : write;
+        }
+    }
+}
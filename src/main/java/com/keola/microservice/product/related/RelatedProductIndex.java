@@ -0,0 +1,281 @@
+package com.keola.microservice.product.related;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The related products of every product, precomputed.
+ * <p>
+ * Products are grouped by category and by brand, each group sorted by price. The candidates of a
+ * product are found by walking outwards from its price in its category and in its brand, nearest
+ * price first, up to the scan window per group and while the price stays within the maximum
+ * relative distance. In-stock candidates are scored one point per shared category or brand, minus
+ * their relative price distance, and the best ones kept. Lists are computed in parallel on build.
+ * <p>
+ * {@link #put} and {@link #remove} update the groups copy-on-write and recompute the list of the
+ * changed product and of the products in its scan windows before and after the change, which are
+ * the ones that may list it. Updates are serialized; lookups never wait and may briefly see a list
+ * computed before the latest update.
+ */
+class RelatedProductIndex {
+
+    /**
+     * A product as indexed; the price is in cents, and category and brand are null when blank.
+     */
+    record Product(long id, String name, @Nullable String category, @Nullable String brand, long priceCents, boolean inStock) {
+    }
+
+    private static final Comparator<Product> BY_PRICE = Comparator.comparingLong(Product::priceCents).thenComparingLong(Product::id);
+
+    private final int neighborCount;
+    private final double maxPriceDistance;
+    private final int scanWindow;
+    private final Map<Long, Product> products;
+    private final Map<String, Product[]> categories = new ConcurrentHashMap<>();
+    private final Map<String, Product[]> brands = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> neighbors;
+
+    private RelatedProductIndex(int neighborCount, double maxPriceDistance, int scanWindow, int expectedSize) {
+        this.neighborCount = neighborCount;
+        this.maxPriceDistance = maxPriceDistance;
+        this.scanWindow = scanWindow;
+        this.products = new ConcurrentHashMap<>(expectedSize * 4 / 3 + 1);
+        this.neighbors = new ConcurrentHashMap<>(expectedSize * 4 / 3 + 1);
+    }
+
+    /**
+     * @param neighborCount the number of related products kept per product.
+     * @param maxPriceDistance the largest relative price difference, {@code |a - b| / max(a, b)}, of related products.
+     * @param scanWindow the number of products looked at on each of the category and brand groups.
+     */
+    static RelatedProductIndex build(Collection<Product> products, int neighborCount, double maxPriceDistance, int scanWindow) {
+        RelatedProductIndex index = new RelatedProductIndex(neighborCount, maxPriceDistance, scanWindow, products.size());
+        products.parallelStream().forEach(product -> index.products.put(product.id(), product));
+        index.categories.putAll(group(index.products.values(), Product::category));
+        index.brands.putAll(group(index.products.values(), Product::brand));
+        index.products.values().parallelStream().forEach(product -> index.neighbors.put(product.id(), index.compute(product)));
+        return index;
+    }
+
+    /**
+     * @return the ids of the related products, best first, or null when the product is not indexed.
+     */
+    @Nullable
+    long[] related(long id) {
+        return neighbors.get(id);
+    }
+
+    @Nullable
+    Product product(long id) {
+        return products.get(id);
+    }
+
+    int productCount() {
+        return products.size();
+    }
+
+    /**
+     * Adds or replaces a product.
+     */
+    synchronized void put(Product product) {
+        Set<Long> affected = new HashSet<>();
+        Product previous = products.get(product.id());
+        if (previous != null) {
+            visitCandidates(previous, candidate -> affected.add(candidate.id()));
+            categories.computeIfPresent(key(previous.category()), (key, group) -> without(group, previous));
+            brands.computeIfPresent(key(previous.brand()), (key, group) -> without(group, previous));
+        }
+        products.put(product.id(), product);
+        if (product.category() != null) {
+            categories.merge(product.category(), new Product[]{product}, (group, single) -> with(group, product));
+        }
+        if (product.brand() != null) {
+            brands.merge(product.brand(), new Product[]{product}, (group, single) -> with(group, product));
+        }
+        visitCandidates(product, candidate -> affected.add(candidate.id()));
+        neighbors.put(product.id(), compute(product));
+        recompute(affected);
+    }
+
+    synchronized void remove(long id) {
+        Product previous = products.remove(id);
+        if (previous == null) {
+            return;
+        }
+        Set<Long> affected = new HashSet<>();
+        visitCandidates(previous, candidate -> affected.add(candidate.id()));
+        categories.computeIfPresent(key(previous.category()), (key, group) -> without(group, previous));
+        brands.computeIfPresent(key(previous.brand()), (key, group) -> without(group, previous));
+        neighbors.remove(id);
+        recompute(affected);
+    }
+
+    private void recompute(Set<Long> ids) {
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                neighbors.put(id, compute(product));
+            }
+        }
+    }
+
+    private long[] compute(Product product) {
+        TopK top = new TopK(neighborCount);
+        visitCandidates(product, candidate -> {
+            if (candidate.inStock()) {
+                double score = (Objects.equals(product.category(), candidate.category()) ? 1 : 0)
+                        + (Objects.equals(product.brand(), candidate.brand()) ? 1 : 0)
+                        - distance(product.priceCents(), candidate.priceCents());
+                top.offer(candidate.id(), score);
+            }
+        });
+        return top.ids();
+    }
+
+    /**
+     * Visits the products near the given one in its category and brand groups, nearest price
+     * first; a product sharing both may be visited twice.
+     */
+    private void visitCandidates(Product product, Consumer<Product> visitor) {
+        if (product.category() != null) {
+            scan(categories.get(product.category()), product, visitor);
+        }
+        if (product.brand() != null) {
+            scan(brands.get(product.brand()), product, visitor);
+        }
+    }
+
+    private void scan(@Nullable Product[] group, Product product, Consumer<Product> visitor) {
+        if (group == null) {
+            return;
+        }
+        int position = Arrays.binarySearch(group, product, BY_PRICE);
+        int left = position >= 0 ? position - 1 : -position - 2;
+        int right = position >= 0 ? position + 1 : -position - 1;
+        long price = product.priceCents();
+        for (int visited = 0; visited < scanWindow; visited++) {
+            boolean leftOpen = left >= 0 && distance(price, group[left].priceCents()) <= maxPriceDistance;
+            boolean rightOpen = right < group.length && distance(price, group[right].priceCents()) <= maxPriceDistance;
+            Product candidate;
+            if (leftOpen && (!rightOpen || price - group[left].priceCents() <= group[right].priceCents() - price)) {
+                candidate = group[left--];
+            } else if (rightOpen) {
+                candidate = group[right++];
+            } else {
+                return;
+            }
+            if (candidate.id() != product.id()) {
+                visitor.accept(candidate);
+            }
+        }
+    }
+
+    /**
+     * @return the relative difference of two prices, from 0 for equal prices to 1.
+     */
+    static double distance(long a, long b) {
+        long max = Math.max(a, b);
+        return max <= 0 ? 0 : (double) Math.abs(a - b) / max;
+    }
+
+    private static Map<String, Product[]> group(Collection<Product> products, Function<Product, String> key) {
+        Map<String, List<Product>> groups = products.parallelStream()
+                .filter(product -> key.apply(product) != null)
+                .collect(Collectors.groupingByConcurrent(key));
+        Map<String, Product[]> sorted = new ConcurrentHashMap<>();
+        groups.entrySet().parallelStream().forEach(entry -> {
+            Product[] group = entry.getValue().toArray(Product[]::new);
+            Arrays.sort(group, BY_PRICE);
+            sorted.put(entry.getKey(), group);
+        });
+        return sorted;
+    }
+
+    private static Product[] with(Product[] group, Product product) {
+        int position = Arrays.binarySearch(group, product, BY_PRICE);
+        if (position >= 0) {
+            Product[] copy = group.clone();
+            copy[position] = product;
+            return copy;
+        }
+        int insertion = -position - 1;
+        Product[] copy = new Product[group.length + 1];
+        System.arraycopy(group, 0, copy, 0, insertion);
+        copy[insertion] = product;
+        System.arraycopy(group, insertion, copy, insertion + 1, group.length - insertion);
+        return copy;
+    }
+
+    @Nullable
+    private static Product[] without(Product[] group, Product product) {
+        int position = Arrays.binarySearch(group, product, BY_PRICE);
+        if (position < 0) {
+            return group;
+        }
+        if (group.length == 1) {
+            return null; // Drops the group
+        }
+        Product[] copy = new Product[group.length - 1];
+        System.arraycopy(group, 0, copy, 0, position);
+        System.arraycopy(group, position + 1, copy, position, group.length - position - 1);
+        return copy;
+    }
+
+    private static String key(@Nullable String value) {
+        return value == null ? "" : value; // Never a group key, as blank values are not grouped
+    }
+
+    /**
+     * The best scored ids seen, highest score first and lowest id first on ties.
+     */
+    private static final class TopK {
+
+        private final long[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopK(int capacity) {
+            this.ids = new long[capacity];
+            this.scores = new double[capacity];
+        }
+
+        void offer(long id, double score) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return; // Seen in both the category and the brand group
+                }
+            }
+            if (ids.length == 0 || (size == ids.length && !before(id, score, size - 1))) {
+                return;
+            }
+            int position = size == ids.length ? size - 1 : size++;
+            while (position > 0 && before(id, score, position - 1)) {
+                ids[position] = ids[position - 1];
+                scores[position] = scores[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            scores[position] = score;
+        }
+
+        private boolean before(long id, double score, int i) {
+            return score > scores[i] || (score == scores[i] && id < ids[i]);
+        }
+
+        long[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
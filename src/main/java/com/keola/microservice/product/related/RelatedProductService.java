@@ -0,0 +1,198 @@
+package com.keola.microservice.product.related;
+
+import com.keola.microservice.product.config.RelatedProperties;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.models.RelatedProduct;
+import com.keola.microservice.product.related.RelatedProductIndex.Product;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RelatedProductService answers "similar items" lookups from a {@link RelatedProductIndex}: products
+ * of the same category or brand, at a close price and in stock.
+ * <p>
+ * The index is built in parallel on startup and rebuilt from the database on a schedule and after
+ * bulk imports. In between, {@link ProductChangedEvent}s update it in place; changes seen while a
+ * rebuild runs are applied to the new index as well before it replaces the current one. A rebuild
+ * requested while another runs is not dropped: that rebuild may have read the table before the
+ * request's changes were committed, so it runs once more when it finishes.
+ */
+@Slf4j
+@Service
+public class RelatedProductService {
+
+    private static final Product REMOVED = new Product(-1, "", null, null, 0, false); // Lookup result for deleted products
+
+    private final ProductReadRepository productReadRepository;
+    private final RelatedProperties properties;
+    private final Map<Long, Long> lookups = new ConcurrentHashMap<>(); // Latest pending lookup of each changed product.
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final AtomicLong requestedRebuilds = new AtomicLong(); // Bumped by every reload() call, including rejected ones.
+    private final Object updateLock = new Object();
+    @Nullable
+    private Map<Long, Product> pending; // Changes seen during a rebuild; guarded by updateLock.
+    private volatile RelatedProductIndex index;
+
+    public RelatedProductService(ProductReadRepository productReadRepository, RelatedProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.productReadRepository = productReadRepository;
+        this.properties = properties;
+        this.index = RelatedProductIndex.build(List.of(), properties.getNeighbors(), properties.getMaxPriceDistance(),
+                properties.getScanWindow());
+        Gauge.builder("product.related.products", this, service -> service.index.productCount())
+                .description("Products in the related products index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param id the product to find related products for.
+     * @param limit the maximum number of related products, or null for all the precomputed ones.
+     * @return the related products, best match first.
+     * @throws EntityNotFoundException if the product is not indexed.
+     */
+    public List<RelatedProduct> related(long id, @Nullable Integer limit) {
+        if (!properties.isEnabled()) {
+            return List.of();
+        }
+        RelatedProductIndex current = index;
+        long[] ids = current.related(id);
+        if (ids == null) {
+            throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
+        }
+        int size = Math.max(0, Math.min(limit == null ? ids.length : limit, ids.length));
+        List<RelatedProduct> related = new ArrayList<>(size);
+        for (int i = 0; i < ids.length && related.size() < size; i++) {
+            Product product = current.product(ids[i]);
+            if (product != null) { // Removed since the list was computed
+                related.add(new RelatedProduct(product.id(), product.name(), product.category(), product.brand(),
+                        BigDecimal.valueOf(product.priceCents(), 2)));
+            }
+        }
+        return related;
+    }
+
+    /**
+     * Rebuilds the index from the database.
+     */
+    @Scheduled(initialDelayString = "${product.related.initial-delay:PT0S}", fixedDelayString = "${product.related.refresh-interval:PT30M}")
+    public Mono<Void> reload() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        requestedRebuilds.incrementAndGet();
+        if (!building.compareAndSet(false, true)) {
+            return Mono.empty(); // The running rebuild starts again when it finishes
+        }
+        // Requests up to here are covered: the table is read after this point
+        long covered = requestedRebuilds.get();
+        synchronized (updateLock) {
+            pending = new HashMap<>();
+        }
+        long start = System.nanoTime();
+        return productReadRepository.findAllRelatedSources()
+                .map(RelatedProductService::product)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(products -> RelatedProductIndex.build(products, properties.getNeighbors(), properties.getMaxPriceDistance(),
+                        properties.getScanWindow()))
+                .doOnNext(built -> {
+                    synchronized (updateLock) {
+                        pending.forEach((id, product) -> apply(built, id, product));
+                        index = built;
+                    }
+                    log.info("Related products index rebuilt: {} products in {} ms", built.productCount(),
+                            (System.nanoTime() - start) / 1_000_000);
+                })
+                .doFinally(signal -> {
+                    synchronized (updateLock) {
+                        pending = null;
+                    }
+                    building.set(false);
+                    if (requestedRebuilds.get() != covered) {
+                        reload().subscribe(null, ex -> log.warn("Could not rebuild the related products: {}", ex.getMessage()));
+                    }
+                })
+                .then();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        switch (event.getType()) {
+            case DELETED -> {
+                lookups.remove(event.getProductId()); // A lookup still running for an earlier change is dropped
+                apply(event.getProductId(), REMOVED);
+            }
+            // The event carries no brand, so the indexed columns are read again
+            case CREATED, UPDATED -> {
+                long id = event.getProductId();
+                long lookup = sequence.incrementAndGet();
+                lookups.put(id, lookup);
+                productReadRepository.findRelatedSourceById(id)
+                        .map(RelatedProductService::product)
+                        .defaultIfEmpty(REMOVED)
+                        .subscribe(product -> {
+                            // Lookups of concurrent changes may complete out of order; only the latest is applied
+                            if (lookups.remove(id, lookup)) {
+                                apply(id, product);
+                            }
+                        }, ex -> {
+                            lookups.remove(id, lookup);
+                            log.warn("Could not update the related products of product {}: {}", id, ex.getMessage());
+                        });
+            }
+            case BULK -> reload().subscribe(null, ex -> log.warn("Could not rebuild the related products: {}", ex.getMessage()));
+        }
+    }
+
+    private void apply(long id, Product product) {
+        synchronized (updateLock) {
+            apply(index, id, product);
+            if (pending != null) {
+                pending.put(id, product);
+            }
+        }
+    }
+
+    private static void apply(RelatedProductIndex target, long id, Product product) {
+        if (product == REMOVED) {
+            target.remove(id);
+        } else {
+            target.put(product);
+        }
+    }
+
+    static Product product(RelatedProductSource source) {
+        boolean inStock = StateProduct.activo.name().equals(source.status()) && source.quantity() > 0;
+        long priceCents = source.price() == null ? 0 : source.price().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        return new Product(source.id(), source.name(), blankToNull(source.category()), blankToNull(source.brand()), priceCents, inStock);
+    }
+
+    @Nullable
+    private static String blankToNull(@Nullable String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,9 @@
+package com.keola.microservice.product.related;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of tbl_product the related products index is built from.
+ */
+public record RelatedProductSource(long id, String name, String category, String brand, BigDecimal price, int quantity, String status) {
+}
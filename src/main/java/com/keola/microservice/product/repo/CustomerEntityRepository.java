@@ -1,8 +1,19 @@
 package com.keola.microservice.product.repo;
 
 import com.keola.microservice.product.entity.ProductEntity;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
 
 public interface CustomerEntityRepository extends ReactiveCrudRepository<ProductEntity,Long> {
 
+    /**
+     * Adds the delta to the quantity in one statement, unless the quantity would drop below zero.
+     * @return the number of rows updated: 0 when the product does not exist or has too little stock.
+     */
+    @Modifying
+    @Query("UPDATE tbl_product SET quantity = quantity + :delta, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = :id AND quantity + :delta >= 0")
+    Mono<Integer> adjustQuantity(Long id, int delta);
 }
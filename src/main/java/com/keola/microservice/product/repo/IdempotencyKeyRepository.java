@@ -0,0 +1,89 @@
+package com.keola.microservice.product.repo;
+
+import com.keola.microservice.product.models.IdempotentResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Access to tbl_idempotency_key through DatabaseClient, since reservations rely on
+ * {@code INSERT ... ON CONFLICT DO NOTHING} which Spring Data repositories do not expose.
+ */
+@Repository
+@AllArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Reserves the key for a request that is about to run, taking over a row that expired before {@code now}:
+     * a completed response past its TTL, or a reservation whose lease ran out.
+     * @return a Mono wrapping true if the key was free, false if another request already holds it.
+     */
+    public Mono<Boolean> reserve(String key, String requestHash, Instant now, Instant leaseExpiresAt) {
+        return databaseClient.sql("INSERT INTO tbl_idempotency_key (idempotency_key, request_hash, expires_at) "
+                        + "VALUES (:key, :hash, :expiresAt) ON CONFLICT (idempotency_key) DO UPDATE "
+                        + "SET request_hash = EXCLUDED.request_hash, status_code = NULL, response_body = NULL, "
+                        + "created_at = CURRENT_TIMESTAMP, expires_at = EXCLUDED.expires_at "
+                        + "WHERE tbl_idempotency_key.expires_at < :now")
+                .bind("key", key)
+                .bind("hash", requestHash)
+                .bind("expiresAt", leaseExpiresAt)
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    public Mono<IdempotentResponse> findByKey(String key) {
+        return databaseClient.sql("SELECT request_hash, status_code, response_body, expires_at "
+                        + "FROM tbl_idempotency_key WHERE idempotency_key = :key")
+                .bind("key", key)
+                .map(row -> IdempotentResponse.builder()
+                        .requestHash(row.get("request_hash", String.class))
+                        .statusCode(row.get("status_code", Integer.class))
+                        .responseBody(row.get("response_body", String.class))
+                        .expiresAt(row.get("expires_at", Instant.class))
+                        .build())
+                .one();
+    }
+
+    /**
+     * Stores the response of the request holding the key, extending the reservation to the TTL.
+     */
+    public Mono<Void> complete(String key, int statusCode, String responseBody, Instant expiresAt) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("UPDATE tbl_idempotency_key "
+                        + "SET status_code = :status, response_body = :body, expires_at = :expiresAt WHERE idempotency_key = :key")
+                .bind("key", key)
+                .bind("status", statusCode)
+                .bind("expiresAt", expiresAt);
+        spec = responseBody != null ? spec.bind("body", responseBody) : spec.bindNull("body", String.class);
+        return spec.then();
+    }
+
+    public Mono<Void> delete(String key) {
+        return databaseClient.sql("DELETE FROM tbl_idempotency_key WHERE idempotency_key = :key")
+                .bind("key", key)
+                .then();
+    }
+
+    /**
+     * Deletes every key that expired before the given instant.
+     * @return a Mono wrapping the number of rows removed.
+     */
+    public Mono<Long> deleteExpired(Instant now) {
+        return databaseClient.sql("DELETE FROM tbl_idempotency_key WHERE expires_at < :now")
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("SELECT COUNT(*) AS total FROM tbl_idempotency_key")
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+}
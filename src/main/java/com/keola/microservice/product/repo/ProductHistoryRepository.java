@@ -0,0 +1,99 @@
+package com.keola.microservice.product.repo;
+
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.AllArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Access to tbl_product_history. Rows are appended in batches and read by product and time range,
+ * both served by the (product_id, changed_at) index.
+ */
+@Repository
+@AllArgsConstructor
+public class ProductHistoryRepository {
+
+    private static final String INSERT_PREFIX = "INSERT INTO tbl_product_history "
+            + "(product_id, changed_at, old_price, new_price, old_quantity, new_quantity) VALUES ";
+    private static final int COLUMNS = 6;
+    private static final String SELECT_HISTORY = "SELECT product_id, changed_at, old_price, new_price, old_quantity, new_quantity "
+            + "FROM tbl_product_history WHERE product_id = :productId";
+
+    static final BiFunction<Row, RowMetadata, ProductHistoryEntry> ROW_MAPPER = (row, metadata) -> new ProductHistoryEntry(
+            row.get(0, Long.class),
+            row.get(1, Instant.class),
+            row.get(2, BigDecimal.class),
+            row.get(3, BigDecimal.class),
+            row.get(4, Integer.class),
+            row.get(5, Integer.class));
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Inserts the entries with one multi-row statement.
+     * @return a Mono wrapping the number of rows inserted.
+     */
+    public Mono<Long> insertAll(List<ProductHistoryEntry> entries) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int row = 0; row < entries.size(); row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < COLUMNS; column++) {
+                sql.append(column == 0 ? "$" : ", $").append(row * COLUMNS + column + 1);
+            }
+            sql.append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        int index = 0;
+        for (ProductHistoryEntry entry : entries) {
+            spec = spec.bind(index++, entry.getProductId());
+            spec = spec.bind(index++, entry.getChangedAt());
+            spec = bind(spec, index++, entry.getOldPrice(), BigDecimal.class);
+            spec = bind(spec, index++, entry.getNewPrice(), BigDecimal.class);
+            spec = bind(spec, index++, entry.getOldQuantity(), Integer.class);
+            spec = bind(spec, index++, entry.getNewQuantity(), Integer.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * @param from the earliest change to return, inclusive, or null for no lower bound.
+     * @param to the latest change to return, exclusive, or null for no upper bound.
+     * @return the changes of the product in the range, oldest first.
+     */
+    public Flux<ProductHistoryEntry> findByProductId(Long productId, @Nullable Instant from, @Nullable Instant to, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_HISTORY);
+        if (from != null) {
+            sql.append(" AND changed_at >= :from");
+        }
+        if (to != null) {
+            sql.append(" AND changed_at < :to");
+        }
+        sql.append(" ORDER BY changed_at LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("productId", productId)
+                .bind("limit", limit);
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        return spec.map(ROW_MAPPER).all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, type);
+    }
+}
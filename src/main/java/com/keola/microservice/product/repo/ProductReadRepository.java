@@ -0,0 +1,132 @@
+package com.keola.microservice.product.repo;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.related.RelatedProductSource;
+import com.keola.microservice.product.suggest.ProductSuggestSource;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.AllArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.function.BiFunction;
+
+/**
+ * Read-only access to tbl_product that maps each row straight into a {@link ReadProductDTO}.
+ * Reads skip Spring Data's reflective entity conversion and the ProductEntity to DTO copy;
+ * writes keep using {@link CustomerEntityRepository} and the entity model.
+ */
+@Repository
+@AllArgsConstructor
+public class ProductReadRepository {
+
+    // Column order is fixed so that the row mapper reads by index instead of by name
+    private static final String SELECT_PRODUCT = "SELECT id, name, description, price, quantity, category, image_url, status "
+            + "FROM tbl_product";
+
+    static final BiFunction<Row, RowMetadata, ReadProductDTO> ROW_MAPPER = (row, metadata) -> {
+        Integer quantity = row.get(4, Integer.class);
+        return new ReadProductDTO(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                row.get(3, BigDecimal.class),
+                quantity == null ? 0 : quantity,
+                row.get(5, String.class),
+                row.get(6, String.class),
+                row.get(7, String.class));
+    };
+
+    private static final String SELECT_SUGGEST_SOURCE = "SELECT id, name, brand, quantity, status FROM tbl_product";
+
+    static final BiFunction<Row, RowMetadata, ProductSuggestSource> SUGGEST_SOURCE_MAPPER = (row, metadata) -> {
+        Integer quantity = row.get(3, Integer.class);
+        return new ProductSuggestSource(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                quantity == null ? 0 : quantity,
+                row.get(4, String.class));
+    };
+
+    private static final String SELECT_RELATED_SOURCE = "SELECT id, name, category, brand, price, quantity, status FROM tbl_product";
+
+    static final BiFunction<Row, RowMetadata, RelatedProductSource> RELATED_SOURCE_MAPPER = (row, metadata) -> {
+        Integer quantity = row.get(5, Integer.class);
+        return new RelatedProductSource(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                row.get(3, String.class),
+                row.get(4, BigDecimal.class),
+                quantity == null ? 0 : quantity,
+                row.get(6, String.class));
+    };
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<ReadProductDTO> findById(Long id) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ROW_MAPPER)
+                .one();
+    }
+
+    public Flux<ReadProductDTO> findAll() {
+        return databaseClient.sql(SELECT_PRODUCT)
+                .map(ROW_MAPPER)
+                .all();
+    }
+
+    // Filtering on category lets Postgres prune partitions when tbl_product is partitioned by category
+    public Flux<ReadProductDTO> findByCategory(String category) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE category = :category")
+                .bind("category", category)
+                .map(ROW_MAPPER)
+                .all();
+    }
+
+    public Flux<ReadProductDTO> findByStatus(String status) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE status = :status")
+                .bind("status", status)
+                .map(ROW_MAPPER)
+                .all();
+    }
+
+    public Flux<ReadProductDTO> findByCategoryAndStatus(String category, String status) {
+        return databaseClient.sql(SELECT_PRODUCT + " WHERE category = :category AND status = :status")
+                .bind("category", category)
+                .bind("status", status)
+                .map(ROW_MAPPER)
+                .all();
+    }
+
+    public Flux<ProductSuggestSource> findAllSuggestSources() {
+        return databaseClient.sql(SELECT_SUGGEST_SOURCE)
+                .map(SUGGEST_SOURCE_MAPPER)
+                .all();
+    }
+
+    public Mono<ProductSuggestSource> findSuggestSourceById(Long id) {
+        return databaseClient.sql(SELECT_SUGGEST_SOURCE + " WHERE id = :id")
+                .bind("id", id)
+                .map(SUGGEST_SOURCE_MAPPER)
+                .one();
+    }
+
+    public Flux<RelatedProductSource> findAllRelatedSources() {
+        return databaseClient.sql(SELECT_RELATED_SOURCE)
+                .map(RELATED_SOURCE_MAPPER)
+                .all();
+    }
+
+    public Mono<RelatedProductSource> findRelatedSourceById(Long id) {
+        return databaseClient.sql(SELECT_RELATED_SOURCE + " WHERE id = :id")
+                .bind("id", id)
+                .map(RELATED_SOURCE_MAPPER)
+                .one();
+    }
+}
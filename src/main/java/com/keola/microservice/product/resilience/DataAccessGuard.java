@@ -0,0 +1,124 @@
+package com.keola.microservice.product.resilience;
+
+import com.keola.microservice.product.config.DataAccessProperties;
+import com.keola.microservice.product.exception.DeadlineExceededException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wraps data layer calls with a timeout and the database circuit breaker.
+ * <p>
+ * The timeout of each call is the one configured for its operation, shortened to the time left
+ * before the client's {@link Deadline} when the request carries one. A call that runs out of its
+ * operation timeout fails with a {@link QueryTimeoutException}, which the services treat as the
+ * database being unavailable, and counts as a failure for the breaker. A call cut short by the
+ * client's deadline fails with a {@link DeadlineExceededException} and is ignored by the breaker,
+ * so impatient clients cannot open it. While the breaker is open calls fail at once with
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}.
+ */
+public class DataAccessGuard {
+
+    public enum Operation {
+        FIND_BY_ID,
+        FIND_ALL,
+        FIND_FILTERED,
+        INSERT,
+        UPDATE,
+        DELETE;
+
+        String getMetricName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private final DataAccessProperties properties;
+    @Nullable
+    private final CircuitBreaker circuitBreaker;
+    private final Map<Operation, Counter> operationTimeouts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> deadlineTimeouts = new EnumMap<>(Operation.class);
+
+    /**
+     * @param circuitBreaker the breaker around the data layer, or null to only apply timeouts.
+     */
+    public DataAccessGuard(DataAccessProperties properties, @Nullable CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        for (Operation operation : Operation.values()) {
+            operationTimeouts.put(operation, timeouts(operation, "operation", meterRegistry));
+            deadlineTimeouts.put(operation, timeouts(operation, "deadline", meterRegistry));
+        }
+    }
+
+    public <T> Mono<T> guard(Operation operation, Mono<T> source) {
+        Mono<T> timed = Mono.deferContextual(context -> {
+            Deadline deadline = context.getOrDefault(Deadline.CONTEXT_KEY, null);
+            if (deadline != null && deadline.isExpired()) {
+                return Mono.error(deadlineExceeded(operation));
+            }
+            Duration timeout = timeout(operation, deadline);
+            return source.timeout(timeout)
+                    .onErrorMap(TimeoutException.class, ex -> timedOut(operation, deadline, timeout, ex));
+        });
+        return circuitBreaker == null ? timed : timed.transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    public <T> Flux<T> guard(Operation operation, Flux<T> source) {
+        Flux<T> timed = Flux.deferContextual(context -> {
+            Deadline deadline = context.getOrDefault(Deadline.CONTEXT_KEY, null);
+            if (deadline != null && deadline.isExpired()) {
+                return Flux.error(deadlineExceeded(operation));
+            }
+            // Each row gets the operation timeout, capped by the time left to the deadline
+            return source.timeout(Mono.delay(timeout(operation, deadline)), row -> Mono.delay(timeout(operation, deadline)))
+                    .onErrorMap(TimeoutException.class, ex -> timedOut(operation, deadline, properties.timeout(operation), ex));
+        });
+        return circuitBreaker == null ? timed : timed.transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    @Nullable
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private Duration timeout(Operation operation, @Nullable Deadline deadline) {
+        Duration timeout = properties.timeout(operation);
+        if (deadline == null) {
+            return timeout;
+        }
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(timeout) < 0 ? (remaining.isNegative() ? Duration.ZERO : remaining) : timeout;
+    }
+
+    private Throwable timedOut(Operation operation, @Nullable Deadline deadline, Duration timeout, TimeoutException ex) {
+        if (deadline != null && deadline.isExpired()) {
+            return deadlineExceeded(operation);
+        }
+        operationTimeouts.get(operation).increment();
+        return new QueryTimeoutException("Data access operation " + operation.getMetricName() + " timed out after " + timeout.toMillis() + " ms", ex);
+    }
+
+    private DeadlineExceededException deadlineExceeded(Operation operation) {
+        deadlineTimeouts.get(operation).increment();
+        return new DeadlineExceededException("The request deadline expired during data access operation " + operation.getMetricName());
+    }
+
+    private static Counter timeouts(Operation operation, String cause, MeterRegistry meterRegistry) {
+        return Counter.builder("product.data-access.timeouts")
+                .description("Data layer calls cut short by their operation timeout or by the client's deadline")
+                .tag("operation", operation.getMetricName())
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+}
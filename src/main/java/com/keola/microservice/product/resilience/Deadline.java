@@ -0,0 +1,33 @@
+package com.keola.microservice.product.resilience;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which the client needs its response, taken from the request's timeout header.
+ * Travels in the Reactor context under {@link #CONTEXT_KEY}.
+ */
+public final class Deadline {
+
+    public static final Class<Deadline> CONTEXT_KEY = Deadline.class;
+
+    private final long deadlineNanos; // On the System.nanoTime() scale.
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return the time left, zero or negative once the deadline has passed.
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+}
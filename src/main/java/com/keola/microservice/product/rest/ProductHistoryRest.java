@@ -0,0 +1,40 @@
+package com.keola.microservice.product.rest;
+
+import com.keola.microservice.product.history.ProductHistoryService;
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+@RestController
+@RequestMapping(api_v1 + "products")
+@AllArgsConstructor
+public class ProductHistoryRest {
+
+    private final ProductHistoryService productHistoryService;
+
+    @Operation(summary = "Get the price and stock history of a product", description = "Returns the changes of price and "
+            + "quantity of a product, oldest first, optionally between from (inclusive) and to (exclusive) as ISO-8601 instants. "
+            + "Changes are written in the background and show up within the flush interval")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "History retrieved successfully")
+    })
+    @GetMapping("/{id}/history")
+    public Mono<ResponseEntity<Flux<ProductHistoryEntry>>> getHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Integer limit) {
+        return Mono.just(ResponseEntity.ok(productHistoryService.getHistory(id, from, to, limit)));
+    }
+}
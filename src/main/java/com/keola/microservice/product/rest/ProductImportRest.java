@@ -0,0 +1,83 @@
+package com.keola.microservice.product.rest;
+
+import com.keola.microservice.product.bulkimport.ProductImportFormat;
+import com.keola.microservice.product.exception.ImportFormatException;
+import com.keola.microservice.product.models.ImportReport;
+import com.keola.microservice.product.service.ProductImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+@RestController
+@RequestMapping(api_v1 + "products/import")
+@AllArgsConstructor
+public class ProductImportRest {
+
+    private static final int ERROR_FILE_BUFFER_SIZE = 8192;
+
+    private final ProductImportService productImportService;
+
+    @Operation(summary = "Import products", description = "Streams a CSV (text/csv, with a header row) or NDJSON "
+            + "(application/x-ndjson) file into the catalog. Products matching an existing name and brand are updated, "
+            + "the rest are created. Invalid records are skipped and listed in the import's error file")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import completed"),
+            @ApiResponse(responseCode = "400", description = "Unsupported content type, or CSV header missing required columns")
+    })
+    @PostMapping
+    public Mono<ResponseEntity<ImportReport>> importProducts(ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        return ProductImportFormat.of(contentType)
+                .map(format -> productImportService.importProducts(request.getBody(), format).map(ResponseEntity::ok))
+                .orElseGet(() -> Mono.error(new ImportFormatException("Unsupported content type " + contentType
+                        + ", expected one of " + Arrays.stream(ProductImportFormat.values()).map(ProductImportFormat::getMediaType).toList())));
+    }
+
+    @Operation(summary = "Get imports", description = "Returns the progress of running imports and the reports of recent ones")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Imports retrieved successfully")
+    })
+    @GetMapping
+    public Mono<ResponseEntity<Flux<ImportReport>>> getImports() {
+        return Mono.just(ResponseEntity.ok(productImportService.getImports()));
+    }
+
+    @Operation(summary = "Get an import", description = "Returns the progress or the final report of an import")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import found"),
+            @ApiResponse(responseCode = "404", description = "Import not found")
+    })
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ImportReport>> getImport(@PathVariable String id) {
+        return productImportService.getImport(id)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Get rejected records", description = "Returns the records rejected by an import as NDJSON, "
+            + "each with its record number and validation errors")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rejected records retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Import not found or no record was rejected")
+    })
+    @GetMapping("/{id}/errors")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getRejectedRecords(@PathVariable String id) {
+        return productImportService.getErrorFile(id)
+                .map(file -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, ERROR_FILE_BUFFER_SIZE)));
+    }
+}
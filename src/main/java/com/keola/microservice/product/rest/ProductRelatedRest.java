@@ -0,0 +1,35 @@
+package com.keola.microservice.product.rest;
+
+import com.keola.microservice.product.models.RelatedProduct;
+import com.keola.microservice.product.related.RelatedProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+@RestController
+@RequestMapping(api_v1 + "products")
+@AllArgsConstructor
+public class ProductRelatedRest {
+
+    private final RelatedProductService relatedProductService;
+
+    @Operation(summary = "Get related products", description = "Returns in-stock products of the same category or brand "
+            + "at a close price, best match first. Precomputed for every product and served from memory")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Related products retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    @GetMapping("/{id}/related")
+    public Mono<ResponseEntity<List<RelatedProduct>>> getRelatedProducts(@PathVariable Long id,
+                                                                         @RequestParam(required = false) Integer limit) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(relatedProductService.related(id, limit)));
+    }
+}
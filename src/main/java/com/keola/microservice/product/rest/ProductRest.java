@@ -1,8 +1,10 @@
 package com.keola.microservice.product.rest;
 
+import com.keola.microservice.product.constants.StateProduct;
 import com.keola.microservice.product.dto.CreateProductDTO;
 import com.keola.microservice.product.dto.ReadProductDTO;
 import com.keola.microservice.product.dto.UpdateProductDTO;
+import com.keola.microservice.product.service.IdempotencyService;
 import com.keola.microservice.product.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,6 +18,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+import static com.keola.microservice.product.service.IdempotencyService.IDEMPOTENCY_KEY_HEADER;
 
 @RestController
 @RequestMapping(api_v1 + "products")
@@ -23,25 +26,38 @@ import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
 public class ProductRest {
 
     private final ProductService productService;
+    private final IdempotencyService idempotencyService;
 
-    @Operation(summary = "Create a new product", description = "Allows creating a product in the system")
+    @Operation(summary = "Create a new product", description = "Allows creating a product in the system. "
+            + "Retries sent with the same Idempotency-Key replay the first response instead of creating a duplicate")
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Product created successfully"),
-            @ApiResponse(responseCode = "400", description = "Invalid request")
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still being processed"),
+            @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used with a different body")
     })
     @PostMapping
-    public Mono<ResponseEntity<ReadProductDTO>> createProduct(@RequestBody @Valid CreateProductDTO productDTO) {
-        return productService.createProduct(productDTO)
-                .map(productDTOResponse -> ResponseEntity.status(HttpStatus.CREATED).body(productDTOResponse));
+    public Mono<ResponseEntity<ReadProductDTO>> createProduct(@RequestBody @Valid CreateProductDTO productDTO,
+                                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Mono<ResponseEntity<ReadProductDTO>> create = Mono.defer(() -> productService.createProduct(productDTO)
+                .map(productDTOResponse -> ResponseEntity.status(HttpStatus.CREATED).body(productDTOResponse)));
+        if (idempotencyKey == null) {
+            return create;
+        }
+        return idempotencyService.execute(idempotencyKey, "POST /products", productDTO, ReadProductDTO.class, create);
     }
 
-    @Operation(summary = "Get all products", description = "Returns a list of all products")
+    @Operation(summary = "Get all products", description = "Returns a list of all products, optionally filtered by category and status")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully")
     })
     @GetMapping
-    public Mono<ResponseEntity<Flux<ReadProductDTO>>> getAllProducts() {
-        return Mono.just(ResponseEntity.ok(productService.getAllProducts()));
+    public Mono<ResponseEntity<Flux<ReadProductDTO>>> getAllProducts(@RequestParam(required = false) String category,
+                                                                     @RequestParam(required = false) StateProduct status) {
+        if (category == null && status == null) {
+            return Mono.just(ResponseEntity.ok(productService.getAllProducts()));
+        }
+        return Mono.just(ResponseEntity.ok(productService.getProducts(category, status)));
     }
 
     @Operation(summary = "Get a product by ID", description = "Allows retrieving a product using its unique ID")
@@ -59,12 +75,19 @@ public class ProductRest {
     @Operation(summary = "Update a product", description = "Allows updating an existing product")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Product updated successfully"),
-            @ApiResponse(responseCode = "404", description = "Product not found")
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still being processed"),
+            @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used with a different body")
     })
     @PutMapping("/{id}")
-    public Mono<ResponseEntity<Void>> updateProduct(@PathVariable Long id, @RequestBody @Valid UpdateProductDTO productDTO) {
-        return productService.updateProduct(id, productDTO)
-                .thenReturn(ResponseEntity.noContent().build());
+    public Mono<ResponseEntity<Void>> updateProduct(@PathVariable Long id, @RequestBody @Valid UpdateProductDTO productDTO,
+                                                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Mono<ResponseEntity<Void>> update = Mono.defer(() -> productService.updateProduct(id, productDTO)
+                .thenReturn(ResponseEntity.noContent().<Void>build()));
+        if (idempotencyKey == null) {
+            return update;
+        }
+        return idempotencyService.execute(idempotencyKey, "PUT /products/" + id, productDTO, Void.class, update);
     }
 
     @Operation(summary = "Delete a product", description = "Allows deleting a product from the system")
@@ -0,0 +1,34 @@
+package com.keola.microservice.product.rest;
+
+import com.keola.microservice.product.models.ProductSuggestion;
+import com.keola.microservice.product.suggest.ProductSuggestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+
+@RestController
+@RequestMapping(api_v1 + "products/suggest")
+@AllArgsConstructor
+public class ProductSuggestRest {
+
+    private final ProductSuggestService productSuggestService;
+
+    @Operation(summary = "Suggest products", description = "Returns the products with a name or brand word starting with the "
+            + "given prefix, best stocked first. Case and accents are ignored. Served from memory, recent changes included")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully")
+    })
+    @GetMapping
+    public Mono<ResponseEntity<List<ProductSuggestion>>> suggest(@RequestParam String prefix,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(productSuggestService.suggest(prefix, limit)));
+    }
+}
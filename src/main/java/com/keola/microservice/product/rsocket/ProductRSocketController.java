@@ -0,0 +1,67 @@
+package com.keola.microservice.product.rsocket;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangeStream;
+import com.keola.microservice.product.models.ProductChange;
+import com.keola.microservice.product.models.ProductQuery;
+import com.keola.microservice.product.models.StockAdjustment;
+import com.keola.microservice.product.service.ProductService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * RSocket access to products for internal services, next to the REST API.
+ * Clients keep one multiplexed TCP connection ({@code spring.rsocket.server.port}) and exchange
+ * CBOR payloads; streams follow the demand signalled by the client.
+ * <ul>
+ *     <li>{@code products.get}: request-response with the product id.</li>
+ *     <li>{@code products.list}: request-stream with a {@link ProductQuery}.</li>
+ *     <li>{@code products.changes}: request-stream of the changes committed after subscribing.</li>
+ *     <li>{@code products.stock.adjust}: fire-and-forget with a {@link StockAdjustment}.</li>
+ * </ul>
+ * The HTTP filters (rate limits, deadlines, response cache) do not apply to these routes.
+ */
+@Slf4j
+@Controller
+@AllArgsConstructor
+public class ProductRSocketController {
+
+    private final ProductService productService;
+    private final ProductChangeStream productChangeStream;
+
+    @MessageMapping("products.get")
+    public Mono<ReadProductDTO> getProductById(Long id) {
+        return productService.getProductById(id);
+    }
+
+    @MessageMapping("products.list")
+    public Flux<ReadProductDTO> getProducts(@Payload(required = false) ProductQuery query) {
+        if (query == null || (query.getCategory() == null && query.getStatus() == null)) {
+            return productService.getAllProducts();
+        }
+        return productService.getProducts(query.getCategory(), query.getStatus());
+    }
+
+    @MessageMapping("products.changes")
+    public Flux<ProductChange> changes() {
+        return productChangeStream.changes().map(ProductChange::of);
+    }
+
+    @MessageMapping("products.stock.adjust")
+    public Mono<Void> adjustStock(StockAdjustment adjustment) {
+        if (adjustment.getProductId() == null) {
+            log.warn("Ignoring a stock adjustment without product id");
+            return Mono.empty();
+        }
+        // Nothing is sent back for fire-and-forget requests, so failures can only be logged
+        return productService.adjustStock(adjustment.getProductId(), adjustment.getDelta())
+                .doOnError(ex -> log.warn("Could not adjust the stock of product {} by {}: {}",
+                        adjustment.getProductId(), adjustment.getDelta(), ex.getMessage()))
+                .onErrorComplete();
+    }
+}
@@ -0,0 +1,244 @@
+package com.keola.microservice.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.config.IdempotencyProperties;
+import com.keola.microservice.product.exception.IdempotencyKeyInProgressException;
+import com.keola.microservice.product.exception.IdempotencyKeyMismatchException;
+import com.keola.microservice.product.models.IdempotentResponse;
+import com.keola.microservice.product.repo.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdempotencyService makes create and update requests safe to retry with an Idempotency-Key header.
+ * The first response for a key is stored in tbl_idempotency_key for the configured TTL and replayed
+ * for every retry; recently completed keys are also kept in a bounded in-memory LRU store.
+ * Concurrent duplicates on this instance share the in-flight original, while duplicates on other
+ * instances wait for the reservation row to be completed. A reservation is only leased for a short
+ * time until its response is stored, so that one left behind by an instance that stopped mid-request
+ * can be taken over by a retry.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int STORE_RETRIES = 3;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, IdempotentResponse> completed; // Bounded LRU of completed responses.
+    private final ConcurrentMap<String, Mono<Resolution>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong storedKeys = new AtomicLong(); // Rows in tbl_idempotency_key at the last purge.
+    private final Counter hits;
+    private final Counter misses;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, IdempotencyProperties properties,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotentResponse> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        });
+        this.hits = Counter.builder("product.idempotency.requests")
+                .description("Requests with an Idempotency-Key answered with a stored response")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("product.idempotency.requests")
+                .description("Requests with an Idempotency-Key that were executed")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("product.idempotency.store.size", completed, Map::size)
+                .description("Completed responses kept for Idempotency-Key replays")
+                .tag("store", "memory")
+                .register(meterRegistry);
+        Gauge.builder("product.idempotency.store.size", storedKeys, AtomicLong::get)
+                .description("Completed responses kept for Idempotency-Key replays")
+                .tag("store", "database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action once per key and scope, replaying its first response for every retry.
+     * @param key the Idempotency-Key sent by the client.
+     * @param scope the operation the key applies to, e.g. "PUT /products/5".
+     * @param request the request body, used to reject a key reused with a different payload.
+     * @param bodyType the type of the response body, or Void for responses without body.
+     * @param action the deferred operation to run when the key is new.
+     * @return a Mono wrapping the original or the replayed response.
+     * @throws IdempotencyKeyMismatchException if the key was already used with a different request body.
+     * @throws IdempotencyKeyInProgressException if the original request did not finish in time.
+     */
+    public <T> Mono<ResponseEntity<T>> execute(String key, String scope, Object request, Class<T> bodyType,
+                                               Mono<ResponseEntity<T>> action) {
+        String storeKey = scope + ":" + key;
+        return Mono.defer(() -> {
+            String requestHash = hash(request);
+            IdempotentResponse stored = completed.get(storeKey);
+            if (stored != null && !stored.isExpired(Instant.now())) {
+                hits.increment();
+                return Mono.just(toResponseEntity(stored, requestHash, bodyType, true));
+            }
+
+            // Only the subscriber that registers the in-flight Mono may be the one that executed the action
+            AtomicBoolean owner = new AtomicBoolean();
+            Mono<Resolution> resolution = inFlight.computeIfAbsent(storeKey, k -> {
+                owner.set(true);
+                return resolve(k, requestHash, action)
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+            return resolution.map(result -> toResponseEntity(result.response(), requestHash, bodyType,
+                    !(owner.get() && result.executed())));
+        });
+    }
+
+    private <T> Mono<Resolution> resolve(String storeKey, String requestHash, Mono<ResponseEntity<T>> action) {
+        Instant now = Instant.now();
+        return idempotencyKeyRepository.reserve(storeKey, requestHash, now, now.plus(properties.getLease()))
+                .flatMap(reserved -> reserved
+                        ? executeAndStore(storeKey, requestHash, action).map(response -> new Resolution(response, true))
+                        : awaitCompletion(storeKey)
+                                .map(response -> new Resolution(response, false))
+                                // Released, or expired, in the meantime: try to reserve it again
+                                .switchIfEmpty(Mono.defer(() -> resolve(storeKey, requestHash, action))));
+    }
+
+    private <T> Mono<IdempotentResponse> executeAndStore(String storeKey, String requestHash, Mono<ResponseEntity<T>> action) {
+        misses.increment();
+        return action
+                // Failed requests are not stored, so the client can retry them with the same key
+                .onErrorResume(ex -> idempotencyKeyRepository.delete(storeKey).then(Mono.error(ex)))
+                .flatMap(entity -> {
+                    IdempotentResponse response = IdempotentResponse.builder()
+                            .requestHash(requestHash)
+                            .statusCode(entity.getStatusCode().value())
+                            .responseBody(write(entity.getBody()))
+                            .expiresAt(Instant.now().plus(properties.getTtl()))
+                            .build();
+                    completed.put(storeKey, response);
+                    // The action took effect: the key must not be released, or a retry would run it twice
+                    return idempotencyKeyRepository.complete(storeKey, response.getStatusCode(), response.getResponseBody(),
+                                    response.getExpiresAt())
+                            .retryWhen(Retry.backoff(STORE_RETRIES, properties.getPollInterval()))
+                            .onErrorResume(ex -> {
+                                log.warn("Could not store the response for idempotency key {}; other instances may run "
+                                        + "it again once its lease runs out: {}", storeKey, ex.getMessage());
+                                return Mono.empty();
+                            })
+                            .thenReturn(response);
+                });
+    }
+
+    /**
+     * Waits for the request holding the key to store its response.
+     * @return a Mono wrapping the stored response, or completing empty if the key was released or expired.
+     */
+    private Mono<IdempotentResponse> awaitCompletion(String storeKey) {
+        return idempotencyKeyRepository.findByKey(storeKey)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .filter(row -> row.isEmpty() || row.get().isCompleted() || row.get().isExpired(Instant.now()))
+                .repeatWhenEmpty(attempts -> attempts.delayElements(properties.getPollInterval()))
+                .timeout(properties.getInFlightWait(), Mono.error(new IdempotencyKeyInProgressException(
+                        "A request with the same Idempotency-Key is still being processed.")))
+                .flatMap(row -> Mono.justOrEmpty(row.filter(stored -> !stored.isExpired(Instant.now()))))
+                .doOnNext(stored -> {
+                    hits.increment();
+                    completed.put(storeKey, stored);
+                });
+    }
+
+    private <T> ResponseEntity<T> toResponseEntity(IdempotentResponse response, String requestHash, Class<T> bodyType, boolean replayed) {
+        if (!response.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("The Idempotency-Key was already used with a different request body.");
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatusCode());
+        if (replayed) {
+            builder.header(REPLAYED_HEADER, "true");
+        }
+        return builder.body(read(response.getResponseBody(), bodyType));
+    }
+
+    /**
+     * Removes expired keys from the database and from memory, and refreshes the store size metric.
+     */
+    @Scheduled(fixedDelayString = "${product.idempotency.purge-interval:PT10M}")
+    public Mono<Void> purgeExpired() {
+        Instant now = Instant.now();
+        synchronized (completed) {
+            completed.values().removeIf(response -> response.isExpired(now));
+        }
+        return idempotencyKeyRepository.deleteExpired(now)
+                .doOnNext(removed -> log.debug("Purged {} expired idempotency keys", removed))
+                .then(idempotencyKeyRepository.count())
+                .doOnNext(storedKeys::set)
+                .onErrorResume(ex -> {
+                    log.warn("Could not purge expired idempotency keys: {}", ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not hash the request body", ex);
+        }
+    }
+
+    private String write(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not store the response body", ex);
+        }
+    }
+
+    private <T> T read(String body, Class<T> bodyType) {
+        if (body == null || bodyType == Void.class) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, bodyType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not replay the stored response body", ex);
+        }
+    }
+
+    private record Resolution(IdempotentResponse response, boolean executed) {
+    }
+}
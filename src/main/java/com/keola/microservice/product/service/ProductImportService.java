@@ -0,0 +1,362 @@
+package com.keola.microservice.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.bulkimport.ImportErrorWriter;
+import com.keola.microservice.product.bulkimport.ImportJob;
+import com.keola.microservice.product.bulkimport.ProductImportFormat;
+import com.keola.microservice.product.config.BulkImportProperties;
+import com.keola.microservice.product.config.HistoryProperties;
+import com.keola.microservice.product.dto.CreateProductDTO;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.event.ProductEventPublisher;
+import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.exception.ImportFormatException;
+import com.keola.microservice.product.models.ImportReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.keola.microservice.product.bulkimport.ProductImportFormat.COPY_COLUMNS;
+
+/**
+ * ProductImportService loads CSV or NDJSON catalog files of any size into tbl_product.
+ * The upload is decoded line by line, validated with the same rules as {@link CreateProductDTO}
+ * and streamed through the Postgres COPY protocol into a temporary staging table, so memory use
+ * does not grow with the file. Once the upload ends, the staged rows are merged in the same
+ * transaction: products matching an existing name and brand are updated, the rest are inserted.
+ * Their price and stock changes are recorded in tbl_product_history by the same transaction, since
+ * the bulk change event carries no per-product changes for the history writer.
+ * Rejected records are written to a per-import error file and never reach the database.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE tmp_product_import ("
+            + "line_no BIGINT NOT NULL, name VARCHAR(100), description VARCHAR(500), price DECIMAL(10, 2), quantity INT, "
+            + "category VARCHAR(255), image_url VARCHAR(255), brand VARCHAR(255), status VARCHAR(50)) ON COMMIT DROP";
+    private static final String COPY_STAGING = "COPY tmp_product_import (" + COPY_COLUMNS + ") FROM STDIN";
+    // The last record wins when the file repeats a product
+    private static final String DEDUPLICATE_STAGING = "CREATE TEMP TABLE tmp_product_import_latest ON COMMIT DROP AS "
+            + "SELECT DISTINCT ON (name, brand) * FROM tmp_product_import ORDER BY name, brand, line_no DESC";
+    // Keeps concurrent writers from inserting a product between the update and the insert below
+    private static final String LOCK_PRODUCTS = "LOCK TABLE tbl_product IN SHARE ROW EXCLUSIVE MODE";
+    // Runs before the update, while tbl_product still holds the old values
+    private static final String RECORD_UPDATED_HISTORY = "INSERT INTO tbl_product_history "
+            + "(product_id, changed_at, old_price, new_price, old_quantity, new_quantity) "
+            + "SELECT p.id, CURRENT_TIMESTAMP, p.price, s.price, p.quantity, s.quantity "
+            + "FROM tbl_product p JOIN tmp_product_import_latest s ON p.name = s.name AND p.brand IS NOT DISTINCT FROM s.brand "
+            + "WHERE p.price IS DISTINCT FROM s.price OR p.quantity IS DISTINCT FROM s.quantity";
+    private static final String UPDATE_EXISTING = "UPDATE tbl_product p SET description = s.description, price = s.price, "
+            + "quantity = s.quantity, category = s.category, image_url = s.image_url, status = s.status, "
+            + "updated_at = CURRENT_TIMESTAMP "
+            + "FROM tmp_product_import_latest s WHERE p.name = s.name AND p.brand IS NOT DISTINCT FROM s.brand";
+    private static final String INSERT_NEW = "INSERT INTO tbl_product "
+            + "(name, description, price, quantity, category, image_url, brand, status) "
+            + "SELECT s.name, s.description, s.price, s.quantity, s.category, s.image_url, s.brand, s.status "
+            + "FROM tmp_product_import_latest s WHERE NOT EXISTS "
+            + "(SELECT 1 FROM tbl_product p WHERE p.name = s.name AND p.brand IS NOT DISTINCT FROM s.brand)";
+    // One history row per inserted product, so the rows updated are still the products inserted
+    private static final String INSERT_NEW_WITH_HISTORY = "WITH inserted AS (" + INSERT_NEW + " RETURNING id, price, quantity) "
+            + "INSERT INTO tbl_product_history (product_id, changed_at, old_price, new_price, old_quantity, new_quantity) "
+            + "SELECT id, CURRENT_TIMESTAMP, NULL, price, NULL, quantity FROM inserted";
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("name", "description", "price", "quantity",
+            "category", "imageurl", "status");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99"); // DECIMAL(10, 2)
+    private static final int MAX_TEXT_COLUMN = 255;
+
+    private final ConnectionFactory connectionFactory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final BulkImportProperties properties;
+    private final HistoryProperties historyProperties;
+    private final ProductEventPublisher productEventPublisher;
+    private final StringDecoder lineDecoder;
+    private final Map<String, ImportJob> jobs; // Running and recently finished imports, oldest first.
+    private final Counter acceptedRecords;
+    private final Counter rejectedRecords;
+
+    public ProductImportService(ConnectionFactory connectionFactory, Validator validator, ObjectMapper objectMapper,
+                                BulkImportProperties properties, HistoryProperties historyProperties,
+                                ProductEventPublisher productEventPublisher, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.historyProperties = historyProperties;
+        this.productEventPublisher = productEventPublisher;
+        this.lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+        this.lineDecoder.setMaxInMemorySize((int) properties.getMaxRecordSize().toBytes());
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+                if (size() <= properties.getRetainedJobs() || eldest.getValue().isRunning()) {
+                    return false;
+                }
+                deleteErrorFile(eldest.getValue());
+                return true;
+            }
+        });
+        this.acceptedRecords = Counter.builder("product.import.records")
+                .description("Records of bulk imports loaded into the staging table")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.rejectedRecords = Counter.builder("product.import.records")
+                .description("Records of bulk imports rejected by validation")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports the uploaded file; the returned report is also available from {@link #getImport(String)}
+     * while the import runs.
+     * @param body the raw upload, consumed as it arrives.
+     * @param format the format of the upload.
+     * @return a Mono wrapping the final report once the merge has been committed.
+     * @throws ImportFormatException if a CSV upload lacks required columns.
+     */
+    public Mono<ImportReport> importProducts(Flux<DataBuffer> body, ProductImportFormat format) {
+        ImportJob job = new ImportJob(format, properties.getErrorDirectory());
+        jobs.put(job.getId(), job);
+        log.info("Import {} started ({})", job.getId(), format);
+
+        Flux<DataBuffer> counted = body.doOnNext(buffer -> job.addBytesRead(buffer.readableByteCount()));
+        return Mono.using(() -> new ImportErrorWriter(job.getErrorFile(), objectMapper),
+                        errors -> load(copyChunks(counted, format, job, errors)),
+                        errors -> {
+                            try {
+                                errors.close();
+                            } catch (IOException ex) {
+                                log.warn("Could not close the error file of import {}: {}", job.getId(), ex.getMessage());
+                            }
+                        })
+                .doOnNext(counts -> job.complete(counts[0], counts[1]))
+                .flatMap(counts -> counts[0] + counts[1] == 0
+                        ? Mono.just(counts)
+                        : productEventPublisher.publish(ProductChangedEvent.bulk()).thenReturn(counts))
+                .doOnError(job::fail)
+                .doOnCancel(() -> job.fail(new IllegalStateException("Upload cancelled")))
+                .map(counts -> job.toReport())
+                .doOnNext(report -> log.info("Import {} completed: {} inserted, {} updated, {} rejected",
+                        report.getId(), report.getRowsInserted(), report.getRowsUpdated(), report.getRecordsRejected()));
+    }
+
+    /**
+     * @return the progress of a running import, or the report of a recent one.
+     * @throws EntityNotFoundException if no import with this id is retained.
+     */
+    public Mono<ImportReport> getImport(String id) {
+        ImportJob job = jobs.get(id);
+        return job == null
+                ? Mono.error(new EntityNotFoundException("Importación no encontrada con ID: " + id))
+                : Mono.just(job.toReport());
+    }
+
+    /**
+     * @return the reports of the running and recently finished imports, oldest first.
+     */
+    public Flux<ImportReport> getImports() {
+        List<ImportJob> snapshot;
+        synchronized (jobs) {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        return Flux.fromIterable(snapshot).map(ImportJob::toReport);
+    }
+
+    /**
+     * @return the NDJSON file with the rejected records of an import.
+     * @throws EntityNotFoundException if the import is unknown or rejected no record.
+     */
+    public Mono<Path> getErrorFile(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null || job.getRecordsRejected() == 0 || !Files.exists(job.getErrorFile())) {
+            return Mono.error(new EntityNotFoundException("No hay registros rechazados para la importación: " + id));
+        }
+        return Mono.just(job.getErrorFile());
+    }
+
+    /**
+     * Turns the upload into chunks of COPY rows; rejected records are diverted to the error file.
+     */
+    private Flux<ByteBuffer> copyChunks(Flux<DataBuffer> body, ProductImportFormat format, ImportJob job, ImportErrorWriter errors) {
+        Flux<String> lines = lineDecoder.decode(body, ResolvableType.forClass(String.class), null, Collections.emptyMap())
+                .onErrorMap(DataBufferLimitException.class, ex -> new ImportFormatException(
+                        "A record exceeds the maximum size of " + properties.getMaxRecordSize()))
+                .map(ProductImportService::stripCarriageReturn)
+                .publishOn(Schedulers.boundedElastic()); // Validation and error file writes run off the event loop
+
+        Flux<ParsedRecord> records = format == ProductImportFormat.CSV ? csvRecords(lines) : ndjsonRecords(lines);
+        return records
+                .<String>handle((record, sink) -> {
+                    if (record.errors().isEmpty()) {
+                        job.recordAccepted();
+                        acceptedRecords.increment();
+                        sink.next(ProductImportFormat.toCopyRow(record.number(), record.product()));
+                    } else {
+                        job.recordRejected();
+                        rejectedRecords.increment();
+                        errors.write(record.number(), record.raw(), record.errors());
+                    }
+                })
+                .buffer(properties.getChunkRows())
+                .map(rows -> ByteBuffer.wrap(String.join("", rows).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Flux<ParsedRecord> csvRecords(Flux<String> lines) {
+        long maxRecordSize = properties.getMaxRecordSize().toBytes();
+        Flux<String> records = Flux.defer(() -> {
+            // A quoted field may contain line breaks: keep joining lines until its closing quote
+            StringBuilder pending = new StringBuilder();
+            boolean[] quoted = {false};
+            return lines.<String>handle((line, sink) -> {
+                        if (!pending.isEmpty()) {
+                            pending.append('\n');
+                        }
+                        pending.append(line);
+                        if (ProductImportFormat.togglesQuote(line)) {
+                            quoted[0] = !quoted[0];
+                        }
+                        // An unbalanced quote must not buffer the rest of the file: the record is cut and rejected
+                        if (!quoted[0] || pending.length() > maxRecordSize) {
+                            sink.next(pending.toString());
+                            pending.setLength(0);
+                            quoted[0] = false;
+                        }
+                    })
+                    .concatWith(Mono.fromCallable(() -> pending.isEmpty() ? null : pending.toString()));
+        });
+
+        return records.switchOnFirst((first, all) -> {
+            if (!first.hasValue()) {
+                return Flux.empty();
+            }
+            Map<String, Integer> header = ProductImportFormat.csvHeader(first.get());
+            List<String> missing = REQUIRED_CSV_COLUMNS.stream().filter(column -> !header.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                return Flux.error(new ImportFormatException("CSV header is missing columns: " + missing));
+            }
+            return all.skip(1)
+                    .filter(record -> !record.isBlank())
+                    .index((index, record) -> {
+                        List<String> errors = new ArrayList<>();
+                        CreateProductDTO product = ProductImportFormat.fromCsv(header, record, errors);
+                        return validate(index + 1, record, product, errors);
+                    });
+        });
+    }
+
+    private Flux<ParsedRecord> ndjsonRecords(Flux<String> lines) {
+        return lines
+                .filter(line -> !line.isBlank())
+                .index((index, line) -> {
+                    List<String> errors = new ArrayList<>();
+                    CreateProductDTO product = ProductImportFormat.fromJson(objectMapper, line, errors);
+                    return validate(index + 1, line, product, errors);
+                });
+    }
+
+    private ParsedRecord validate(long number, String raw, CreateProductDTO product, List<String> errors) {
+        if (product != null && errors.isEmpty()) {
+            Set<ConstraintViolation<CreateProductDTO>> violations = validator.validate(product);
+            for (ConstraintViolation<CreateProductDTO> violation : violations) {
+                errors.add(violation.getMessage());
+            }
+            // Column limits not covered by CreateProductDTO; a single oversized value would abort the COPY
+            if (product.getPrice() == null) {
+                errors.add("Price is required");
+            } else if (product.getPrice().setScale(2, RoundingMode.HALF_UP).compareTo(MAX_PRICE) > 0) {
+                errors.add("Price must not exceed " + MAX_PRICE);
+            }
+            if (product.getCategory() != null && product.getCategory().length() > MAX_TEXT_COLUMN) {
+                errors.add("Category must not exceed " + MAX_TEXT_COLUMN + " characters");
+            }
+            if (product.getImageUrl() != null && product.getImageUrl().length() > MAX_TEXT_COLUMN) {
+                errors.add("Image URL must not exceed " + MAX_TEXT_COLUMN + " characters");
+            }
+        }
+        return new ParsedRecord(number, raw, product, errors);
+    }
+
+    /**
+     * Copies the chunks into the staging table and merges them, with their history, all in one transaction.
+     * @return the number of inserted and updated products.
+     */
+    private Mono<long[]> load(Flux<ByteBuffer> chunks) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.usingWhen(Mono.from(connection.beginTransaction()).thenReturn(connection),
+                        transaction -> execute(transaction, CREATE_STAGING)
+                                .then(unwrap(transaction).copyIn(COPY_STAGING, chunks))
+                                .then(execute(transaction, DEDUPLICATE_STAGING))
+                                .then(execute(transaction, LOCK_PRODUCTS))
+                                .then(historyProperties.isEnabled() ? execute(transaction, RECORD_UPDATED_HISTORY) : Mono.empty())
+                                .then(execute(transaction, UPDATE_EXISTING))
+                                .flatMap(updated -> execute(transaction, historyProperties.isEnabled() ? INSERT_NEW_WITH_HISTORY : INSERT_NEW)
+                                        .map(inserted -> new long[]{inserted, updated})),
+                        Connection::commitTransaction,
+                        (transaction, ex) -> transaction.rollbackTransaction(),
+                        Connection::rollbackTransaction),
+                Connection::close);
+    }
+
+    private static Mono<Long> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    // The connection is wrapped by the pool and by the slow-query proxy
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        if (current instanceof PostgresqlConnection postgresqlConnection) {
+            return postgresqlConnection;
+        }
+        throw new IllegalStateException("Bulk import requires a Postgres connection, got " + connection.getClass().getName());
+    }
+
+    private static String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    private void deleteErrorFile(ImportJob job) {
+        try {
+            Files.deleteIfExists(job.getErrorFile());
+        } catch (IOException ex) {
+            log.warn("Could not delete the error file of import {}: {}", job.getId(), ex.getMessage());
+        }
+    }
+
+    private record ParsedRecord(long number, String raw, CreateProductDTO product, List<String> errors) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.keola.microservice.product.service;
 
 
+import com.keola.microservice.product.constants.StateProduct;
 import com.keola.microservice.product.dto.CreateProductDTO;
 import com.keola.microservice.product.dto.ReadProductDTO;
 import com.keola.microservice.product.dto.UpdateProductDTO;
@@ -13,9 +14,13 @@ public interface ProductService {
 
     Flux<ReadProductDTO> getAllProducts();
 
+    Flux<ReadProductDTO> getProducts(String category, StateProduct status);
+
     Mono<ReadProductDTO> getProductById(Long id);
 
     Mono<Void> updateProduct(Long id, UpdateProductDTO productDTO);
 
     Mono<Void> deleteProduct(Long id);
+
+    Mono<Void> adjustStock(Long id, int delta);
 }
@@ -1,12 +1,25 @@
 package com.keola.microservice.product.service;
 
+import com.keola.microservice.product.constants.StateProduct;
 import com.keola.microservice.product.dto.CreateProductDTO;
 import com.keola.microservice.product.dto.ReadProductDTO;
 import com.keola.microservice.product.dto.UpdateProductDTO;
 import com.keola.microservice.product.entity.ProductEntity;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.event.ProductEventPublisher;
+import com.keola.microservice.product.exception.CatalogReadOnlyException;
 import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.exception.InsufficientStockException;
+import com.keola.microservice.product.exception.util.DatabaseAvailability;
 import com.keola.microservice.product.mapper.ProductEntityMapper;
+import com.keola.microservice.product.popularity.ProductPopularity;
 import com.keola.microservice.product.repo.CustomerEntityRepository;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import com.keola.microservice.product.resilience.DataAccessGuard;
+import com.keola.microservice.product.resilience.DataAccessGuard.Operation;
+import com.keola.microservice.product.snapshot.CatalogSnapshot;
+import com.keola.microservice.product.timing.RequestTimings.Stage;
+import com.keola.microservice.product.timing.ServerTiming;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -22,8 +35,11 @@ import java.time.Instant;
  * ProductServiceI is a service class responsible for handling product-related operations.
  * It includes methods for creating, retrieving, updating, and deleting products.
  * It uses reactive programming with Reactor's Mono and Flux for non-blocking operations.
- * The service interacts with the database repository (CustomerEntityRepository)
- * and the entity mapper (ProductEntityMapper) to map entities to DTOs.
+ * Writes go through the database repository (CustomerEntityRepository) and the entity mapper
+ * (ProductEntityMapper); reads use ProductReadRepository, which maps rows straight into DTOs.
+ * Every committed write publishes a {@link ProductChangedEvent}. Database calls go through the
+ * DataAccessGuard, which bounds them with timeouts and a circuit breaker. Reads are counted by
+ * ProductPopularity to track the hottest products.
  */
 @Service
 @AllArgsConstructor
@@ -31,12 +47,21 @@ import java.time.Instant;
 public class ProductServiceI implements ProductService {
 
     private final CustomerEntityRepository productRepository; // Repository for accessing product entities.
+    private final ProductReadRepository productReadRepository; // Row-to-DTO queries for the read endpoints.
     private final ProductEntityMapper productEntityMapper; // Mapper to convert between entity and DTO.
+    private final ProductWriteCoalescer productWriteCoalescer; // Optional group commit of concurrent inserts.
+    private final CatalogSnapshot catalogSnapshot; // Serves reads while the database is unavailable.
+    private final ProductEventPublisher productEventPublisher; // Notifies caches and indexes of committed changes.
+    private final DataAccessGuard dataAccessGuard; // Timeouts, client deadlines and circuit breaker for database calls.
+    private final ProductPopularity productPopularity; // Counts product reads to track the hottest products.
 
     /**
      * Creates a new product from the provided CreateProductDTO.
+     * When write coalescing is enabled the insert is batched with other concurrent inserts
+     * and committed on its own, outside of the caller's transaction.
      * @param productDTO the data transfer object containing the product details.
      * @return a Mono wrapping the ReadProductDTO containing the created product's information.
+     * @throws CatalogReadOnlyException if the database is unavailable.
      */
     @Override
     @Transactional
@@ -55,34 +80,68 @@ public class ProductServiceI implements ProductService {
                 .updatedAt(Instant.now())
                 .build();
 
-        // Saving the product to the repository and mapping the saved entity to a DTO
-        return productRepository.save(product)
-                .map(productEntityMapper::toDTO);  // Mapping entity to DTO
+        // Saving the product (directly or through the coalescer) and mapping the saved entity to a DTO
+        Mono<ProductEntity> savedProduct = productWriteCoalescer.isEnabled()
+                ? productWriteCoalescer.insert(product)
+                : productRepository.save(product);
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.INSERT, savedProduct))
+                .onErrorMap(DatabaseAvailability::isUnavailable, catalogSnapshot::readOnly)
+                .transform(ServerTiming.mapMono(Stage.MAPPING, productEntityMapper::toDTO))  // Mapping entity to DTO
+                .flatMap(created -> productEventPublisher.publishAfterCommit(ProductChangedEvent.created(created)).thenReturn(created));
     }
 
     /**
-     * Retrieves all products from the repository.
+     * Retrieves all products from the repository, or from the catalog snapshot if the database is unavailable.
      * @return a Flux wrapping a stream of ReadProductDTOs representing all products.
      */
     @Override
     public Flux<ReadProductDTO> getAllProducts() {
-        // Retrieving all products and mapping them to DTOs
-        return productRepository.findAll()
-                .map(productEntityMapper::toDTO);  // Mapping entity to DTO
+        // Retrieving all products, mapped from the rows straight into DTOs
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.FIND_ALL, productReadRepository.findAll()))
+                .onErrorResume(DatabaseAvailability::isUnavailable, catalogSnapshot::fallbackFindAll)  // Serving the snapshot if the database is down
+                .doOnNext(product -> productPopularity.recordListView(product.getId()));
     }
 
     /**
-     * Retrieves a product by its ID.
+     * Retrieves the products matching the given filters, or from the catalog snapshot if the database is unavailable.
+     * Filtering by category lets Postgres skip the other partitions when tbl_product is partitioned by category.
+     * @param category the category to match, or null for any category.
+     * @param status the status to match, or null for any status.
+     * @return a Flux wrapping a stream of ReadProductDTOs representing the matching products.
+     */
+    @Override
+    public Flux<ReadProductDTO> getProducts(String category, StateProduct status) {
+        if (category == null && status == null) {
+            return getAllProducts();
+        }
+        Flux<ReadProductDTO> products;
+        if (category != null && status != null) {
+            products = productReadRepository.findByCategoryAndStatus(category, status.name());
+        } else if (category != null) {
+            products = productReadRepository.findByCategory(category);
+        } else {
+            products = productReadRepository.findByStatus(status.name());
+        }
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.FIND_FILTERED, products))
+                .onErrorResume(DatabaseAvailability::isUnavailable, ex -> catalogSnapshot.fallbackFindAll(ex)
+                        .filter(product -> (category == null || category.equals(product.getCategory()))
+                                && (status == null || status.name().equals(product.getStatus()))))  // Serving the snapshot if the database is down
+                .doOnNext(product -> productPopularity.recordListView(product.getId()));
+    }
+
+    /**
+     * Retrieves a product by its ID, or from the catalog snapshot if the database is unavailable.
      * @param id the ID of the product to retrieve.
      * @return a Mono wrapping the ReadProductDTO of the product if found.
      * @throws EntityNotFoundException if the product with the given ID does not exist.
      */
     @Override
     public Mono<ReadProductDTO> getProductById(@NotNull Long id) {
-        // Finding the product by ID and handling the case if not found
-        return productRepository.findById(id)
+        // Finding the product by ID, mapped from the row straight into a DTO, and handling the case if not found
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.FIND_BY_ID, productReadRepository.findById(id)))
                 .switchIfEmpty(Mono.error(new EntityNotFoundException("Producto no encontrado con ID: " + id)))  // Throwing an exception if not found
-                .map(productEntityMapper::toDTO);  // Mapping entity to DTO
+                .onErrorResume(DatabaseAvailability::isUnavailable, ex -> catalogSnapshot.fallbackFindById(id, ex))  // Serving the snapshot if the database is down
+                .doOnNext(product -> productPopularity.recordView(id));
     }
 
     /**
@@ -91,14 +150,16 @@ public class ProductServiceI implements ProductService {
      * @param productDTO the DTO containing the updated product details.
      * @return a Mono indicating completion of the update operation.
      * @throws EntityNotFoundException if the product with the given ID does not exist.
+     * @throws CatalogReadOnlyException if the database is unavailable.
      */
     @Override
     @Transactional
     public Mono<Void> updateProduct(@NotNull Long id, @RequestBody @Valid UpdateProductDTO productDTO) {
         // Finding the product by ID and updating its fields
-        return productRepository.findById(id)
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.FIND_BY_ID, productRepository.findById(id)))
                 .switchIfEmpty(Mono.error(new EntityNotFoundException("Producto no encontrado con ID: " + id)))  // Throwing an exception if not found
                 .flatMap(product -> {
+                    ReadProductDTO previous = productEntityMapper.toDTO(product); // State before the change, for the price and stock history
                     // Updating the product fields with the new data from the DTO
                     product.setName(productDTO.getName());
                     product.setDescription(productDTO.getDescription());
@@ -109,8 +170,11 @@ public class ProductServiceI implements ProductService {
                     product.setBrand(productDTO.getBrand());
                     product.setStatus(productDTO.getStatus().name());
                     product.setUpdatedAt(Instant.now()); // Setting the updated timestamp
-                    return productRepository.save(product); // Saving the updated product
+                    return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.UPDATE, productRepository.save(product))) // Saving the updated product
+                            .map(saved -> ProductChangedEvent.updated(previous, productEntityMapper.toDTO(saved)));
                 })
+                .onErrorMap(DatabaseAvailability::isUnavailable, catalogSnapshot::readOnly)
+                .flatMap(productEventPublisher::publishAfterCommit)
                 .then(); // Indicating the end of the operation with Mono<Void>
     }
 
@@ -118,11 +182,43 @@ public class ProductServiceI implements ProductService {
      * Deletes a product based on the provided ID.
      * @param id the ID of the product to delete.
      * @return a Mono indicating completion of the delete operation.
+     * @throws CatalogReadOnlyException if the database is unavailable.
      */
     @Override
     @Transactional
     public Mono<Void> deleteProduct(@NotNull Long id) {
         // Deleting the product by ID
-        return productRepository.deleteById(id);
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.DELETE, productRepository.deleteById(id)))
+                .onErrorMap(DatabaseAvailability::isUnavailable, catalogSnapshot::readOnly)
+                .then(productEventPublisher.publishAfterCommit(ProductChangedEvent.deleted(id)));
+    }
+
+    /**
+     * Adds the given delta, negative to take stock out, to the quantity of a product.
+     * The quantity is changed in a single statement, so concurrent adjustments are never lost.
+     * @param id the ID of the product to adjust.
+     * @param delta the units to add or, when negative, to remove.
+     * @return a Mono indicating completion of the adjustment.
+     * @throws EntityNotFoundException if the product with the given ID does not exist.
+     * @throws InsufficientStockException if the quantity would drop below zero.
+     * @throws CatalogReadOnlyException if the database is unavailable.
+     */
+    @Override
+    @Transactional
+    public Mono<Void> adjustStock(@NotNull Long id, int delta) {
+        Mono<ReadProductDTO> product = ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.FIND_BY_ID, productReadRepository.findById(id)))
+                .switchIfEmpty(Mono.error(new EntityNotFoundException("Producto no encontrado con ID: " + id)));  // Throwing an exception if not found
+        return ServerTiming.timed(Stage.DB, dataAccessGuard.guard(Operation.UPDATE, productRepository.adjustQuantity(id, delta)))
+                .flatMap(updated -> product.flatMap(current -> updated > 0
+                        ? Mono.just(current)
+                        : Mono.<ReadProductDTO>error(new InsufficientStockException(
+                                "Stock insuficiente para el producto con ID: " + id + " (disponible: " + current.getQuantity() + ")"))))
+                .onErrorMap(DatabaseAvailability::isUnavailable, catalogSnapshot::readOnly)
+                .flatMap(adjusted -> {
+                    ReadProductDTO previous = new ReadProductDTO(adjusted.getId(), adjusted.getName(), adjusted.getDescription(),
+                            adjusted.getPrice(), adjusted.getQuantity() - delta, adjusted.getCategory(), adjusted.getImageUrl(),
+                            adjusted.getStatus());
+                    return productEventPublisher.publishAfterCommit(ProductChangedEvent.updated(previous, adjusted));
+                });
     }
 }
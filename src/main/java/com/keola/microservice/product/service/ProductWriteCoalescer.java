@@ -0,0 +1,216 @@
+package com.keola.microservice.product.service;
+
+import com.keola.microservice.product.config.WriteCoalescingProperties;
+import com.keola.microservice.product.entity.ProductEntity;
+import com.keola.microservice.product.exception.WriteQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ProductWriteCoalescer groups concurrent single-product inserts into one multi-row
+ * {@code INSERT ... RETURNING id} statement (group commit).
+ * Inserts arriving within the configured window, or until the batch is full, share one round trip.
+ * Each row carries its position in the batch as an ordinal that the statement returns next to the
+ * generated id, so each caller receives its own id whatever order the rows come back in. When a batch
+ * fails, its rows are retried one by one so that only the offending row reports the error to its caller. The queue of waiting inserts is
+ * bounded; once full, inserts fail with {@link WriteQueueFullException} instead of piling up.
+ */
+@Slf4j
+@Component
+public class ProductWriteCoalescer implements DisposableBean {
+
+    private static final String COLUMN_LIST = "name, description, price, quantity, category, image_url, created_at, updated_at, brand, status";
+    // Types of the first VALUES row, from which Postgres resolves the type of every column of the list
+    private static final String[] COLUMN_TYPES = {"varchar", "varchar", "numeric", "int", "varchar", "varchar", "timestamp", "timestamp", "varchar", "varchar"};
+    private static final int COLUMNS = COLUMN_TYPES.length;
+    // Ids are drawn from the sequence next to the ordinal, because RETURNING cannot see columns of the VALUES list
+    private static final String INSERT_SUFFIX = "), numbered AS (SELECT nextval('tbl_product_id_seq') AS id, input.* FROM input), "
+            + "inserted AS (INSERT INTO tbl_product (id, " + COLUMN_LIST + ") SELECT id, " + COLUMN_LIST + " FROM numbered ORDER BY ord RETURNING id) "
+            + "SELECT numbered.ord, numbered.id FROM numbered JOIN inserted ON inserted.id = numbered.id";
+
+    private final DatabaseClient databaseClient;
+    private final WriteCoalescingProperties properties;
+    private final Sinks.Many<PendingInsert> pending; // Emissions are serialized by synchronizing on the sink.
+
+    private final DistributionSummary batchFill; // Ratio between batch size and the configured maximum.
+    private final DistributionSummary batchSize; // Rows written per statement.
+    private final Counter fallbacks; // Batches retried row by row after a failure.
+
+    public ProductWriteCoalescer(DatabaseClient databaseClient, WriteCoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+        this.pending = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingInsert>get(properties.getMaxQueuedInserts()).get());
+        this.batchFill = DistributionSummary.builder("product.write.coalescer.batch.fill")
+                .description("Fill rate of coalesced insert batches")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("product.write.coalescer.batch.size")
+                .description("Rows written per coalesced insert statement")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("product.write.coalescer.fallbacks")
+                .description("Coalesced batches retried row by row after a failure")
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            startPipeline();
+        }
+    }
+
+    /**
+     * @return true when inserts should be routed through the coalescer.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues the product for the next batch.
+     * @param product the product to insert, without id.
+     * @return a Mono wrapping the same product with its generated id.
+     * @throws WriteQueueFullException if too many inserts are already waiting.
+     */
+    public Mono<ProductEntity> insert(ProductEntity product) {
+        return Mono.defer(() -> {
+            Sinks.One<ProductEntity> result = Sinks.one();
+            Sinks.EmitResult emitted;
+            synchronized (pending) {
+                emitted = pending.tryEmitNext(new PendingInsert(product, result));
+            }
+            if (emitted == Sinks.EmitResult.FAIL_OVERFLOW) {
+                return Mono.error(new WriteQueueFullException("Demasiadas inserciones en espera, reintente más tarde", Duration.ofSeconds(1)));
+            }
+            if (emitted.isFailure()) {
+                return Mono.error(new IllegalStateException("The write coalescer is not accepting inserts: " + emitted));
+            }
+            return result.asMono();
+        });
+    }
+
+    private void startPipeline() {
+        pending.asFlux()
+                // Fair backpressure: batches are only cut when a write slot is free, so a slow database fills the bounded queue
+                .bufferTimeout(properties.getMaxBatchSize(), properties.getWindow(), true)
+                .flatMap(this::flush, properties.getMaxInFlightBatches())
+                .subscribe();
+    }
+
+    // Writes one batch and routes ids or errors back to every caller; never fails the pipeline.
+    private Mono<Void> flush(List<PendingInsert> batch) {
+        batchSize.record(batch.size());
+        batchFill.record((double) batch.size() / properties.getMaxBatchSize());
+
+        return insertAll(batch)
+                .doOnNext(ids -> complete(batch, ids))
+                .then()
+                .onErrorResume(ex -> {
+                    if (batch.size() == 1) {
+                        batch.get(0).result().tryEmitError(ex);
+                        return Mono.empty();
+                    }
+                    log.debug("Coalesced insert of {} rows failed, retrying row by row: {}", batch.size(), ex.getMessage());
+                    fallbacks.increment();
+                    return Flux.fromIterable(batch)
+                            .concatMap(insert -> insertAll(List.of(insert))
+                                    .doOnNext(ids -> complete(List.of(insert), ids))
+                                    .then()
+                                    .onErrorResume(rowError -> {
+                                        insert.result().tryEmitError(rowError);
+                                        return Mono.empty();
+                                    }))
+                            .then();
+                });
+    }
+
+    // Rows are matched to their callers by the returned ordinal: RETURNING order is not guaranteed.
+    private Mono<List<Long>> insertAll(List<PendingInsert> batch) {
+        StringBuilder sql = new StringBuilder("WITH input (").append(COLUMN_LIST).append(", ord) AS (VALUES ");
+        for (int row = 0; row < batch.size(); row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < COLUMNS; column++) {
+                sql.append(column == 0 ? "$" : ", $").append(row * COLUMNS + column + 1);
+                if (row == 0) {
+                    sql.append("::").append(COLUMN_TYPES[column]);
+                }
+            }
+            sql.append(", ").append(row).append(')');
+        }
+        sql.append(INSERT_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        int index = 0;
+        for (PendingInsert insert : batch) {
+            ProductEntity product = insert.product();
+            spec = bind(spec, index++, product.getName(), String.class);
+            spec = bind(spec, index++, product.getDescription(), String.class);
+            spec = bind(spec, index++, product.getPrice(), BigDecimal.class);
+            spec = spec.bind(index++, product.getQuantity());
+            spec = bind(spec, index++, product.getCategory(), String.class);
+            spec = bind(spec, index++, product.getImageUrl(), String.class);
+            spec = bind(spec, index++, product.getCreatedAt(), Instant.class);
+            spec = bind(spec, index++, product.getUpdatedAt(), Instant.class);
+            spec = bind(spec, index++, product.getBrand(), String.class);
+            spec = bind(spec, index++, product.getStatus(), String.class);
+        }
+
+        return spec.map(row -> new GeneratedId(row.get("ord", Integer.class), row.get("id", Long.class)))
+                .all()
+                .collectList()
+                .flatMap(generated -> byOrdinal(generated, batch.size()));
+    }
+
+    static Mono<List<Long>> byOrdinal(List<GeneratedId> generated, int batchSize) {
+        Long[] ids = new Long[batchSize];
+        for (GeneratedId id : generated) {
+            if (id.ordinal() < 0 || id.ordinal() >= batchSize || ids[id.ordinal()] != null) {
+                return Mono.error(new IllegalStateException("Unexpected ordinal " + id.ordinal() + " in a batch of " + batchSize));
+            }
+            ids[id.ordinal()] = id.id();
+        }
+        if (generated.size() != batchSize) {
+            return Mono.error(new IllegalStateException("Expected " + batchSize + " generated ids but got " + generated.size()));
+        }
+        return Mono.just(Arrays.asList(ids));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, type);
+    }
+
+    private static void complete(List<PendingInsert> batch, List<Long> ids) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingInsert insert = batch.get(i);
+            insert.product().setId(ids.get(i));
+            insert.result().tryEmitValue(insert.product());
+        }
+    }
+
+    /**
+     * Stops accepting inserts; rows already queued are still flushed.
+     */
+    @Override
+    public void destroy() {
+        synchronized (pending) {
+            pending.tryEmitComplete();
+        }
+    }
+
+    private record PendingInsert(ProductEntity product, Sinks.One<ProductEntity> result) {
+    }
+
+    record GeneratedId(int ordinal, long id) {
+    }
+}
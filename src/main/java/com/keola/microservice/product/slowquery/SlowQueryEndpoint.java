@@ -0,0 +1,25 @@
+package com.keola.microservice.product.slowquery;
+
+import com.keola.microservice.product.models.SlowQueryReport;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Actuator endpoint reporting slow statements, served on the management port:
+ * {@code GET /actuator/slowqueries} returns the latest statements over the threshold, their normalized
+ * shapes and the execution plans captured for the slowest ones.
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @ReadOperation
+    public SlowQueryReport slowQueries() {
+        return slowQueryLog.report();
+    }
+}
@@ -0,0 +1,269 @@
+package com.keola.microservice.product.slowquery;
+
+import com.keola.microservice.product.config.SlowQueryProperties;
+import com.keola.microservice.product.models.SlowQueryReport;
+import io.r2dbc.proxy.core.Binding;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SlowQueryLog times every statement executed through the proxied ConnectionFactory and keeps only
+ * those over the threshold, in a fixed-size ring buffer. Only the statement shape (literals removed,
+ * whitespace collapsed) is kept and parameter values are redacted to their types, so no customer data
+ * ends up in the report. Slow statements are also aggregated by shape; for the slowest SELECT shapes an
+ * {@code EXPLAIN (ANALYZE, BUFFERS)} plan is captured once, on a connection that bypasses the proxy. The
+ * statement then runs once more, in a read-only transaction that is rolled back and bounded by the
+ * explain timeout.
+ */
+@Slf4j
+public class SlowQueryLog implements ProxyExecutionListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Constants compared in plan conditions, e.g. "(id = 5)"; costs and row counts ("cost=0.00..8.27") have no space after '='
+    private static final Pattern PLAN_NUMBER = Pattern.compile("(?<=[=<>] )-?\\d+(?:\\.\\d+)?\\b");
+    private static final TransactionDefinition READ_ONLY_TRANSACTION = new TransactionDefinition() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(Option<T> option) {
+            return TransactionDefinition.READ_ONLY.equals(option) ? (T) Boolean.TRUE : null;
+        }
+    };
+
+    private final SlowQueryProperties properties;
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowQueryReport.Entry> recent;
+    private final AtomicLong cursor = new AtomicLong();
+    private final ConcurrentHashMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private volatile ConnectionFactory explainConnectionFactory;
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this.properties = properties;
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.recent = new AtomicReferenceArray<>(properties.getBufferSize());
+    }
+
+    /**
+     * Sets the unproxied ConnectionFactory used to capture plans, so EXPLAIN runs are not logged themselves.
+     */
+    public void setExplainConnectionFactory(ConnectionFactory explainConnectionFactory) {
+        this.explainConnectionFactory = explainConnectionFactory;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        long elapsedNanos = execInfo.getExecuteDuration().toNanos();
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        for (QueryInfo queryInfo : execInfo.getQueries()) {
+            List<Bindings> bindingsList = queryInfo.getBindingsList();
+            Bindings firstBindings = bindingsList.isEmpty() ? null : bindingsList.get(0);
+            record(queryInfo.getQuery(), firstBindings, elapsedNanos, execInfo.isSuccess());
+        }
+    }
+
+    private void record(String sql, Bindings bindings, long elapsedNanos, boolean success) {
+        String shape = shapeOf(sql);
+        SlowQueryReport.Entry entry = SlowQueryReport.Entry.builder()
+                .executedAt(Instant.now())
+                .durationMs(elapsedNanos / 1_000_000.0)
+                .sql(shape)
+                .parameters(redact(bindings))
+                .success(success)
+                .build();
+        recent.set((int) (cursor.getAndIncrement() % recent.length()), entry);
+        log.debug("Slow query ({} ms): {}", entry.getDurationMs(), shape);
+
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= properties.getMaxShapes()) {
+                return;
+            }
+            stats = shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        }
+        stats.count.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulate(elapsedNanos);
+
+        if (success && isSelect(shape) && isAmongSlowest(shape)
+                && stats.explainRequested.compareAndSet(false, true)) {
+            captureExplain(sql, bindings, stats);
+        }
+    }
+
+    private boolean isAmongSlowest(String shape) {
+        return shapes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, ShapeStats> e) -> e.getValue().maxNanos.get()).reversed())
+                .limit(properties.getExplainTopShapes())
+                .anyMatch(e -> e.getKey().equals(shape));
+    }
+
+    private void captureExplain(String sql, @Nullable Bindings bindings, ShapeStats stats) {
+        ConnectionFactory connectionFactory = explainConnectionFactory;
+        if (connectionFactory == null) {
+            return;
+        }
+        Mono.usingWhen(connectionFactory.create(),
+                        connection -> explain(connection, sql, bindings),
+                        Connection::close)
+                .timeout(properties.getExplainTimeout())
+                // The plan is built for the bound values, which appear in it as literals
+                .subscribe(plan -> stats.explain = redactPlan(plan),
+                        ex -> stats.explain = "EXPLAIN failed: " + ex.getMessage());
+    }
+
+    // ANALYZE runs the statement: whatever it does is rolled back, and the server stops it at the explain timeout
+    private Mono<String> explain(Connection connection, String sql, @Nullable Bindings bindings) {
+        return Mono.usingWhen(Mono.from(connection.beginTransaction(READ_ONLY_TRANSACTION)).thenReturn(connection),
+                transaction -> {
+                    Statement timeout = transaction.createStatement("SET LOCAL statement_timeout = "
+                            + properties.getExplainTimeout().toMillis());
+                    Statement statement = transaction.createStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql);
+                    if (bindings != null) {
+                        for (Binding binding : bindings.getIndexBindings()) {
+                            bind(statement, binding, true);
+                        }
+                        for (Binding binding : bindings.getNamedBindings()) {
+                            bind(statement, binding, false);
+                        }
+                    }
+                    return Flux.from(timeout.execute())
+                            .flatMap(Result::getRowsUpdated)
+                            .thenMany(Flux.from(statement.execute()))
+                            .concatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                            .collectList()
+                            .map(lines -> String.join("\n", lines));
+                },
+                Connection::rollbackTransaction,
+                (transaction, ex) -> transaction.rollbackTransaction(),
+                Connection::rollbackTransaction);
+    }
+
+    private static void bind(Statement statement, Binding binding, boolean indexed) {
+        BoundValue value = binding.getBoundValue();
+        if (indexed) {
+            int index = (Integer) binding.getKey();
+            if (value.isNull()) {
+                statement.bindNull(index, value.getNullType());
+            } else {
+                statement.bind(index, value.getValue());
+            }
+        } else {
+            String name = (String) binding.getKey();
+            if (value.isNull()) {
+                statement.bindNull(name, value.getNullType());
+            } else {
+                statement.bind(name, value.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the recorded slow statements, newest first, and the shapes ordered by their slowest execution.
+     */
+    public SlowQueryReport report() {
+        List<SlowQueryReport.Entry> entries = new ArrayList<>(recent.length());
+        long end = cursor.get();
+        for (long i = end - 1; i >= Math.max(0, end - recent.length()); i--) {
+            SlowQueryReport.Entry entry = recent.get((int) (i % recent.length()));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+
+        List<SlowQueryReport.Shape> shapeReports = shapes.entrySet().stream()
+                .map(e -> {
+                    ShapeStats stats = e.getValue();
+                    long count = stats.count.sum();
+                    return SlowQueryReport.Shape.builder()
+                            .sql(e.getKey())
+                            .count(count)
+                            .maxMs(stats.maxNanos.get() / 1_000_000.0)
+                            .avgMs(count == 0 ? 0 : stats.totalNanos.sum() / 1_000_000.0 / count)
+                            .explain(stats.explain)
+                            .build();
+                })
+                .sorted(Comparator.comparingDouble(SlowQueryReport.Shape::getMaxMs).reversed())
+                .toList();
+
+        return SlowQueryReport.builder()
+                .thresholdMs(properties.getThreshold().toMillis())
+                .recent(entries)
+                .shapes(shapeReports)
+                .build();
+    }
+
+    private static List<String> redact(Bindings bindings) {
+        List<String> parameters = new ArrayList<>();
+        if (bindings == null) {
+            return parameters;
+        }
+        for (Binding binding : bindings.getIndexBindings()) {
+            parameters.add("$" + ((Integer) binding.getKey() + 1) + "=" + typeOf(binding.getBoundValue()));
+        }
+        for (Binding binding : bindings.getNamedBindings()) {
+            parameters.add(binding.getKey() + "=" + typeOf(binding.getBoundValue()));
+        }
+        return parameters;
+    }
+
+    private static String typeOf(BoundValue value) {
+        if (value.isNull()) {
+            return "NULL";
+        }
+        return "<" + (value.getValue() == null ? "?" : value.getValue().getClass().getSimpleName()) + ">";
+    }
+
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    static String redactPlan(String plan) {
+        String redacted = STRING_LITERAL.matcher(plan).replaceAll("'?'");
+        return PLAN_NUMBER.matcher(redacted).replaceAll("?");
+    }
+
+    private static boolean isSelect(String shape) {
+        String lower = shape.toLowerCase(Locale.ROOT);
+        return lower.startsWith("select") && !lower.contains(" for update");
+    }
+
+    private static final class ShapeStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final AtomicBoolean explainRequested = new AtomicBoolean();
+        volatile String explain;
+    }
+}
@@ -0,0 +1,182 @@
+package com.keola.microservice.product.snapshot;
+
+import com.keola.microservice.product.config.CatalogSnapshotProperties;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.exception.CatalogReadOnlyException;
+import com.keola.microservice.product.exception.EntityNotFoundException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import static com.keola.microservice.product.snapshot.CatalogSnapshotFormat.*;
+
+/**
+ * CatalogSnapshot serves product reads from the memory-mapped snapshot file while the database is unavailable.
+ * Lookups binary-search the id index and decode a single record; listings decode records one at a time
+ * as they are requested, so the catalog is never materialized on the heap.
+ * Responses served from the snapshot are flagged through {@link StaleResponseMarker} in the Reactor context.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshot {
+
+    private final CatalogSnapshotProperties properties;
+    private volatile MappedSnapshot current; // Null until a snapshot has been written or loaded.
+
+    public CatalogSnapshot(CatalogSnapshotProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void loadExisting() {
+        if (properties.isEnabled() && Files.exists(properties.getPath())) {
+            try {
+                load(properties.getPath());
+            } catch (IOException | IllegalStateException ex) {
+                log.warn("Ignoring unreadable catalog snapshot {}: {}", properties.getPath(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Maps the snapshot file and makes it the one served from now on.
+     * @throws IllegalStateException if the file is not a snapshot, or is truncated or corrupt.
+     */
+    public void load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot larger than 2 GB is not supported: " + size);
+            }
+            if (size < HEADER_SIZE) {
+                throw new IllegalStateException("Truncated catalog snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalStateException("Not a catalog snapshot file: " + path);
+            }
+            long count = buffer.getLong(COUNT_OFFSET);
+            long indexOffset = buffer.getLong(INDEX_OFFSET_OFFSET);
+            if (count < 0 || count > size / INDEX_ENTRY_SIZE || indexOffset < HEADER_SIZE || indexOffset > size
+                    || size - indexOffset != count * INDEX_ENTRY_SIZE) {
+                throw new IllegalStateException("Truncated or corrupt catalog snapshot: " + path);
+            }
+            validateIndex(buffer, (int) count, (int) indexOffset, path);
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong(CREATED_AT_OFFSET));
+            current = new MappedSnapshot(buffer, (int) count, (int) indexOffset, createdAt);
+            log.info("Catalog snapshot loaded: {} products taken at {}", count, createdAt);
+        }
+    }
+
+    // Every index entry must point at a whole record inside the data section, in increasing id order,
+    // so that lookups and listings never read outside the mapped file.
+    private static void validateIndex(MappedByteBuffer buffer, int count, int indexOffset, Path path) {
+        long previousId = Long.MIN_VALUE;
+        for (int position = 0; position < count; position++) {
+            int entry = indexOffset + position * INDEX_ENTRY_SIZE;
+            long id = buffer.getLong(entry);
+            long recordOffset = buffer.getLong(entry + 8);
+            if ((position > 0 && id <= previousId) || recordOffset < HEADER_SIZE || recordOffset > indexOffset - MIN_RECORD_SIZE) {
+                throw new IllegalStateException("Corrupt catalog snapshot index at entry " + position + ": " + path);
+            }
+            int length = buffer.getInt((int) recordOffset);
+            if (length < MIN_RECORD_SIZE - 4 || recordOffset + 4 + length > indexOffset || buffer.getLong((int) recordOffset + 4) != id) {
+                throw new IllegalStateException("Corrupt catalog snapshot record for id " + id + ": " + path);
+            }
+            previousId = id;
+        }
+    }
+
+    public boolean isAvailable() {
+        return properties.isEnabled() && current != null;
+    }
+
+    /**
+     * Serves a product from the snapshot in place of a failed database read.
+     * @param id the ID of the product to retrieve.
+     * @param databaseError the error of the database read, propagated when no snapshot is available.
+     * @return a Mono wrapping the product as of the snapshot time.
+     * @throws EntityNotFoundException if the product was not in the catalog when the snapshot was taken.
+     */
+    public Mono<ReadProductDTO> fallbackFindById(Long id, Throwable databaseError) {
+        MappedSnapshot snapshot = current;
+        if (!properties.isEnabled() || snapshot == null) {
+            return Mono.error(databaseError);
+        }
+        return markStale(snapshot)
+                .then(Mono.fromSupplier(() -> snapshot.findById(id)))
+                .switchIfEmpty(Mono.error(new EntityNotFoundException("Producto no encontrado con ID: " + id)));
+    }
+
+    /**
+     * Serves the full listing from the snapshot in place of a failed database read.
+     * @param databaseError the error of the database read, propagated when no snapshot is available.
+     * @return a Flux decoding one product per request, in id order.
+     */
+    public Flux<ReadProductDTO> fallbackFindAll(Throwable databaseError) {
+        MappedSnapshot snapshot = current;
+        if (!properties.isEnabled() || snapshot == null) {
+            return Flux.error(databaseError);
+        }
+        return markStale(snapshot)
+                .thenMany(Flux.<ReadProductDTO, Integer>generate(() -> 0, (position, sink) -> {
+                    if (position >= snapshot.count()) {
+                        sink.complete();
+                    } else {
+                        sink.next(snapshot.decodeAt(position));
+                    }
+                    return position + 1;
+                }));
+    }
+
+    /**
+     * @param databaseError the error of the failed write.
+     * @return the error reported to clients while writes cannot reach the database.
+     */
+    public CatalogReadOnlyException readOnly(Throwable databaseError) {
+        return new CatalogReadOnlyException("El catálogo está en modo solo lectura", properties.getReadOnlyRetryAfter(), databaseError);
+    }
+
+    private static Mono<Void> markStale(MappedSnapshot snapshot) {
+        return Mono.deferContextual(context -> {
+            context.<StaleResponseMarker>getOrEmpty(StaleResponseMarker.CONTEXT_KEY)
+                    .ifPresent(marker -> marker.markStale(snapshot.createdAt()));
+            return Mono.empty();
+        });
+    }
+
+    private record MappedSnapshot(MappedByteBuffer buffer, int count, int indexOffset, Instant createdAt) {
+
+        ReadProductDTO findById(long id) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = buffer.getLong(indexOffset + middle * INDEX_ENTRY_SIZE);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return decodeAt(middle);
+                }
+            }
+            return null;
+        }
+
+        ReadProductDTO decodeAt(int position) {
+            int recordOffset = (int) buffer.getLong(indexOffset + position * INDEX_ENTRY_SIZE + 8);
+            return decode(buffer, recordOffset);
+        }
+    }
+}
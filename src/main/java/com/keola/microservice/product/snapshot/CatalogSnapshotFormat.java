@@ -0,0 +1,131 @@
+package com.keola.microservice.product.snapshot;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of the catalog snapshot file.
+ * <pre>
+ * header (32 bytes): int magic, int version, long count, long createdAtMillis, long indexOffset
+ * records:           int length, long id, int quantity, int priceScale, int priceLength, byte[] price,
+ *                    then name, description, category, imageUrl, brand and status as (int length, UTF-8 bytes),
+ *                    where a length of -1 means null
+ * index:             count x (long id, long recordOffset), sorted by id
+ * </pre>
+ * All reads use absolute positions, so one mapped buffer can be shared by concurrent readers.
+ */
+public final class CatalogSnapshotFormat {
+
+    public static final int MAGIC = 0x4B43534E; // "KCSN"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int INDEX_ENTRY_SIZE = 16;
+    /** Length prefix, id, quantity, price scale and the seven field lengths of a record whose fields are all null. */
+    public static final int MIN_RECORD_SIZE = 4 + 8 + 4 + 4 + 7 * 4;
+
+    static final int COUNT_OFFSET = 8;
+    static final int CREATED_AT_OFFSET = 16;
+    static final int INDEX_OFFSET_OFFSET = 24;
+
+    private CatalogSnapshotFormat() {
+    }
+
+    /**
+     * One product as stored in the snapshot.
+     */
+    public record Row(long id, String name, String description, BigDecimal price, int quantity,
+                      String category, String imageUrl, String brand, String status) {
+    }
+
+    /**
+     * Encodes the row, including its length prefix, into a buffer ready to be written.
+     */
+    public static ByteBuffer encode(Row row, ByteBuffer reusable) {
+        byte[] price = row.price() == null ? null : row.price().unscaledValue().toByteArray();
+        byte[] name = utf8(row.name());
+        byte[] description = utf8(row.description());
+        byte[] category = utf8(row.category());
+        byte[] imageUrl = utf8(row.imageUrl());
+        byte[] brand = utf8(row.brand());
+        byte[] status = utf8(row.status());
+
+        int length = 8 + 4 + 4 + sizeOf(price) + sizeOf(name) + sizeOf(description) + sizeOf(category)
+                + sizeOf(imageUrl) + sizeOf(brand) + sizeOf(status);
+        ByteBuffer buffer = reusable.capacity() >= length + 4 ? reusable.clear() : ByteBuffer.allocate(Math.max(length + 4, reusable.capacity() * 2));
+        buffer.putInt(length)
+                .putLong(row.id())
+                .putInt(row.quantity())
+                .putInt(row.price() == null ? 0 : row.price().scale());
+        put(buffer, price);
+        put(buffer, name);
+        put(buffer, description);
+        put(buffer, category);
+        put(buffer, imageUrl);
+        put(buffer, brand);
+        put(buffer, status);
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes the record starting at the given offset straight into the response DTO.
+     */
+    public static ReadProductDTO decode(ByteBuffer snapshot, int offset) {
+        int position = offset + 4; // Skip the record length
+        long id = snapshot.getLong(position);
+        int quantity = snapshot.getInt(position + 8);
+        int priceScale = snapshot.getInt(position + 12);
+        position += 16;
+
+        int priceLength = snapshot.getInt(position);
+        BigDecimal price = null;
+        if (priceLength >= 0) {
+            byte[] unscaled = new byte[priceLength];
+            snapshot.get(position + 4, unscaled);
+            price = new BigDecimal(new BigInteger(unscaled), priceScale);
+        }
+        position += 4 + Math.max(priceLength, 0);
+
+        String[] text = new String[6];
+        for (int i = 0; i < text.length; i++) {
+            int length = snapshot.getInt(position);
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                snapshot.get(position + 4, bytes);
+                text[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            position += 4 + Math.max(length, 0);
+        }
+
+        // text: name, description, category, imageUrl, brand, status
+        return ReadProductDTO.builder()
+                .id(id)
+                .name(text[0])
+                .description(text[1])
+                .price(price)
+                .quantity(quantity)
+                .category(text[2])
+                .imageUrl(text[3])
+                .status(text[5])
+                .build();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+}
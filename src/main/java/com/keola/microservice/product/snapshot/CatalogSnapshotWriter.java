@@ -0,0 +1,174 @@
+package com.keola.microservice.product.snapshot;
+
+import com.keola.microservice.product.config.CatalogSnapshotProperties;
+import com.keola.microservice.product.snapshot.CatalogSnapshotFormat.Row;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.keola.microservice.product.snapshot.CatalogSnapshotFormat.*;
+
+/**
+ * CatalogSnapshotWriter periodically streams tbl_product, in id order, into a new snapshot file.
+ * Records are appended as rows arrive and index entries go to a side file that is appended at the end,
+ * so memory use does not depend on the catalog size. The finished file replaces the previous one
+ * atomically and is then mapped by {@link CatalogSnapshot}.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshotWriter {
+
+    private static final String SELECT_PRODUCTS = "SELECT id, name, description, price, quantity, category, image_url, brand, status "
+            + "FROM tbl_product ORDER BY id";
+
+    private final DatabaseClient databaseClient;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CatalogSnapshotProperties properties;
+
+    public CatalogSnapshotWriter(DatabaseClient databaseClient, CatalogSnapshot catalogSnapshot, CatalogSnapshotProperties properties) {
+        this.databaseClient = databaseClient;
+        this.catalogSnapshot = catalogSnapshot;
+        this.properties = properties;
+    }
+
+    /**
+     * Writes a fresh snapshot; failures keep the previous snapshot in place.
+     */
+    @Scheduled(initialDelayString = "${product.snapshot.initial-delay:PT10S}", fixedDelayString = "${product.snapshot.interval:PT5M}")
+    public Mono<Void> writeSnapshot() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        Path target = properties.getPath();
+        return Mono.using(() -> new SnapshotFileWriter(target),
+                        writer -> databaseClient.sql(SELECT_PRODUCTS)
+                                .map(row -> new Row(
+                                        row.get("id", Long.class),
+                                        row.get("name", String.class),
+                                        row.get("description", String.class),
+                                        row.get("price", BigDecimal.class),
+                                        row.get("quantity", Integer.class),
+                                        row.get("category", String.class),
+                                        row.get("image_url", String.class),
+                                        row.get("brand", String.class),
+                                        row.get("status", String.class)))
+                                .all()
+                                .publishOn(Schedulers.boundedElastic())
+                                .doOnNext(writer::append)
+                                .then(Mono.fromCallable(writer::finish)),
+                        SnapshotFileWriter::close)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(count -> {
+                    try {
+                        catalogSnapshot.load(target);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .doOnError(ex -> log.warn("Could not write the catalog snapshot: {}", ex.getMessage()))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Temporary data and index files of a snapshot being written.
+     */
+    private static final class SnapshotFileWriter implements Closeable {
+
+        private final Path target;
+        private final Path dataFile;
+        private final Path indexFile;
+        private final FileChannel data;
+        private final DataOutputStream index;
+        private ByteBuffer recordBuffer = ByteBuffer.allocate(4096);
+        private long position = HEADER_SIZE;
+        private long count;
+        private boolean finished;
+
+        SnapshotFileWriter(Path target) throws IOException {
+            this.target = target;
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.dataFile = Files.createTempFile(directory, "catalog", ".data.tmp");
+            this.indexFile = Files.createTempFile(directory, "catalog", ".index.tmp");
+            this.data = FileChannel.open(dataFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 64 * 1024));
+            data.position(HEADER_SIZE);
+        }
+
+        void append(Row row) {
+            try {
+                recordBuffer = CatalogSnapshotFormat.encode(row, recordBuffer);
+                int length = recordBuffer.remaining();
+                while (recordBuffer.hasRemaining()) {
+                    data.write(recordBuffer);
+                }
+                index.writeLong(row.id());
+                index.writeLong(position);
+                position += length;
+                count++;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Appends the index, writes the header and moves the file into place.
+         * @return the number of products written.
+         */
+        long finish() throws IOException {
+            index.close();
+            try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                long transferred = 0;
+                long size = indexChannel.size();
+                while (transferred < size) {
+                    transferred += indexChannel.transferTo(transferred, size - transferred, data);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(count)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(position)
+                    .flip();
+            data.write(header, 0);
+            data.force(true);
+            data.close();
+            Files.move(dataFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            log.info("Catalog snapshot written: {} products, {} bytes", count, position + count * INDEX_ENTRY_SIZE);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            try {
+                index.close();
+                data.close();
+                Files.deleteIfExists(indexFile);
+                if (!finished) {
+                    Files.deleteIfExists(dataFile);
+                }
+            } catch (IOException ex) {
+                log.debug("Could not clean up snapshot temporary files: {}", ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.keola.microservice.product.snapshot;
+
+import java.time.Instant;
+
+/**
+ * Per-request flag set when part of the response was served from the catalog snapshot.
+ * Travels in the Reactor context under {@link #CONTEXT_KEY}.
+ */
+public class StaleResponseMarker {
+
+    public static final Class<StaleResponseMarker> CONTEXT_KEY = StaleResponseMarker.class;
+
+    private volatile Instant snapshotTakenAt;
+
+    public void markStale(Instant snapshotTakenAt) {
+        this.snapshotTakenAt = snapshotTakenAt;
+    }
+
+    public boolean isStale() {
+        return snapshotTakenAt != null;
+    }
+
+    public Instant getSnapshotTakenAt() {
+        return snapshotTakenAt;
+    }
+}
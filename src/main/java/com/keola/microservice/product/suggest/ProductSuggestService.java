@@ -0,0 +1,188 @@
+package com.keola.microservice.product.suggest;
+
+import com.keola.microservice.product.config.SuggestProperties;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.models.ProductSuggestion;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import com.keola.microservice.product.suggest.SuggestIndex.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ProductSuggestService answers typeahead lookups on product names and brands from memory.
+ * <p>
+ * The bulk of the catalog lives in an immutable {@link SuggestIndex}, loaded on startup and
+ * reloaded from the database on a schedule and after bulk imports. Products changed since the
+ * index was built are kept in a small overlay, fed by {@link ProductChangedEvent}s, that hides
+ * their indexed version and is searched linearly; once it grows past the configured size the
+ * index is rebuilt in the background from the current index and the overlay.
+ * <p>
+ * Products are ranked by stock: the quantity on hand, with out-of-stock products last and
+ * inactive ones left out.
+ */
+@Slf4j
+@Service
+public class ProductSuggestService {
+
+    /**
+     * A product changed since the index was built; {@code product} is null once it was deleted or deactivated.
+     */
+    private record Change(long sequence, @Nullable Product product, String normalizedName, String normalizedBrand) {
+    }
+
+    private static final Product REMOVED = new Product(-1, "", null, -1); // Lookup result for deleted or inactive products
+
+    private final ProductReadRepository productReadRepository;
+    private final SuggestProperties properties;
+    private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile SuggestIndex index = SuggestIndex.EMPTY;
+
+    public ProductSuggestService(ProductReadRepository productReadRepository, SuggestProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.productReadRepository = productReadRepository;
+        this.properties = properties;
+        Gauge.builder("product.suggest.products", this, service -> service.index.productCount())
+                .description("Products in the suggestion index")
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.terms", this, service -> service.index.termCount())
+                .description("Name and brand words in the suggestion index")
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.pending-changes", changes, Map::size)
+                .description("Products changed since the suggestion index was built")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param prefix the text typed so far; case and accents are ignored.
+     * @param limit the maximum number of suggestions, or null for the default.
+     * @return the products with a name or brand word starting with the prefix, best stocked first.
+     */
+    public List<ProductSuggestion> suggest(String prefix, @Nullable Integer limit) {
+        String normalized = SuggestText.normalize(prefix);
+        int size = Math.max(1, Math.min(limit == null ? properties.getDefaultLimit() : limit, properties.getMaxLimit()));
+        if (!properties.isEnabled() || normalized.isEmpty()) {
+            return List.of();
+        }
+        List<Product> matches = new ArrayList<>(index.top(normalized, size, changes::containsKey));
+        for (Change change : changes.values()) {
+            if (change.product() != null
+                    && (SuggestText.matches(change.normalizedName(), normalized) || SuggestText.matches(change.normalizedBrand(), normalized))) {
+                matches.add(change.product());
+            }
+        }
+        if (matches.size() > 1) {
+            matches.sort(Comparator.comparingInt(Product::score).reversed());
+        }
+        List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(size, matches.size()));
+        for (int i = 0; i < matches.size() && i < size; i++) {
+            Product product = matches.get(i);
+            suggestions.add(new ProductSuggestion(product.id(), product.name(), product.brand()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Reloads the index from the database. Changes seen before the reload started are dropped from
+     * the overlay once it completes; later ones are kept.
+     */
+    @Scheduled(initialDelayString = "${product.suggest.initial-delay:PT0S}", fixedDelayString = "${product.suggest.refresh-interval:PT10M}")
+    public Mono<Void> reload() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return rebuild(() -> productReadRepository.findAllSuggestSources()
+                .filter(source -> score(source) >= 0)
+                .map(source -> new Product(source.id(), source.name(), source.brand(), score(source)))
+                .collectList(), "reload");
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long changeSequence = sequence.incrementAndGet();
+        switch (event.getType()) {
+            case DELETED -> record(event.getProductId(), changeSequence, null);
+            // The event carries no brand, so the indexed columns are read again
+            case CREATED, UPDATED -> productReadRepository.findSuggestSourceById(event.getProductId())
+                    .map(source -> score(source) >= 0 ? new Product(source.id(), source.name(), source.brand(), score(source)) : REMOVED)
+                    .defaultIfEmpty(REMOVED)
+                    .subscribe(product -> record(event.getProductId(), changeSequence, product == REMOVED ? null : product),
+                            ex -> log.warn("Could not update the suggestions for product {}: {}", event.getProductId(), ex.getMessage()));
+            case BULK -> reload().subscribe(null, ex -> log.warn("Could not reload the suggestions: {}", ex.getMessage()));
+        }
+    }
+
+    private void record(long id, long changeSequence, @Nullable Product product) {
+        Change change = product == null
+                ? new Change(changeSequence, null, "", "")
+                : new Change(changeSequence, product, SuggestText.normalize(product.name()), SuggestText.normalize(product.brand()));
+        // Lookups of concurrent changes may complete out of order; the latest change wins
+        changes.merge(id, change, (current, next) -> next.sequence() > current.sequence() ? next : current);
+        if (changes.size() > properties.getMaxPendingChanges()) {
+            rebuild(() -> Mono.fromCallable(() -> {
+                Map<Long, Change> pending = new HashMap<>(changes);
+                List<Product> products = index.products(pending::containsKey);
+                pending.values().stream().map(Change::product).filter(Objects::nonNull).forEach(products::add);
+                return products;
+            }), "compaction").subscribe(null, ex -> log.warn("Could not rebuild the suggestions: {}", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Builds a new index from the loaded products, one build at a time.
+     */
+    private Mono<Void> rebuild(Supplier<Mono<List<Product>>> products, String reason) {
+        if (!building.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        Map<Long, Change> included = new HashMap<>(changes);
+        long start = System.nanoTime();
+        return Mono.defer(products)
+                .publishOn(Schedulers.boundedElastic())
+                .map(SuggestIndex::build)
+                .doOnNext(built -> {
+                    index = built;
+                    included.forEach(changes::remove);
+                    log.info("Suggestion index {}: {} products, {} terms in {} ms", reason, built.productCount(), built.termCount(),
+                            (System.nanoTime() - start) / 1_000_000);
+                })
+                .doFinally(signal -> building.set(false))
+                .then();
+    }
+
+    /**
+     * @return the ranking score of the product, or -1 to leave it out of the suggestions.
+     */
+    static int score(ProductSuggestSource source) {
+        if (StateProduct.inactivo.name().equals(source.status())) {
+            return -1;
+        }
+        if (StateProduct.agotado.name().equals(source.status())) {
+            return 0;
+        }
+        return Math.max(0, source.quantity());
+    }
+}
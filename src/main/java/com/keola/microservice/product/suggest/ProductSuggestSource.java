@@ -0,0 +1,7 @@
+package com.keola.microservice.product.suggest;
+
+/**
+ * The columns of tbl_product the suggestion index is built from.
+ */
+public record ProductSuggestSource(long id, String name, String brand, int quantity, String status) {
+}
@@ -0,0 +1,265 @@
+package com.keola.microservice.product.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable prefix index over product names and brands.
+ * <p>
+ * Every word start of the normalized name and brand is a term, stored as a {@code long} that
+ * points into the product's normalized text (slot, field and offset) instead of as a string. Terms
+ * are sorted, so the terms starting with a prefix form one range found by binary search. A segment
+ * tree over the sorted terms holds the best product score of each subrange; the top-k products of a
+ * range are read best-first from the O(log n) nodes covering it, so a lookup costs
+ * O(log n + k log n) whatever the number of matches.
+ * <p>
+ * Memory is about 40 bytes per product plus its name and normalized name, plus 16 bytes per term
+ * (the term and its share of the tree); brands are shared between products. With names of about
+ * 30 characters and 5 words this is roughly 250 MB per million products.
+ */
+final class SuggestIndex {
+
+    record Product(long id, String name, String brand, int score) {
+    }
+
+    static final SuggestIndex EMPTY = build(List.of());
+
+    private static final int OFFSET_BITS = 8;
+    private static final int MAX_OFFSET = (1 << OFFSET_BITS) - 1; // Words starting later are not indexed
+    private static final long FIELD_BRAND = 1L << OFFSET_BITS;
+    private static final int SLOT_SHIFT = OFFSET_BITS + 1;
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] brands;
+    private final String[] normalizedNames;
+    private final String[] normalizedBrands;
+    private final int[] scores;
+    private final long[] terms; // Sorted by the text they point to.
+    private final int[] tree; // Best score per node; leaves start at leafOffset.
+    private final int leafOffset;
+
+    private SuggestIndex(long[] ids, String[] names, String[] brands, String[] normalizedNames, String[] normalizedBrands,
+                         int[] scores, long[] terms) {
+        this.ids = ids;
+        this.names = names;
+        this.brands = brands;
+        this.normalizedNames = normalizedNames;
+        this.normalizedBrands = normalizedBrands;
+        this.scores = scores;
+        this.terms = terms;
+        int leaves = Integer.highestOneBit(Math.max(1, terms.length - 1)) << 1;
+        this.leafOffset = leaves;
+        this.tree = new int[2 * leaves];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < terms.length; i++) {
+            tree[leaves + i] = scores[slot(terms[i])];
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    static SuggestIndex build(Collection<Product> products) {
+        int count = products.size();
+        long[] ids = new long[count];
+        String[] names = new String[count];
+        String[] brands = new String[count];
+        String[] normalizedNames = new String[count];
+        String[] normalizedBrands = new String[count];
+        int[] scores = new int[count];
+        Map<String, String> sharedBrands = new HashMap<>();
+        Map<String, String> sharedNormalizedBrands = new HashMap<>();
+        long[] terms = new long[Math.max(16, count * 4)];
+        int termCount = 0;
+        int slot = 0;
+        for (Product product : products) {
+            ids[slot] = product.id();
+            names[slot] = product.name() == null ? "" : product.name();
+            brands[slot] = product.brand() == null ? null : sharedBrands.computeIfAbsent(product.brand(), brand -> brand);
+            normalizedNames[slot] = SuggestText.normalize(names[slot]);
+            normalizedBrands[slot] = brands[slot] == null ? ""
+                    : sharedNormalizedBrands.computeIfAbsent(brands[slot], SuggestText::normalize);
+            scores[slot] = product.score();
+            for (int field = 0; field < 2; field++) {
+                String text = field == 0 ? normalizedNames[slot] : normalizedBrands[slot];
+                for (int start = 0; start >= 0 && start < text.length() && start <= MAX_OFFSET; start = SuggestText.nextWord(text, start)) {
+                    if (termCount == terms.length) {
+                        terms = Arrays.copyOf(terms, terms.length * 2);
+                    }
+                    terms[termCount++] = ((long) slot << SLOT_SHIFT) | (field == 0 ? 0 : FIELD_BRAND) | start;
+                }
+            }
+            slot++;
+        }
+        SuggestIndex unsorted = new SuggestIndex(ids, names, brands, normalizedNames, normalizedBrands, scores, new long[0]);
+        long[] sorted = Arrays.copyOf(terms, termCount);
+        unsorted.sort(sorted);
+        return new SuggestIndex(ids, names, brands, normalizedNames, normalizedBrands, scores, sorted);
+    }
+
+    /**
+     * @param prefix normalized prefix, see {@link SuggestText#normalize(String)}.
+     * @param excluded ids of products whose indexed version is out of date.
+     * @return the best scored products with a name or brand word starting with the prefix, best first.
+     */
+    List<Product> top(String prefix, int limit, LongPredicate excluded) {
+        List<Product> result = new ArrayList<>(limit);
+        int from = bound(prefix, false);
+        int to = bound(prefix, true);
+        if (from >= to || limit <= 0) {
+            return result;
+        }
+        // Nodes ordered by best score, ties by position; encoded as score << 32 | node
+        PriorityQueue<Long> nodes = new PriorityQueue<>((a, b) -> Long.compare(b, a));
+        for (int left = from + leafOffset, right = to + leafOffset; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                nodes.add(key(left++));
+            }
+            if ((right & 1) == 1) {
+                nodes.add(key(--right));
+            }
+        }
+        Set<Integer> seen = new HashSet<>();
+        while (!nodes.isEmpty() && result.size() < limit) {
+            int node = (int) (long) nodes.poll();
+            if (node >= leafOffset) {
+                int slot = slot(terms[node - leafOffset]);
+                if (!excluded.test(ids[slot]) && seen.add(slot)) {
+                    result.add(product(slot));
+                }
+            } else {
+                nodes.add(key(2 * node));
+                nodes.add(key(2 * node + 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the indexed products except the excluded ones, to build the next index from.
+     */
+    List<Product> products(LongPredicate excluded) {
+        List<Product> products = new ArrayList<>(ids.length);
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (!excluded.test(ids[slot])) {
+                products.add(product(slot));
+            }
+        }
+        return products;
+    }
+
+    int productCount() {
+        return ids.length;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    private Product product(int slot) {
+        return new Product(ids[slot], names[slot], brands[slot], scores[slot]);
+    }
+
+    private long key(int node) {
+        return ((long) tree[node] << 32) | node;
+    }
+
+    /**
+     * @param after false for the first term at or after the prefix, true for the first one past all terms starting with it.
+     */
+    private int bound(String prefix, boolean after) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareToPrefix(terms[middle], prefix);
+            if (comparison < 0 || (after && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return zero when the term starts with the prefix, otherwise the order of the term relative to the prefix.
+     */
+    private int compareToPrefix(long term, String prefix) {
+        String text = text(term);
+        int offset = offset(term);
+        int length = Math.min(text.length() - offset, prefix.length());
+        for (int i = 0; i < length; i++) {
+            int difference = text.charAt(offset + i) - prefix.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return text.length() - offset >= prefix.length() ? 0 : -1;
+    }
+
+    private int compareTerms(long a, long b) {
+        String textA = text(a);
+        String textB = text(b);
+        int offsetA = offset(a);
+        int offsetB = offset(b);
+        int lengthA = textA.length() - offsetA;
+        int lengthB = textB.length() - offsetB;
+        int length = Math.min(lengthA, lengthB);
+        for (int i = 0; i < length; i++) {
+            int difference = textA.charAt(offsetA + i) - textB.charAt(offsetB + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    /**
+     * Bottom-up merge sort by term text; primitive arrays have no comparator-based sort.
+     */
+    private void sort(long[] values) {
+        long[] source = values;
+        long[] target = new long[values.length];
+        for (int width = 1; width < values.length; width *= 2) {
+            for (int start = 0; start < values.length; start += 2 * width) {
+                int middle = Math.min(start + width, values.length);
+                int end = Math.min(start + 2 * width, values.length);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    target[i] = right >= end || (left < middle && compareTerms(source[left], source[right]) <= 0)
+                            ? source[left++]
+                            : source[right++];
+                }
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != values) {
+            System.arraycopy(source, 0, values, 0, values.length);
+        }
+    }
+
+    private String text(long term) {
+        return (term & FIELD_BRAND) == 0 ? normalizedNames[slot(term)] : normalizedBrands[slot(term)];
+    }
+
+    private static int slot(long term) {
+        return (int) (term >>> SLOT_SHIFT);
+    }
+
+    private static int offset(long term) {
+        return (int) (term & MAX_OFFSET);
+    }
+}
@@ -0,0 +1,52 @@
+package com.keola.microservice.product.suggest;
+
+import org.springframework.lang.Nullable;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization shared by indexed text and typed prefixes, so that matching ignores case and accents:
+ * "Cafetera Única" and "cafetera unica" normalize to the same text, and so do "Ñandú" and "nandu".
+ */
+public final class SuggestText {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SuggestText() {
+    }
+
+    /**
+     * @return the text without accents, lower-cased, with runs of punctuation and spaces turned into one space.
+     */
+    public static String normalize(@Nullable String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String plain = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(plain).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return whether a word of the normalized text starts with the normalized prefix.
+     */
+    static boolean matches(String normalized, String prefix) {
+        for (int start = 0; start >= 0 && start < normalized.length(); start = nextWord(normalized, start)) {
+            if (normalized.startsWith(prefix, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the offset of the word following the one at {@code start}, or -1 if it is the last one.
+     */
+    static int nextWord(String normalized, int start) {
+        int space = normalized.indexOf(' ', start);
+        return space < 0 ? -1 : space + 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.keola.microservice.product.timing;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RequestTimings accumulates the time one request spends in each stage.
+ * It travels in the Reactor context under {@link #CONTEXT_KEY} only for requests that are timed,
+ * so untimed requests pay a single context lookup per instrumented call.
+ */
+public class RequestTimings {
+
+    public static final Class<RequestTimings> CONTEXT_KEY = RequestTimings.class;
+
+    public enum Stage {
+        DB("db", "Database"),
+        MAPPING("mapping", "Entity to DTO mapping"),
+        SERIALIZATION("ser", "Response serialization");
+
+        private final String metricName;
+        private final String description;
+
+        Stage(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private final long startedAt = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+
+    public void add(Stage stage, long elapsedNanos) {
+        nanos.addAndGet(stage.ordinal(), elapsedNanos);
+    }
+
+    public long get(Stage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    public long elapsed() {
+        return System.nanoTime() - startedAt;
+    }
+
+    /**
+     * @return the value of the Server-Timing header, e.g. {@code db;desc="Database";dur=1.250, total;dur=2.000}.
+     */
+    public String toHeaderValue() {
+        StringBuilder header = new StringBuilder(128);
+        for (Stage stage : Stage.values()) {
+            header.append(stage.metricName)
+                    .append(";desc=\"").append(stage.description).append('"')
+                    .append(";dur=").append(millis(get(stage)))
+                    .append(", ");
+        }
+        return header.append("total;dur=").append(millis(elapsed())).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
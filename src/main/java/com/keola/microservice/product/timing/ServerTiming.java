@@ -0,0 +1,74 @@
+package com.keola.microservice.product.timing;
+
+import com.keola.microservice.product.timing.RequestTimings.Stage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Operators that record stage durations into the {@link RequestTimings} of the current request.
+ * When the request is not timed the publisher is returned unchanged.
+ */
+public final class ServerTiming {
+
+    private ServerTiming() {
+    }
+
+    /**
+     * Records the time from subscription until the Mono terminates.
+     */
+    public static <T> Mono<T> timed(Stage stage, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            RequestTimings timings = context.getOrDefault(RequestTimings.CONTEXT_KEY, null);
+            if (timings == null) {
+                return source;
+            }
+            long startedAt = System.nanoTime();
+            return source.doFinally(signal -> timings.add(stage, System.nanoTime() - startedAt));
+        });
+    }
+
+    /**
+     * Records the time from subscription until the Flux terminates, including time waiting for demand.
+     */
+    public static <T> Flux<T> timed(Stage stage, Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            RequestTimings timings = context.getOrDefault(RequestTimings.CONTEXT_KEY, null);
+            if (timings == null) {
+                return source;
+            }
+            long startedAt = System.nanoTime();
+            return source.doFinally(signal -> timings.add(stage, System.nanoTime() - startedAt));
+        });
+    }
+
+    /**
+     * A {@code map} whose mapper time is recorded, for use with {@link Mono#transform}.
+     */
+    public static <T, R> Function<Mono<T>, Mono<R>> mapMono(Stage stage, Function<T, R> mapper) {
+        return source -> source.transformDeferredContextual((mono, context) -> {
+            RequestTimings timings = context.getOrDefault(RequestTimings.CONTEXT_KEY, null);
+            return timings == null ? mono.map(mapper) : mono.map(timedMapper(stage, mapper, timings));
+        });
+    }
+
+    /**
+     * A {@code map} whose mapper time is recorded, for use with {@link Flux#transform}.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> mapFlux(Stage stage, Function<T, R> mapper) {
+        return source -> source.transformDeferredContextual((flux, context) -> {
+            RequestTimings timings = context.getOrDefault(RequestTimings.CONTEXT_KEY, null);
+            return timings == null ? flux.map(mapper) : flux.map(timedMapper(stage, mapper, timings));
+        });
+    }
+
+    private static <T, R> Function<T, R> timedMapper(Stage stage, Function<T, R> mapper, RequestTimings timings) {
+        return value -> {
+            long startedAt = System.nanoTime();
+            R result = mapper.apply(value);
+            timings.add(stage, System.nanoTime() - startedAt);
+            return result;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.keola.microservice.product.timing;
+
+import com.keola.microservice.product.timing.RequestTimings.Stage;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder decorator that records serialization time into the {@link RequestTimings} of timed requests.
+ * Encoders turn each value into a buffer synchronously, so the time between a value entering the
+ * delegate and the matching buffer leaving it is the serialization time of that value.
+ */
+public class ServerTimingEncoder<T> implements HttpMessageEncoder<T> {
+
+    private final Encoder<T> delegate;
+
+    public ServerTimingEncoder(Encoder<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends T> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return Flux.deferContextual(context -> {
+            RequestTimings timings = context.getOrDefault(RequestTimings.CONTEXT_KEY, null);
+            if (timings == null) {
+                return delegate.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            long[] valueReceivedAt = new long[1];
+            // Keep Mono inputs as Mono, encoders write them as a single value instead of an array
+            Publisher<? extends T> timedInput = inputStream instanceof Mono<? extends T> mono
+                    ? mono.doOnNext(value -> valueReceivedAt[0] = System.nanoTime())
+                    : Flux.from(inputStream).doOnNext(value -> valueReceivedAt[0] = System.nanoTime());
+            return delegate.encode(timedInput, bufferFactory, elementType, mimeType, hints)
+                    .doOnNext(buffer -> {
+                        if (valueReceivedAt[0] != 0) {
+                            timings.add(Stage.SERIALIZATION, System.nanoTime() - valueReceivedAt[0]);
+                            valueReceivedAt[0] = 0;
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(T value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return delegate.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return delegate.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes(ResolvableType elementType) {
+        return delegate.getEncodableMimeTypes(elementType);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate instanceof HttpMessageEncoder<T> httpEncoder ? httpEncoder.getStreamingMediaTypes() : List.of();
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType, @Nullable MediaType mediaType,
+                                              ServerHttpRequest request, ServerHttpResponse response) {
+        return delegate instanceof HttpMessageEncoder<T> httpEncoder
+                ? httpEncoder.getEncodeHints(actualType, elementType, mediaType, request, response)
+                : Map.of();
+    }
+}
@@ -17,6 +17,32 @@ CREATE TABLE IF NOT EXISTS tbl_product (
 CREATE INDEX IF NOT EXISTS idx_product_name ON tbl_product(name);
 CREATE INDEX IF NOT EXISTS idx_product_category ON tbl_product(category);
 CREATE INDEX IF NOT EXISTS idx_product_status ON tbl_product(status);
+
+-- Respuestas guardadas por Idempotency-Key (se conservan hasta expires_at)
+CREATE TABLE IF NOT EXISTS tbl_idempotency_key (
+                                                   idempotency_key VARCHAR(300) PRIMARY KEY,  -- Ámbito de la operación + clave enviada por el cliente
+                                                   request_hash CHAR(64) NOT NULL,  -- SHA-256 del cuerpo de la petición original
+                                                   status_code SMALLINT,  -- NULL mientras la petición original sigue en curso
+                                                   response_body TEXT,  -- Cuerpo JSON de la primera respuesta
+                                                   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                                   expires_at TIMESTAMPTZ NOT NULL  -- Con zona horaria: se compara con instantes de la aplicación
+);
+-- Tablas creadas antes con TIMESTAMP; sin efecto una vez convertida la columna
+ALTER TABLE tbl_idempotency_key ALTER COLUMN expires_at TYPE TIMESTAMPTZ;
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires_at ON tbl_idempotency_key(expires_at);
+-- Historial de cambios de precio y stock, escrito en lotes fuera de la ruta de las peticiones
+CREATE TABLE IF NOT EXISTS tbl_product_history (
+                                                   id BIGSERIAL PRIMARY KEY,
+                                                   product_id INTEGER NOT NULL,  -- Sin clave foránea: el historial se conserva al borrar el producto
+                                                   changed_at TIMESTAMPTZ NOT NULL,  -- Momento en que se registró el cambio confirmado, con zona horaria
+                                                   old_price DECIMAL(10, 2),  -- NULL para productos recién creados
+                                                   new_price DECIMAL(10, 2) NOT NULL,
+                                                   old_quantity INT,  -- NULL para productos recién creados
+                                                   new_quantity INT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_product_history_product_changed_at ON tbl_product_history(product_id, changed_at);
+-- Tablas creadas antes con TIMESTAMP; sin efecto una vez convertida la columna
+ALTER TABLE tbl_product_history ALTER COLUMN changed_at TYPE TIMESTAMPTZ;
 INSERT INTO tbl_product (name, description, price, quantity, category, image_url, brand, status) VALUES
                                                                                                      ('Wireless Mouse', 'Ergonomic wireless mouse with adjustable DPI.', 19.99, 50, 'Electronics', 'https://example.com/images/mouse.jpg', 'Logitech', 'Available'),
                                                                                                      ('Gaming Keyboard', 'Mechanical keyboard with RGB lighting.', 89.99, 30, 'Electronics', 'https://example.com/images/keyboard.jpg', 'Corsair', 'Available'),
@@ -0,0 +1,65 @@
+package com.keola.microservice.product.bulkimport;
+
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.dto.CreateProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for ProductImportFormat.
+ * It verifies CSV parsing and the escaping of rows sent to COPY.
+ */
+public class ProductImportFormatTest {
+
+    /**
+     * Test case verifying that quoted fields keep commas, doubled quotes and line breaks.
+     */
+    @Test
+    void testParseCsvQuotedFields() {
+        List<String> fields = ProductImportFormat.parseCsv("Mouse,\"Small, \"\"wireless\"\"\nmouse\",19.99");
+
+        assertEquals(List.of("Mouse", "Small, \"wireless\"\nmouse", "19.99"), fields);
+        assertTrue(ProductImportFormat.togglesQuote("Mouse,\"Small, wireless"));
+        assertFalse(ProductImportFormat.togglesQuote("Mouse,\"Small, \"\"wireless\"\"\""));
+    }
+
+    /**
+     * Test case verifying that header columns are matched by name and conversion errors are collected.
+     */
+    @Test
+    void testFromCsv() {
+        Map<String, Integer> header = ProductImportFormat.csvHeader("status,Name,price,quantity,image_url");
+        List<String> errors = new ArrayList<>();
+
+        CreateProductDTO product = ProductImportFormat.fromCsv(header, "activo,Mouse,19.99,ten,http://example.com/m.jpg", errors);
+
+        assertEquals("Mouse", product.getName());
+        assertEquals(new BigDecimal("19.99"), product.getPrice());
+        assertEquals(StateProduct.activo, product.getStatus());
+        assertEquals("http://example.com/m.jpg", product.getImageUrl());
+        assertEquals(List.of("Quantity must be an integer"), errors);
+    }
+
+    /**
+     * Test case verifying that COPY rows escape control characters and encode nulls.
+     */
+    @Test
+    void testToCopyRow() {
+        CreateProductDTO product = new CreateProductDTO();
+        product.setName("Tab\there");
+        product.setDescription("Line\nbreak \\ slash");
+        product.setPrice(new BigDecimal("1E+1"));
+        product.setQuantity(5);
+        product.setStatus(StateProduct.activo);
+
+        String row = ProductImportFormat.toCopyRow(7, product);
+
+        assertEquals("7\tTab\\there\tLine\\nbreak \\\\ slash\t10\t5\t\\N\t\\N\t\\N\tactivo\n", row);
+    }
+}
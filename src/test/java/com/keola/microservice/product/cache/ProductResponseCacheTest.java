@@ -0,0 +1,190 @@
+package com.keola.microservice.product.cache;
+
+import com.keola.microservice.product.cache.ProductResponseCache.Lookup;
+import com.keola.microservice.product.cache.ProductResponseCache.Result;
+import com.keola.microservice.product.config.PopularityProperties;
+import com.keola.microservice.product.config.ResponseCacheProperties;
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.popularity.ProductPopularity;
+import com.keola.microservice.product.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductResponseCacheTest {
+
+    private ProductService productService;
+    private CatalogVersion catalogVersion;
+    private ResponseCacheProperties properties;
+    private MutableClock clock;
+    private ProductPopularity productPopularity;
+    private ProductResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        catalogVersion = new CatalogVersion();
+        properties = new ResponseCacheProperties();
+        properties.setStaleWhileRevalidate(Duration.ofSeconds(2));
+        clock = new MutableClock();
+        productPopularity = new ProductPopularity(new PopularityProperties(), new SimpleMeterRegistry());
+        cache = new ProductResponseCache(productService, catalogVersion, properties, productPopularity, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void testRepeatedRequestIsServedFromCache() {
+        when(productService.getProducts(null, StateProduct.activo)).thenReturn(Flux.just(product(1L, "Lamp")));
+
+        Lookup first = cache.get(null, StateProduct.activo).block();
+        Lookup second = cache.get(null, StateProduct.activo).block();
+
+        assertEquals(Result.MISS, first.result());
+        assertEquals(Result.HIT, second.result());
+        assertSame(first.response(), second.response());
+        assertTrue(body(second).startsWith("[{\"id\":1,\"name\":\"Lamp\""));
+        verify(productService, times(1)).getProducts(null, StateProduct.activo);
+        assertEquals(0, productPopularity.estimate(1L)); // Hits are counted in the background
+        cache.flushViews();
+        assertEquals(1, productPopularity.estimate(1L)); // The hit; the load is counted by the mocked service
+    }
+
+    @Test
+    void testHitsAreCountedAsOneWeightedViewPerProduct() {
+        when(productService.getProducts(null, null)).thenReturn(Flux.just(product(1L, "Lamp"), product(2L, "Desk")));
+        cache.get(null, null).block();
+
+        for (int i = 0; i < 5; i++) {
+            cache.get(null, null).block();
+        }
+        catalogVersion.onProductChanged(ProductChangedEvent.bulk());
+        assertEquals(Result.STALE, cache.get(null, null).block().result()); // The replaced entry's hits still count
+        cache.flushViews();
+        cache.flushViews();
+
+        assertEquals(6, productPopularity.estimate(1L));
+        assertEquals(6, productPopularity.estimate(2L));
+    }
+
+    @Test
+    void testChangedCatalogIsServedStaleWhileRefreshing() {
+        when(productService.getProducts("Lighting", null))
+                .thenReturn(Flux.just(product(1L, "Lamp")))
+                .thenReturn(Flux.just(product(1L, "Desk lamp")));
+        cache.get("Lighting", null).block();
+
+        catalogVersion.onProductChanged(ProductChangedEvent.bulk());
+        Lookup stale = cache.get("Lighting", null).block();
+        Lookup refreshed = cache.get("Lighting", null).block();
+
+        assertEquals(Result.STALE, stale.result());
+        assertTrue(body(stale).contains("\"Lamp\""));
+        assertEquals(Result.HIT, refreshed.result());
+        assertTrue(body(refreshed).contains("\"Desk lamp\""));
+    }
+
+    @Test
+    void testStaleEntryIsReloadedOnceTheWindowIsOver() {
+        when(productService.getProducts("Lighting", null))
+                .thenReturn(Flux.just(product(1L, "Lamp")))
+                .thenReturn(Flux.error(new IllegalStateException("refresh failed")))
+                .thenReturn(Flux.just(product(1L, "Desk lamp")));
+        cache.get("Lighting", null).block();
+
+        catalogVersion.onProductChanged(ProductChangedEvent.bulk());
+        assertEquals(Result.STALE, cache.get("Lighting", null).block().result());
+        clock.advance(Duration.ofSeconds(3));
+        Lookup reloaded = cache.get("Lighting", null).block();
+
+        assertEquals(Result.MISS, reloaded.result());
+        assertTrue(body(reloaded).contains("\"Desk lamp\""));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() {
+        properties.setMaxEntries(2);
+        when(productService.getProducts(anyString(), isNull())).thenAnswer(invocation -> Flux.just(product(1L, invocation.getArgument(0))));
+
+        cache.get("A", null).block();
+        cache.get("B", null).block();
+        cache.get("A", null).block();
+        cache.get("C", null).block();
+
+        assertEquals(2, cache.entryCount());
+        assertEquals(Result.HIT, cache.get("A", null).block().result());
+        assertEquals(Result.MISS, cache.get("B", null).block().result());
+    }
+
+    @Test
+    void testLargeResponsesGetAGzipVariant() {
+        properties.setGzipMinSize(DataSize.ofBytes(256));
+        when(productService.getProducts(null, null)).thenReturn(Flux.range(1, 20).map(i -> product((long) i, "Lamp " + i)));
+
+        CachedResponse response = cache.get(null, null).block().response();
+
+        assertNotNull(response.getGzipBody());
+        assertTrue(response.getGzipBody().length < response.getBody().length);
+        assertEquals(response.size(), cache.size());
+    }
+
+    @Test
+    void testOversizedListingIsBypassedUntilTheCatalogChanges() {
+        properties.setMaxEntrySize(DataSize.ofBytes(512));
+        when(productService.getProducts(null, null)).thenAnswer(invocation -> Flux.range(1, 20).map(i -> product((long) i, "Lamp " + i)));
+
+        assertEquals(Result.BYPASS, cache.get(null, null).block().result());
+        assertEquals(Result.BYPASS, cache.get(null, null).block().result());
+        verify(productService, times(1)).getProducts(null, null); // Known to be too large: not loaded again
+        assertEquals(0, cache.entryCount());
+
+        catalogVersion.onProductChanged(ProductChangedEvent.bulk());
+        assertEquals(Result.BYPASS, cache.get(null, null).block().result());
+        verify(productService, times(2)).getProducts(null, null);
+    }
+
+    private static ReadProductDTO product(Long id, String name) {
+        return new ReadProductDTO(id, name, "Description", new BigDecimal("10.00"), 5, "Lighting", null, "activo");
+    }
+
+    private static String body(Lookup lookup) {
+        return new String(lookup.response().getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.keola.microservice.product.codec;
+
+import com.keola.microservice.product.dto.ReadProductDTO;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for ReadProductDTOEncoder.
+ * It verifies that the output is byte-for-byte the one of the default Jackson encoder.
+ */
+public class ReadProductDTOEncoderTest {
+
+    private static final ResolvableType TYPE = ResolvableType.forClass(ReadProductDTO.class);
+
+    private final ReadProductDTOEncoder encoder = new ReadProductDTOEncoder();
+    private final Jackson2JsonEncoder jackson = new Jackson2JsonEncoder();
+
+    /**
+     * Test case covering escapes, non-ASCII text, nulls and prices in scientific notation.
+     */
+    @Test
+    void testSingleValueMatchesJackson() {
+        ReadProductDTO product = new ReadProductDTO(-42L, "Café \"Tab\"\t\\ \uD83D\uDE00", "Line\nbreak\r\u0001\u001f\b\f/ ",
+                new BigDecimal("1E+3"), 7, null, "https://example.com/a.jpg", "activo");
+
+        assertSameAsJackson(Mono.just(product), MediaType.APPLICATION_JSON);
+        assertSameAsJackson(Mono.just(new ReadProductDTO()), MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Test case covering JSON arrays, including empty ones, and newline-delimited streams.
+     */
+    @Test
+    void testStreamsMatchJackson() {
+        ReadProductDTO first = new ReadProductDTO(1L, "Mouse", "Wireless mouse", new BigDecimal("19.99"), 50, "Electronics", "https://example.com/m.jpg", "activo");
+        ReadProductDTO second = new ReadProductDTO(Long.MAX_VALUE, "Chair", null, new BigDecimal("0.10"), 0, "Furniture", null, null);
+
+        assertSameAsJackson(Flux.just(first, second), MediaType.APPLICATION_JSON);
+        assertSameAsJackson(Flux.empty(), MediaType.APPLICATION_JSON);
+        assertSameAsJackson(Flux.just(first, second), MediaType.APPLICATION_NDJSON);
+    }
+
+    /**
+     * Test case verifying that other types and charsets are left to Jackson.
+     */
+    @Test
+    void testCanEncode() {
+        assertTrue(encoder.canEncode(TYPE, MediaType.APPLICATION_JSON));
+        assertTrue(encoder.canEncode(TYPE, null));
+        assertFalse(encoder.canEncode(ResolvableType.forClass(String.class), MediaType.APPLICATION_JSON));
+        assertFalse(encoder.canEncode(TYPE, new MimeType("application", "json", StandardCharsets.UTF_16)));
+        assertFalse(encoder.canEncode(TYPE, MediaType.TEXT_XML));
+    }
+
+    private void assertSameAsJackson(Publisher<ReadProductDTO> input, MimeType mimeType) {
+        byte[] expected = join(jackson.encode(input, DefaultDataBufferFactory.sharedInstance, TYPE, mimeType, Collections.emptyMap()));
+        byte[] actual = join(encoder.encode(input, DefaultDataBufferFactory.sharedInstance, TYPE, mimeType, Collections.emptyMap()));
+        assertArrayEquals(expected, actual, () -> new String(expected, StandardCharsets.UTF_8) + " != " + new String(actual, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] join(Flux<DataBuffer> buffers) {
+        DataBuffer joined = DataBufferUtils.join(buffers).block();
+        assertNotNull(joined);
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.keola.microservice.product.event;
+
+import com.keola.microservice.product.config.RSocketProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductChangeStreamTest {
+
+    private RSocketProperties properties;
+    private ProductChangeStream productChangeStream;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RSocketProperties();
+        productChangeStream = new ProductChangeStream(properties);
+    }
+
+    @Test
+    void testSubscribersOnlyGetChangesPublishedAfterSubscribing() {
+        productChangeStream.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        StepVerifier.create(productChangeStream.changes())
+                .then(() -> productChangeStream.onProductChanged(ProductChangedEvent.deleted(2L)))
+                .assertNext(change -> assertEquals(2L, change.getProductId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testOnlyTheSlowSubscriberLosesTheOldestChanges() {
+        properties.setChangeBufferSize(2);
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        Disposable fastSubscription = productChangeStream.changes().subscribe(change -> fast.add(change.getProductId()));
+
+        // The slow subscriber requests nothing until all the changes are published
+        StepVerifier.create(productChangeStream.changes(), 0)
+                .then(() -> {
+                    for (long id = 1; id <= 5; id++) {
+                        productChangeStream.onProductChanged(ProductChangedEvent.deleted(id));
+                    }
+                })
+                .thenRequest(5)
+                .assertNext(change -> assertEquals(4L, change.getProductId()))
+                .assertNext(change -> assertEquals(5L, change.getProductId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), fast);
+        fastSubscription.dispose();
+    }
+}
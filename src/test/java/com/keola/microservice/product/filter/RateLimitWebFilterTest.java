@@ -0,0 +1,104 @@
+package com.keola.microservice.product.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.config.RateLimitProperties;
+import com.keola.microservice.product.config.RateLimitProperties.TierLimits;
+import com.keola.microservice.product.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for RateLimitWebFilter.
+ * It verifies the 429 response and that only API keys assigned to a tier get their own bucket.
+ */
+public class RateLimitWebFilterTest {
+
+    private RateLimitWebFilter filter;
+
+    /**
+     * Set up method with a "standard" tier allowing 2 reads and a "partner" tier allowing 5.
+     */
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setTiers(new HashMap<>(Map.of(
+                "standard", new TierLimits(0.001, 2, 0.001, 1),
+                "partner", new TierLimits(0.001, 5, 0.001, 1))));
+        properties.setClients(new HashMap<>(Map.of("partner-key", "partner")));
+        filter = new RateLimitWebFilter(new TokenBucketRateLimiter(properties, new SimpleMeterRegistry()), properties,
+                new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Test case verifying that an anonymous client gets 429 with Retry-After once its burst is spent.
+     */
+    @Test
+    void testAnonymousClientIsRejectedWithRetryAfter() {
+        assertEquals(HttpStatus.OK, get("10.0.0.1", null).getResponse().getStatusCode());
+        assertEquals(HttpStatus.OK, get("10.0.0.1", null).getResponse().getStatusCode());
+
+        MockServerWebExchange rejected = get("10.0.0.1", null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertTrue(Long.parseLong(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)) >= 1);
+        assertEquals(HttpStatus.OK, get("10.0.0.2", null).getResponse().getStatusCode());
+    }
+
+    /**
+     * Test case verifying that unknown API keys share the caller's IP bucket, so rotating keys does not help.
+     */
+    @Test
+    void testUnknownApiKeysAreChargedToTheIpBucket() {
+        assertEquals(HttpStatus.OK, get("10.0.0.1", "random-1").getResponse().getStatusCode());
+        assertEquals(HttpStatus.OK, get("10.0.0.1", "random-2").getResponse().getStatusCode());
+
+        MockServerWebExchange rejected = get("10.0.0.1", "random-3");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertNotNull(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("10.0.0.1", null).getResponse().getStatusCode());
+    }
+
+    /**
+     * Test case verifying that a known API key has its own bucket with its tier's limits, whatever its IP.
+     */
+    @Test
+    void testKnownApiKeyUsesItsTierBucket() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.OK, get("10.0.0." + i, "partner-key").getResponse().getStatusCode());
+        }
+
+        MockServerWebExchange rejected = get("10.0.0.9", "partner-key");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertNotNull(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK, get("10.0.0.9", null).getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange get(String address, String apiKey) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(api_v1 + "products")
+                .remoteAddress(new InetSocketAddress(address, 40000));
+        if (apiKey != null) {
+            request.header("X-API-Key", apiKey);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chained -> {
+            chained.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        }).block();
+        return exchange;
+    }
+}
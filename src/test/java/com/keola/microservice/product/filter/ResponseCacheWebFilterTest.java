@@ -0,0 +1,41 @@
+package com.keola.microservice.product.filter;
+
+import com.keola.microservice.product.cache.ProductResponseCache;
+import com.keola.microservice.product.config.ResponseCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.keola.microservice.product.rest.common.ApiVersion.api_v1;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test class for ResponseCacheWebFilter.
+ * It verifies that requests the cache cannot answer reach the controller.
+ */
+public class ResponseCacheWebFilterTest {
+
+    /**
+     * Test case verifying that a failed load is left to the controller and its exception handler.
+     */
+    @Test
+    void testFailedLoadIsPassedOnToTheController() {
+        ProductResponseCache responseCache = mock(ProductResponseCache.class);
+        when(responseCache.get(null, null)).thenReturn(Mono.error(new IllegalStateException("database down")));
+        ResponseCacheWebFilter filter = new ResponseCacheWebFilter(responseCache, new ResponseCacheProperties());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(api_v1 + "products").build());
+        AtomicBoolean passedOn = new AtomicBoolean();
+
+        filter.filter(exchange, chained -> {
+            passedOn.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertTrue(passedOn.get());
+        assertEquals("BYPASS", exchange.getResponse().getHeaders().getFirst(ResponseCacheWebFilter.CACHE_HEADER));
+    }
+}
@@ -0,0 +1,136 @@
+package com.keola.microservice.product.history;
+
+import com.keola.microservice.product.config.HistoryProperties;
+import com.keola.microservice.product.config.HistoryProperties.Overflow;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import com.keola.microservice.product.repo.ProductHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ProductHistoryWriterTest {
+
+    private ProductHistoryRepository repository;
+    private HistoryProperties properties;
+    private List<List<ProductHistoryEntry>> batches;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProductHistoryRepository.class);
+        properties = new HistoryProperties();
+        properties.setBatchSize(3);
+        properties.setQueueCapacity(5);
+        properties.setFlushInterval(Duration.ofHours(1)); // Flushed by the tests only
+        batches = new ArrayList<>();
+        when(repository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<ProductHistoryEntry> batch = invocation.getArgument(0);
+            batches.add(List.copyOf(batch));
+            return Mono.just((long) batch.size());
+        });
+    }
+
+    @Test
+    void testOnlyPriceAndStockChangesAreRecorded() {
+        ProductHistoryWriter writer = new ProductHistoryWriter(repository, properties, new SimpleMeterRegistry());
+
+        writer.onProductChanged(ProductChangedEvent.created(product("10.00", 5)));
+        writer.onProductChanged(ProductChangedEvent.updated(product("10.00", 5), product("10.0", 5))); // Same price and quantity
+        writer.onProductChanged(ProductChangedEvent.updated(product("10.00", 5), product("12.50", 5)));
+        writer.onProductChanged(ProductChangedEvent.deleted(1L));
+        writer.flush().block();
+
+        List<ProductHistoryEntry> written = batches.stream().flatMap(List::stream).toList();
+        assertEquals(2, written.size());
+        assertNull(written.get(0).getOldPrice());
+        assertEquals(new BigDecimal("10.00"), written.get(1).getOldPrice());
+        assertEquals(new BigDecimal("12.50"), written.get(1).getNewPrice());
+    }
+
+    @Test
+    void testFullBatchesAreWrittenWithoutWaitingAndTheRestOnShutdown() {
+        ProductHistoryWriter writer = new ProductHistoryWriter(repository, properties, new SimpleMeterRegistry());
+        writer.start();
+
+        for (int i = 0; i < 4; i++) {
+            writer.record(entry(i));
+        }
+        assertEquals(List.of(3), batches.stream().map(List::size).toList());
+
+        writer.stop();
+        assertEquals(List.of(3, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    void testFailedBatchIsRetriedInOrder() {
+        when(repository.insertAll(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<?>>getArgument(0).size()));
+        properties.setBatchSize(10);
+        ProductHistoryWriter writer = new ProductHistoryWriter(repository, properties, new SimpleMeterRegistry());
+        writer.record(entry(1));
+        writer.record(entry(2));
+
+        writer.flush().block();
+        writer.flush().block();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductHistoryEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).insertAll(captor.capture());
+        assertEquals(List.of(1L, 2L), captor.getValue().stream().map(ProductHistoryEntry::getProductId).toList());
+    }
+
+    @Test
+    void testFullQueueDropsTheOldestEntry() {
+        properties.setBatchSize(10);
+        properties.setOverflow(Overflow.DROP_OLDEST);
+        ProductHistoryWriter writer = new ProductHistoryWriter(repository, properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 7; i++) {
+            writer.record(entry(i));
+        }
+        writer.flush().block();
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), batches.get(0).stream().map(ProductHistoryEntry::getProductId).toList());
+    }
+
+    @Test
+    void testWriteThroughIsBoundedAndAwaitedOnShutdown() {
+        properties.setQueueCapacity(1);
+        properties.setWriteThroughConcurrency(2);
+        Sinks.Empty<Void> slowDatabase = Sinks.empty();
+        when(repository.insertAll(anyList())).thenReturn(slowDatabase.asMono().thenReturn(1L));
+        ProductHistoryWriter writer = new ProductHistoryWriter(repository, properties, new SimpleMeterRegistry());
+        writer.record(entry(1)); // Queued
+
+        for (int i = 2; i <= 5; i++) {
+            writer.record(entry(i));
+        }
+
+        verify(repository, times(2)).insertAll(anyList()); // Entries 4 and 5 are dropped
+        Mono.delay(Duration.ofMillis(200)).subscribe(tick -> slowDatabase.tryEmitEmpty());
+        writer.stop();
+        verify(repository, times(3)).insertAll(anyList()); // The queued entry, once the write-through inserts completed
+    }
+
+    private static ReadProductDTO product(String price, int quantity) {
+        return new ReadProductDTO(1L, "Lamp", null, new BigDecimal(price), quantity, "Lighting", null, "activo");
+    }
+
+    private static ProductHistoryEntry entry(long productId) {
+        return new ProductHistoryEntry(productId, null, null, BigDecimal.ONE, null, 1);
+    }
+}
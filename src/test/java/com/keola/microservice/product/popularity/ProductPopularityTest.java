@@ -0,0 +1,106 @@
+package com.keola.microservice.product.popularity;
+
+import com.keola.microservice.product.config.PopularityProperties;
+import com.keola.microservice.product.popularity.ProductPopularity.HotProduct;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductPopularityTest {
+
+    private PopularityProperties properties;
+    private MutableClock clock;
+    private ProductPopularity popularity;
+
+    @BeforeEach
+    void setUp(@TempDir Path directory) {
+        properties = new PopularityProperties();
+        properties.setTopK(10);
+        properties.setPath(directory.resolve("hot-products.csv"));
+        clock = new MutableClock();
+        popularity = new ProductPopularity(properties, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void testHeavyHittersStandOutFromTheLongTail() {
+        for (int round = 0; round < 50; round++) {
+            for (long id = 1; id <= 5; id++) {
+                popularity.recordView(id);
+            }
+            for (long id = 1_000 + round * 200L; id < 1_200 + round * 200L; id++) {
+                popularity.recordListView(id); // 10,000 products seen once each
+            }
+        }
+
+        List<Long> hottest = popularity.hottest(5).stream().map(HotProduct::id).toList();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), hottest.stream().sorted().toList());
+        assertTrue(popularity.hottest(5).stream().allMatch(product -> product.views() >= 200));
+        assertTrue(popularity.isHot(1L));
+        assertTrue(popularity.admit(1L, 1_000L));
+        assertFalse(popularity.admit(1_000L, 1L));
+    }
+
+    @Test
+    void testViewsAgeOutOfTheWindow() {
+        popularity.recordView(1L);
+        clock.advance(properties.getWindow().dividedBy(2));
+        popularity.recordView(2L);
+
+        assertEquals(4, popularity.estimate(1L));
+        clock.advance(properties.getWindow().dividedBy(2));
+        assertEquals(0, popularity.estimate(1L));
+        assertEquals(4, popularity.estimate(2L));
+    }
+
+    @Test
+    void testHottestProductsAreRestoredAfterARestart() {
+        for (int i = 0; i < 3; i++) {
+            popularity.recordView(7L);
+        }
+        popularity.recordView(8L);
+        popularity.save();
+
+        ProductPopularity restarted = new ProductPopularity(properties, new SimpleMeterRegistry(), clock);
+        restarted.restore();
+
+        assertEquals(List.of(7L, 8L), restarted.getRestoredIds());
+        assertEquals(12, restarted.estimate(7L));
+        assertEquals(7L, restarted.hottest(1).get(0).id());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
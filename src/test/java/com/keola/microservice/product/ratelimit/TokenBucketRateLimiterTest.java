@@ -0,0 +1,85 @@
+package com.keola.microservice.product.ratelimit;
+
+import com.keola.microservice.product.config.RateLimitProperties;
+import com.keola.microservice.product.config.RateLimitProperties.TierLimits;
+import com.keola.microservice.product.ratelimit.TokenBucketRateLimiter.Budget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for TokenBucketRateLimiter.
+ * It verifies burst handling, separate read/write budgets and runtime tier changes.
+ */
+public class TokenBucketRateLimiterTest {
+
+    private RateLimitProperties properties;
+    private TokenBucketRateLimiter rateLimiter;
+
+    /**
+     * Set up method that creates a limiter with a slow "standard" tier (burst of 3 reads, 1 write).
+     */
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setTiers(new HashMap<>(Map.of("standard", new TierLimits(0.001, 3, 0.001, 1))));
+        rateLimiter = new TokenBucketRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Test case verifying that the burst is allowed and the next request must wait.
+     */
+    @Test
+    void testBurstThenReject() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("10.0.0.1", false, Budget.READ));
+        }
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1", false, Budget.READ) > 0);
+
+        // Other clients and the write budget are not affected
+        assertEquals(0, rateLimiter.tryAcquire("10.0.0.2", false, Budget.READ));
+        assertEquals(0, rateLimiter.tryAcquire("10.0.0.1", false, Budget.WRITE));
+    }
+
+    /**
+     * Test case verifying that once the client limit is reached new anonymous clients share a bucket,
+     * while API keys with a tier assignment still get their own.
+     */
+    @Test
+    void testFullLimiterStillTracksAssignedApiKeys() {
+        properties.setStripes(1);
+        properties.setMaxClients(2);
+        properties.setClients(new HashMap<>(Map.of("partner-key", "standard")));
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(properties, new SimpleMeterRegistry());
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", false, Budget.WRITE));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", false, Budget.WRITE));
+
+        // A flood of new addresses spends the shared bucket
+        assertEquals(0, limiter.tryAcquire("10.0.0.3", false, Budget.WRITE));
+        assertTrue(limiter.tryAcquire("10.0.0.4", false, Budget.WRITE) > 0);
+
+        assertEquals(0, limiter.tryAcquire("partner-key", true, Budget.WRITE));
+        assertEquals(3, limiter.trackedClients());
+    }
+
+    /**
+     * Test case verifying that a client assigned to a new tier gets its limits on the next request.
+     */
+    @Test
+    void testTierChangeAppliesWithoutRestart() {
+        assertEquals(0, rateLimiter.tryAcquire("partner-key", true, Budget.WRITE));
+
+        rateLimiter.updateTier("partner", new TierLimits(1000, 100, 1000, 100));
+        rateLimiter.assignClient("partner-key", "partner");
+
+        // The standard tier would reject the fourth read; the partner tier allows a burst of 100
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("partner-key", true, Budget.READ));
+        }
+    }
+}
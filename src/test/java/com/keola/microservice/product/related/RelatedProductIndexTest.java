@@ -0,0 +1,48 @@
+package com.keola.microservice.product.related;
+
+import com.keola.microservice.product.related.RelatedProductIndex.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RelatedProductIndexTest {
+
+    private RelatedProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = RelatedProductIndex.build(List.of(
+                new Product(1, "Silla de oficina", "Muebles", "Acme", 10_000, true),
+                new Product(2, "Silla ergonómica", "Muebles", "Acme", 11_000, true),
+                new Product(3, "Mesa de oficina", "Muebles", "Norte", 10_500, true),
+                new Product(4, "Teclado", "Informática", "Acme", 9_000, true),
+                new Product(5, "Silla agotada", "Muebles", "Acme", 10_000, false),
+                new Product(6, "Sofá", "Muebles", "Norte", 90_000, true),
+                new Product(7, "Taburete", "Muebles", null, 9_900, true)), 3, 0.5, 64);
+    }
+
+    @Test
+    void testRelatedProductsShareCategoryOrBrandAtAClosePrice() {
+        // Same category and brand first; out of stock and far-priced products left out
+        assertArrayEquals(new long[]{2, 7, 3}, index.related(1));
+        assertArrayEquals(new long[]{1, 2, 7}, index.related(5));
+        assertArrayEquals(new long[0], index.related(6));
+        assertNull(index.related(99));
+    }
+
+    @Test
+    void testChangesUpdateTheListsOfNearbyProducts() {
+        index.put(new Product(8, "Silla gamer", "Muebles", "Acme", 10_100, true));
+        assertArrayEquals(new long[]{8, 2, 7}, index.related(1));
+
+        index.put(new Product(2, "Silla ergonómica", "Muebles", "Acme", 11_000, false));
+        assertArrayEquals(new long[]{8, 7, 3}, index.related(1));
+
+        index.remove(8);
+        assertArrayEquals(new long[]{7, 3, 4}, index.related(1));
+        assertNull(index.related(8));
+    }
+}
@@ -0,0 +1,72 @@
+package com.keola.microservice.product.related;
+
+import com.keola.microservice.product.config.RelatedProperties;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.models.RelatedProduct;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RelatedProductServiceTest {
+
+    private static final RelatedProductSource LAMP =
+            new RelatedProductSource(1L, "Lamp", "Lighting", "Acme", new BigDecimal("10.00"), 5, "activo");
+    private static final RelatedProductSource DESK_LAMP =
+            new RelatedProductSource(2L, "Desk lamp", "Lighting", "Acme", new BigDecimal("12.00"), 5, "activo");
+
+    private ProductReadRepository productReadRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RelatedProductService relatedProductService;
+
+    @BeforeEach
+    void setUp() {
+        productReadRepository = mock(ProductReadRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        relatedProductService = new RelatedProductService(productReadRepository, new RelatedProperties(), meterRegistry);
+    }
+
+    @Test
+    void testSingleReloadReadsTheTableOnce() {
+        when(productReadRepository.findAllRelatedSources()).thenReturn(Flux.just(LAMP, DESK_LAMP));
+
+        relatedProductService.reload().block();
+
+        verify(productReadRepository, times(1)).findAllRelatedSources();
+        assertEquals(List.of(2L), ids(relatedProductService.related(1L, null)));
+    }
+
+    @Test
+    void testBulkChangeDuringARebuildRunsItAgain() {
+        Sinks.Many<RelatedProductSource> firstRead = Sinks.many().unicast().onBackpressureBuffer();
+        when(productReadRepository.findAllRelatedSources())
+                .thenReturn(firstRead.asFlux())
+                .thenReturn(Flux.just(LAMP, DESK_LAMP));
+
+        relatedProductService.reload().subscribe();
+        relatedProductService.onProductChanged(ProductChangedEvent.bulk()); // Imported after the first read started
+        firstRead.tryEmitNext(LAMP);
+        firstRead.tryEmitComplete();
+
+        // The second rebuild runs in the background
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("product.related.products").gauge().value() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(2, meterRegistry.get("product.related.products").gauge().value());
+        assertEquals(List.of(2L), ids(relatedProductService.related(1L, null)));
+        verify(productReadRepository, times(2)).findAllRelatedSources();
+    }
+
+    private static List<Long> ids(List<RelatedProduct> related) {
+        return related.stream().map(RelatedProduct::getId).toList();
+    }
+}
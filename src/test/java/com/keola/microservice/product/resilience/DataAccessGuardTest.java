@@ -0,0 +1,137 @@
+package com.keola.microservice.product.resilience;
+
+import com.keola.microservice.product.config.DataAccessProperties;
+import com.keola.microservice.product.exception.DeadlineExceededException;
+import com.keola.microservice.product.exception.util.DatabaseAvailability;
+import com.keola.microservice.product.resilience.DataAccessGuard.Operation;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of DataAccessGuard against stubbed repository calls with injected latency.
+ */
+public class DataAccessGuardTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+    private static final Duration SLOW = Duration.ofSeconds(5);
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private DataAccessGuard guard;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        DataAccessProperties properties = new DataAccessProperties();
+        properties.setDefaultTimeout(TIMEOUT);
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.of("database", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .recordException(DatabaseAvailability::isUnavailable)
+                .ignoreExceptions(DeadlineExceededException.class)
+                .build());
+        guard = new DataAccessGuard(properties, circuitBreaker, meterRegistry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void testSlowCallTimesOut() {
+        StepVerifier.create(guard.guard(Operation.FIND_BY_ID, repositoryCall(SLOW)))
+                .expectError(QueryTimeoutException.class)
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(1, timeouts("find-by-id", "operation"));
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testClientDeadlineShortensTheTimeoutWithoutCountingAsFailure() {
+        DataAccessProperties properties = new DataAccessProperties();
+        properties.setDefaultTimeout(Duration.ofSeconds(3));
+        guard = new DataAccessGuard(properties, circuitBreaker, meterRegistry);
+
+        long start = System.nanoTime();
+        StepVerifier.create(guard.guard(Operation.FIND_BY_ID, repositoryCall(SLOW))
+                        .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(Duration.ofMillis(50)))))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(2));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(1, timeouts("find-by-id", "deadline"));
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testExpiredDeadlineSkipsTheCall() {
+        StepVerifier.create(guard.guard(Operation.UPDATE, repositoryCall(Duration.ZERO))
+                        .contextWrite(context -> context.put(Deadline.CONTEXT_KEY, Deadline.after(Duration.ZERO))))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testOpenBreakerFailsFastWithoutCallingTheRepository() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(guard.guard(Operation.FIND_ALL, repositoryCall(SLOW)))
+                    .expectError(QueryTimeoutException.class)
+                    .verify(Duration.ofSeconds(2));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        StepVerifier.create(guard.guard(Operation.FIND_ALL, repositoryCall(Duration.ZERO)))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(CallNotPermittedException.class, ex);
+                    assertTrue(DatabaseAvailability.isUnavailable(ex));
+                })
+                .verify(Duration.ofMillis(50));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testListingTimeoutAppliesBetweenRows() {
+        // Five rows 40 ms apart: longer than the timeout in total, but never waiting that long for one row
+        Flux<Long> rows = Flux.interval(Duration.ofMillis(40)).take(5);
+
+        StepVerifier.create(guard.guard(Operation.FIND_ALL, rows))
+                .expectNextCount(5)
+                .verifyComplete();
+
+        StepVerifier.create(guard.guard(Operation.FIND_ALL, rows.concatWith(Mono.delay(SLOW))))
+                .expectNextCount(5)
+                .expectError(QueryTimeoutException.class)
+                .verify(Duration.ofSeconds(2));
+    }
+
+    private Mono<String> repositoryCall(Duration latency) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.delay(latency).thenReturn("product");
+        });
+    }
+
+    private double timeouts(String operation, String cause) {
+        return meterRegistry.get("product.data-access.timeouts")
+                .tag("operation", operation)
+                .tag("cause", cause)
+                .counter()
+                .count();
+    }
+}
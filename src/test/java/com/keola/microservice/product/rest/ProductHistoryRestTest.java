@@ -0,0 +1,53 @@
+package com.keola.microservice.product.rest;
+
+import com.keola.microservice.product.history.ProductHistoryService;
+import com.keola.microservice.product.models.ProductHistoryEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the history endpoint of ProductHistoryRest.
+ * It verifies that responses go through the Jackson encoder configured by Spring Boot.
+ */
+@WebFluxTest(ProductHistoryRest.class)
+public class ProductHistoryRestTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ProductHistoryService productHistoryService;
+
+    /**
+     * Test case verifying that Instant fields are written as ISO-8601 strings, not as numeric timestamps.
+     */
+    @Test
+    void testInstantIsSerializedAsIso8601() {
+        ProductHistoryEntry entry = ProductHistoryEntry.builder()
+                .productId(1L)
+                .changedAt(Instant.parse("2026-01-02T03:04:05Z"))
+                .newPrice(new BigDecimal("9.99"))
+                .newQuantity(5)
+                .build();
+        when(productHistoryService.getHistory(eq(1L), any(), any(), any())).thenReturn(Flux.just(entry));
+
+        webTestClient.get()
+                .uri("/api/v1/products/1/history")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].changed_at").isEqualTo("2026-01-02T03:04:05Z")
+                .jsonPath("$[0].new_quantity").isEqualTo(5);
+    }
+}
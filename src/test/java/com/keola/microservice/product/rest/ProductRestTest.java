@@ -3,11 +3,14 @@ package com.keola.microservice.product.rest;
 import com.keola.microservice.product.constants.StateProduct;
 import com.keola.microservice.product.dto.CreateProductDTO;
 import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.service.IdempotencyService;
 import com.keola.microservice.product.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -15,6 +18,9 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -30,6 +36,9 @@ public class ProductRestTest {
     @MockBean
     private ProductService productService; // Mocked ProductService to simulate service layer behavior
 
+    @MockBean
+    private IdempotencyService idempotencyService; // Mocked IdempotencyService to simulate stored responses
+
     /**
      * Test case for creating a product.
      * It simulates a POST request to create a new product and checks the response.
@@ -72,6 +81,51 @@ public class ProductRestTest {
                 .isEqualTo(expectedResponse); // Verifying the response content
     }
 
+    /**
+     * Test case for creating a product with an Idempotency-Key.
+     * It simulates a retried POST request and checks that the stored response is replayed.
+     */
+    @Test
+    void testCreateProductWithIdempotencyKey() {
+        // Creating the product DTO sent by the retried request
+        CreateProductDTO productDTO = new CreateProductDTO();
+        productDTO.setName("New Product");
+        productDTO.setDescription("New product description");
+        productDTO.setPrice(new BigDecimal("150.00"));
+        productDTO.setQuantity(30);
+        productDTO.setCategory("Electronics");
+        productDTO.setImageUrl("http://example.com/new_image");
+        productDTO.setBrand("Brand X");
+        productDTO.setStatus(StateProduct.activo);
+
+        // Response stored by the original request
+        ReadProductDTO storedResponse = ReadProductDTO.builder()
+                .id(1L)
+                .name("New Product")
+                .status(StateProduct.activo.name())
+                .build();
+
+        // Mocking the idempotency service to replay the stored response
+        when(idempotencyService.execute(eq("key-1"), eq("POST /products"), any(), eq(ReadProductDTO.class), any()))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.CREATED)
+                        .header(IdempotencyService.REPLAYED_HEADER, "true")
+                        .body(storedResponse)));
+
+        // Sending the retried POST request with the Idempotency-Key header
+        webTestClient.post()
+                .uri("/api/v1/products")
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key-1")
+                .bodyValue(productDTO)
+                .exchange()
+                .expectStatus().isCreated() // Verifying the HTTP status code
+                .expectHeader().valueEquals(IdempotencyService.REPLAYED_HEADER, "true") // Verifying the replay marker
+                .expectBody(ReadProductDTO.class)
+                .isEqualTo(storedResponse); // Verifying the stored response is returned
+
+        // The product service must not be called for a replayed request
+        verify(productService, never()).createProduct(any());
+    }
+
     /**
      * Test case for retrieving all products.
      * It simulates a GET request to fetch a list of products and checks the response.
@@ -97,6 +151,26 @@ public class ProductRestTest {
                 .contains(product1, product2); // Verifying the presence of the products in the response
     }
 
+    /**
+     * Test case for retrieving the products of a category and status.
+     * It checks that the filters are passed to the service.
+     */
+    @Test
+    void testGetProductsByCategoryAndStatus() {
+        ReadProductDTO product = new ReadProductDTO(1L, "Product 1", "Description 1", new BigDecimal("100.00"), 10, "Electronics", "http://example.com/image1", StateProduct.activo.name());
+
+        when(productService.getProducts("Electronics", StateProduct.activo)).thenReturn(Flux.just(product));
+
+        webTestClient.get()
+                .uri("/api/v1/products?category=Electronics&status=activo")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ReadProductDTO.class)
+                .containsExactly(product);
+
+        verify(productService, never()).getAllProducts();
+    }
+
     /**
      * Test case for retrieving a product by its ID.
      * It simulates a GET request to fetch a product by ID and checks the response.
@@ -0,0 +1,150 @@
+package com.keola.microservice.product.rsocket;
+
+import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.event.ProductChangeStream;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.models.ProductChange;
+import com.keola.microservice.product.models.ProductQuery;
+import com.keola.microservice.product.models.StockAdjustment;
+import com.keola.microservice.product.service.ProductService;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.exceptions.ApplicationErrorException;
+import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Calls the four routes through an RSocketRequester connected to an in-process server with CBOR
+ * codecs, as configured by Spring Boot, and a mocked ProductService.
+ */
+public class ProductRSocketControllerTest {
+
+    private static final ReadProductDTO LAMP = ReadProductDTO.builder()
+            .id(1L)
+            .name("Lámpara de mesa")
+            .description("LED desk lamp")
+            .price(new BigDecimal("19.90"))
+            .quantity(5)
+            .category("Lighting")
+            .imageUrl("https://example.com/lamp.jpg")
+            .status(StateProduct.activo.name())
+            .build();
+
+    private ProductService productService;
+    private ProductChangeStream productChangeStream;
+    private CloseableChannel server;
+    private RSocketRequester requester;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        productChangeStream = mock(ProductChangeStream.class);
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2CborEncoder()))
+                .decoders(decoders -> decoders.add(new Jackson2CborDecoder()))
+                .build();
+        RSocketMessageHandler handler = new RSocketMessageHandler();
+        handler.setRSocketStrategies(strategies);
+        handler.setHandlers(List.of(new ProductRSocketController(productService, productChangeStream)));
+        handler.afterPropertiesSet();
+        server = RSocketServer.create(handler.responder())
+                .payloadDecoder(PayloadDecoder.ZERO_COPY)
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+        requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .dataMimeType(MediaType.APPLICATION_CBOR)
+                .tcp("localhost", server.address().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        requester.dispose();
+        server.dispose();
+    }
+
+    @Test
+    void testGetRoundTripsTheProductThroughCbor() {
+        when(productService.getProductById(1L)).thenReturn(Mono.just(LAMP));
+
+        StepVerifier.create(requester.route("products.get").data(1L).retrieveMono(ReadProductDTO.class))
+                .expectNext(LAMP)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetOfAMissingProductFails() {
+        when(productService.getProductById(2L)).thenReturn(Mono.error(new EntityNotFoundException("Producto no encontrado: 2")));
+
+        StepVerifier.create(requester.route("products.get").data(2L).retrieveMono(ReadProductDTO.class))
+                .expectErrorMatches(ex -> ex instanceof ApplicationErrorException && ex.getMessage().contains("Producto no encontrado"))
+                .verify();
+    }
+
+    @Test
+    void testListWithoutFiltersStreamsAllProducts() {
+        when(productService.getAllProducts()).thenReturn(Flux.just(LAMP));
+
+        StepVerifier.create(requester.route("products.list").retrieveFlux(ReadProductDTO.class))
+                .expectNext(LAMP)
+                .verifyComplete();
+        verify(productService, never()).getProducts(any(), any());
+    }
+
+    @Test
+    void testListPassesTheFilters() {
+        when(productService.getProducts("Lighting", StateProduct.activo)).thenReturn(Flux.just(LAMP));
+
+        StepVerifier.create(requester.route("products.list")
+                        .data(new ProductQuery("Lighting", StateProduct.activo))
+                        .retrieveFlux(ReadProductDTO.class))
+                .expectNext(LAMP)
+                .verifyComplete();
+    }
+
+    @Test
+    void testChangesAreStreamedAsProductChanges() {
+        List<ProductChangedEvent> events = List.of(ProductChangedEvent.created(LAMP), ProductChangedEvent.deleted(2L),
+                ProductChangedEvent.bulk());
+        when(productChangeStream.changes()).thenReturn(Flux.fromIterable(events));
+
+        StepVerifier.create(requester.route("products.changes").retrieveFlux(ProductChange.class))
+                .expectNextSequence(events.stream().map(ProductChange::of).toList())
+                .verifyComplete();
+    }
+
+    @Test
+    void testStockAdjustmentsWithoutProductIdAreIgnored() {
+        when(productService.adjustStock(1L, -2)).thenReturn(Mono.empty());
+
+        requester.route("products.stock.adjust").data(new StockAdjustment(null, 3)).send().block();
+        requester.route("products.stock.adjust").data(new StockAdjustment(1L, -2)).send().block();
+
+        // Fire-and-forget: the request is handled after send() completes
+        verify(productService, timeout(5000)).adjustStock(1L, -2);
+        verify(productService, never()).adjustStock(isNull(), anyInt());
+    }
+}
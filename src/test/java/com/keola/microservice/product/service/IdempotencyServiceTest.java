@@ -0,0 +1,318 @@
+package com.keola.microservice.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.config.IdempotencyProperties;
+import com.keola.microservice.product.exception.GlobalExceptionHandler;
+import com.keola.microservice.product.exception.IdempotencyKeyInProgressException;
+import com.keola.microservice.product.exception.IdempotencyKeyMismatchException;
+import com.keola.microservice.product.models.IdempotentResponse;
+import com.keola.microservice.product.repo.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test class for IdempotencyService.
+ * The repository is backed by an in-memory map that behaves like tbl_idempotency_key.
+ */
+public class IdempotencyServiceTest {
+
+    private static final String SCOPE = "POST /products";
+
+    private final Map<String, IdempotentResponse> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyProperties properties;
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Set up method that wires the service to a fake repository with short waits.
+     */
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        properties.setInFlightWait(Duration.ofMillis(200));
+        properties.setPollInterval(Duration.ofMillis(20));
+        idempotencyService = new IdempotencyService(sharedRepository(), properties, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Test case verifying that concurrent duplicates run the action once and share its response.
+     */
+    @Test
+    void testConcurrentDuplicatesRunTheActionOnce() {
+        Mono<ResponseEntity<String>> action = created("a", Duration.ofMillis(100));
+
+        List<ResponseEntity<String>> responses = Flux.merge(
+                        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, action),
+                        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, action))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1, executions.get());
+        assertEquals(2, responses.size());
+        assertTrue(responses.stream().allMatch(response -> response.getStatusCode() == HttpStatus.CREATED));
+        assertTrue(responses.stream().allMatch(response -> "a".equals(response.getBody())));
+        assertEquals(1, responses.stream()
+                .filter(response -> response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER))
+                .count());
+    }
+
+    /**
+     * Test case verifying that a retry after completion is replayed without running the action again.
+     */
+    @Test
+    void testRetryIsReplayed() {
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO)).block();
+
+        ResponseEntity<String> replay = idempotencyService
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block();
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    /**
+     * Test case verifying that reusing a key with a different body is rejected with 422.
+     */
+    @Test
+    void testPayloadMismatchIsRejected() {
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO)).block();
+
+        StepVerifier.create(idempotencyService.execute("key-1", SCOPE, Map.of("name", "b"), String.class,
+                        created("b", Duration.ZERO)))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(IdempotencyKeyMismatchException.class, ex);
+                    ResponseEntity<?> response = new GlobalExceptionHandler()
+                            .handleIdempotencyKeyMismatch((IdempotencyKeyMismatchException) ex).block();
+                    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+                })
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * Test case verifying that a duplicate of a request still running on another instance gets 409.
+     */
+    @Test
+    void testRequestInProgressElsewhereIsRejected() {
+        rows.put(SCOPE + ":key-1", IdempotentResponse.builder()
+                .requestHash("held-by-another-instance")
+                .expiresAt(Instant.now().plus(Duration.ofHours(1)))
+                .build());
+
+        StepVerifier.create(idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class,
+                        created("a", Duration.ZERO)))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(IdempotencyKeyInProgressException.class, ex);
+                    ResponseEntity<?> response = new GlobalExceptionHandler()
+                            .handleIdempotencyKeyInProgress((IdempotencyKeyInProgressException) ex).block();
+                    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+                })
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, executions.get());
+    }
+
+    /**
+     * Test case verifying that a duplicate waits for the other instance and replays its response.
+     */
+    @Test
+    void testRequestCompletedElsewhereIsReplayedAfterWaiting() {
+        String storeKey = SCOPE + ":key-1";
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO)).block();
+        IdempotentResponse original = rows.get(storeKey);
+        rows.put(storeKey, IdempotentResponse.builder()
+                .requestHash(original.getRequestHash())
+                .expiresAt(original.getExpiresAt())
+                .build());
+        IdempotencyService otherInstance = new IdempotencyService(sharedRepository(), properties, new ObjectMapper(),
+                new SimpleMeterRegistry());
+
+        Mono.delay(Duration.ofMillis(60)).subscribe(tick -> rows.put(storeKey, original));
+        ResponseEntity<String> replay = otherInstance
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1, executions.get());
+        assertEquals("a", replay.getBody());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    /**
+     * Test case verifying that an expired key runs the action again, both from memory and from the database.
+     */
+    @Test
+    void testExpiredKeyIsExecutedAgain() throws InterruptedException {
+        properties.setTtl(Duration.ofMillis(50));
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO)).block();
+        Thread.sleep(100);
+
+        ResponseEntity<String> response = idempotencyService
+                .execute("key-1", SCOPE, Map.of("name", "b"), String.class, created("b", Duration.ZERO))
+                .block();
+
+        assertEquals(2, executions.get());
+        assertEquals("b", response.getBody());
+        assertFalse(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    /**
+     * Test case verifying that the purge job removes expired keys.
+     */
+    @Test
+    void testPurgeRemovesExpiredKeys() throws InterruptedException {
+        properties.setTtl(Duration.ofMillis(50));
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO)).block();
+        Thread.sleep(100);
+
+        idempotencyService.purgeExpired().block();
+
+        assertTrue(rows.isEmpty());
+    }
+
+    /**
+     * Test case verifying that a failed request releases its key so the client can retry it.
+     */
+    @Test
+    void testFailedRequestReleasesTheKey() {
+        Mono<ResponseEntity<String>> failing = Mono.defer(() -> {
+            executions.incrementAndGet();
+            return Mono.error(new IllegalStateException("database unavailable"));
+        });
+
+        StepVerifier.create(idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, failing))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+        assertTrue(rows.isEmpty());
+
+        ResponseEntity<String> retry = idempotencyService
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block();
+
+        assertEquals(2, executions.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertFalse(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    /**
+     * Test case verifying that the key is only leased while the request runs and kept for the TTL once it completed.
+     */
+    @Test
+    void testReservationIsLeasedUntilTheResponseIsStored() {
+        String storeKey = SCOPE + ":key-1";
+        Instant[] leaseExpiresAt = new Instant[1];
+        Mono<ResponseEntity<String>> action = Mono.defer(() -> {
+            leaseExpiresAt[0] = rows.get(storeKey).getExpiresAt();
+            return created("a", Duration.ZERO);
+        });
+
+        idempotencyService.execute("key-1", SCOPE, Map.of("name", "a"), String.class, action).block();
+
+        assertFalse(leaseExpiresAt[0].isAfter(Instant.now().plus(properties.getLease())));
+        assertTrue(rows.get(storeKey).getExpiresAt().isAfter(Instant.now().plus(properties.getTtl()).minus(Duration.ofMinutes(1))));
+    }
+
+    /**
+     * Test case verifying that a reservation left by an instance that stopped is taken over once its lease ran out.
+     */
+    @Test
+    void testAbandonedReservationIsTakenOverAfterItsLease() {
+        rows.put(SCOPE + ":key-1", IdempotentResponse.builder()
+                .requestHash("held-by-a-stopped-instance")
+                .expiresAt(Instant.now().minusMillis(1))
+                .build());
+
+        ResponseEntity<String> response = idempotencyService
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertFalse(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(201, rows.get(SCOPE + ":key-1").getStatusCode());
+    }
+
+    /**
+     * Test case verifying that a response that could not be stored is still returned, without releasing the key.
+     */
+    @Test
+    void testFailedStoreKeepsTheKey() {
+        properties.setPollInterval(Duration.ofMillis(1));
+        IdempotencyKeyRepository repository = sharedRepository();
+        when(repository.complete(anyString(), anyInt(), any(), any())).thenReturn(Mono.error(new IllegalStateException("database unavailable")));
+        IdempotencyService failingStore = new IdempotencyService(repository, properties, new ObjectMapper(), new SimpleMeterRegistry());
+
+        ResponseEntity<String> response = failingStore
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block(Duration.ofSeconds(5));
+        ResponseEntity<String> retry = failingStore
+                .execute("key-1", SCOPE, Map.of("name", "a"), String.class, created("a", Duration.ZERO))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(rows.containsKey(SCOPE + ":key-1"));
+        assertEquals(1, executions.get());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    /**
+     * Creates a repository over the shared rows, as every instance of the service sees the same table.
+     */
+    private IdempotencyKeyRepository sharedRepository() {
+        IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+        when(repository.reserve(anyString(), anyString(), any(), any())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            Instant now = invocation.getArgument(2);
+            IdempotentResponse reservation = IdempotentResponse.builder()
+                    .requestHash(invocation.getArgument(1))
+                    .expiresAt(invocation.getArgument(3))
+                    .build();
+            // Inserted, or taken over from an expired row
+            return rows.compute(invocation.getArgument(0), (key, row) -> row == null || row.isExpired(now) ? reservation : row)
+                    == reservation;
+        }));
+        when(repository.findByKey(anyString())).thenAnswer(invocation ->
+                Mono.fromSupplier(() -> rows.get(invocation.<String>getArgument(0))));
+        when(repository.complete(anyString(), anyInt(), any(), any())).thenAnswer(invocation -> Mono.fromRunnable(() ->
+                rows.computeIfPresent(invocation.getArgument(0), (key, row) -> IdempotentResponse.builder()
+                        .requestHash(row.getRequestHash())
+                        .statusCode(invocation.getArgument(1))
+                        .responseBody(invocation.getArgument(2))
+                        .expiresAt(invocation.getArgument(3))
+                        .build())));
+        when(repository.delete(anyString())).thenAnswer(invocation ->
+                Mono.fromRunnable(() -> rows.remove(invocation.<String>getArgument(0))));
+        when(repository.deleteExpired(any())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            Instant now = invocation.getArgument(0);
+            long before = rows.size();
+            rows.values().removeIf(row -> row.isExpired(now));
+            return before - rows.size();
+        }));
+        when(repository.count()).thenAnswer(invocation -> Mono.fromSupplier(() -> (long) rows.size()));
+
+        return repository;
+    }
+
+    private Mono<ResponseEntity<String>> created(String name, Duration delay) {
+        return Mono.defer(() -> {
+            executions.incrementAndGet();
+            return Mono.delay(delay).thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(name));
+        });
+    }
+}
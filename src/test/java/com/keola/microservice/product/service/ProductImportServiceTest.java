@@ -0,0 +1,122 @@
+package com.keola.microservice.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.keola.microservice.product.bulkimport.ProductImportFormat;
+import com.keola.microservice.product.config.BulkImportProperties;
+import com.keola.microservice.product.config.HistoryProperties;
+import com.keola.microservice.product.event.ProductEventPublisher;
+import com.keola.microservice.product.models.ImportReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the statements of the import transaction against a mocked Postgres connection; each
+ * statement reports one row updated.
+ */
+public class ProductImportServiceTest {
+
+    private static final String CSV = "name,description,price,quantity,category,image_url,brand,status\n"
+            + "Wireless Mouse,Ergonomic wireless mouse,19.99,50,Electronics,https://example.com/mouse.jpg,Logitech,activo\n";
+
+    private final List<String> executed = new ArrayList<>(); // Statements in execution order.
+    private BulkImportProperties properties;
+    private HistoryProperties historyProperties;
+    private ConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp(@TempDir Path errorDirectory) {
+        properties = new BulkImportProperties();
+        properties.setErrorDirectory(errorDirectory);
+        historyProperties = new HistoryProperties();
+        connectionFactory = connectionFactory();
+    }
+
+    @Test
+    void testHistoryIsRecordedBeforeTheUpdateAndWithTheInsert() {
+        ImportReport report = importCsv();
+
+        assertEquals(1, report.getRowsInserted());
+        assertEquals(1, report.getRowsUpdated());
+        int history = indexOf("INSERT INTO tbl_product_history");
+        int update = indexOf("UPDATE tbl_product ");
+        assertTrue(history >= 0 && history < update, "history of updated products is read before the update: " + executed);
+        assertTrue(executed.get(history).contains("IS DISTINCT FROM"));
+        String insert = executed.get(executed.size() - 1);
+        assertTrue(insert.startsWith("WITH inserted AS (INSERT INTO tbl_product ") && insert.contains("INSERT INTO tbl_product_history"));
+    }
+
+    @Test
+    void testNoHistoryIsRecordedWhenDisabled() {
+        historyProperties.setEnabled(false);
+
+        ImportReport report = importCsv();
+
+        assertEquals(1, report.getRowsInserted());
+        assertEquals(-1, indexOf("tbl_product_history"));
+        assertTrue(executed.get(executed.size() - 1).startsWith("INSERT INTO tbl_product "));
+    }
+
+    private ImportReport importCsv() {
+        ProductImportService productImportService = new ProductImportService(connectionFactory,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), properties, historyProperties,
+                new ProductEventPublisher(event -> {
+                }), new SimpleMeterRegistry());
+        return productImportService.importProducts(
+                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(CSV.getBytes(StandardCharsets.UTF_8))),
+                ProductImportFormat.CSV).block();
+    }
+
+    private int indexOf(String fragment) {
+        for (int i = 0; i < executed.size(); i++) {
+            if (executed.get(i).contains(fragment)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ConnectionFactory connectionFactory() {
+        PostgresqlResult result = mock(PostgresqlResult.class);
+        doReturn(Mono.just(1L)).when(result).getRowsUpdated();
+        PostgresqlConnection connection = mock(PostgresqlConnection.class);
+        when(connection.createStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            PostgresqlStatement statement = mock(PostgresqlStatement.class);
+            doReturn(Flux.defer(() -> {
+                executed.add(sql);
+                return Flux.just(result);
+            })).when(statement).execute();
+            return statement;
+        });
+        doAnswer(invocation -> Flux.from(invocation.<Publisher<?>>getArgument(1)).count())
+                .when(connection).copyIn(anyString(), any());
+        doReturn(Mono.empty()).when(connection).beginTransaction();
+        doReturn(Mono.empty()).when(connection).commitTransaction();
+        doReturn(Mono.empty()).when(connection).rollbackTransaction();
+        doReturn(Mono.empty()).when(connection).close();
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        doReturn(Mono.just(connection)).when(factory).create();
+        return factory;
+    }
+}
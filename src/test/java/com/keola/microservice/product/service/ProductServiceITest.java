@@ -4,11 +4,24 @@ import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.keola.microservice.product.constants.StateProduct;
+import com.keola.microservice.product.config.DataAccessProperties;
+import com.keola.microservice.product.config.PopularityProperties;
 import com.keola.microservice.product.dto.*;
 import com.keola.microservice.product.entity.ProductEntity;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.event.ProductEventPublisher;
 import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.exception.InsufficientStockException;
 import com.keola.microservice.product.mapper.ProductEntityMapper;
+import com.keola.microservice.product.popularity.ProductPopularity;
 import com.keola.microservice.product.repo.CustomerEntityRepository;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import com.keola.microservice.product.resilience.DataAccessGuard;
+import com.keola.microservice.product.snapshot.CatalogSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -16,6 +29,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
 /**
  * Unit test class for testing ProductServiceI.
@@ -26,9 +40,23 @@ public class ProductServiceITest {
     @Mock
     private CustomerEntityRepository productRepository;
 
+    @Mock
+    private ProductReadRepository productReadRepository;
+
     @Mock
     private ProductEntityMapper productEntityMapper;
 
+    @Mock
+    private ProductWriteCoalescer productWriteCoalescer;
+
+    @Mock
+    private CatalogSnapshot catalogSnapshot;
+
+    @Mock
+    private ProductEventPublisher productEventPublisher;
+
+    private ProductPopularity productPopularity;
+
     private ProductServiceI productService;
 
     /**
@@ -37,7 +65,14 @@ public class ProductServiceITest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        productService = new ProductServiceI(productRepository, productEntityMapper);
+        DataAccessProperties dataAccessProperties = new DataAccessProperties();
+        dataAccessProperties.setDefaultTimeout(Duration.ofMillis(200));
+        DataAccessGuard dataAccessGuard = new DataAccessGuard(dataAccessProperties, CircuitBreaker.ofDefaults("database"),
+                new SimpleMeterRegistry());
+        productPopularity = new ProductPopularity(new PopularityProperties(), new SimpleMeterRegistry());
+        productService = new ProductServiceI(productRepository, productReadRepository, productEntityMapper, productWriteCoalescer,
+                catalogSnapshot, productEventPublisher, dataAccessGuard, productPopularity);
+        when(productEventPublisher.publishAfterCommit(any(ProductChangedEvent.class))).thenReturn(Mono.empty());
     }
 
     /**
@@ -93,6 +128,47 @@ public class ProductServiceITest {
         // Verify that the repository and mapper were called
         verify(productRepository, times(1)).save(any(ProductEntity.class));
         verify(productEntityMapper, times(1)).toDTO(any(ProductEntity.class));
+        verify(productEventPublisher, times(1)).publishAfterCommit(ProductChangedEvent.created(productDTOResponse));
+    }
+
+    /**
+     * Test case for the createProduct method when write coalescing is enabled.
+     * This test verifies that the insert is routed through the coalescer instead of the repository.
+     */
+    @Test
+    void testCreateProduct_Coalesced() {
+        // Input data for creating a product
+        CreateProductDTO productDTO = new CreateProductDTO();
+        productDTO.setName("Test Product");
+        productDTO.setDescription("Description of test product");
+        productDTO.setPrice(new BigDecimal("100.00"));
+        productDTO.setQuantity(10);
+        productDTO.setCategory("Category");
+        productDTO.setImageUrl("http://example.com/image");
+        productDTO.setBrand("Brand");
+        productDTO.setStatus(StateProduct.activo);
+
+        // Entity returned by the coalescer with its generated id
+        ProductEntity productEntity = ProductEntity.builder()
+                .id(7L)
+                .name(productDTO.getName())
+                .build();
+
+        ReadProductDTO productDTOResponse = new ReadProductDTO();
+        productDTOResponse.setId(7L);
+        productDTOResponse.setName(productDTO.getName());
+
+        // Mock the behavior of the coalescer and mapper
+        when(productWriteCoalescer.isEnabled()).thenReturn(true);
+        when(productWriteCoalescer.insert(any(ProductEntity.class))).thenReturn(Mono.just(productEntity));
+        when(productEntityMapper.toDTO(productEntity)).thenReturn(productDTOResponse);
+
+        // Execute the method and verify the generated id is returned
+        assertEquals(7L, productService.createProduct(productDTO).block().getId());
+
+        // Verify that the coalescer was used and the repository was not
+        verify(productWriteCoalescer, times(1)).insert(any(ProductEntity.class));
+        verify(productRepository, never()).save(any(ProductEntity.class));
     }
 
     /**
@@ -103,32 +179,20 @@ public class ProductServiceITest {
     void testGetProductById() {
         // Input data
         Long productId = 1L;
-        ProductEntity productEntity = ProductEntity.builder()
-                .id(productId)
-                .name("Test Product")
-                .description("Description of test product")
-                .price(new BigDecimal("100.00"))
-                .quantity(10)
-                .category("Category")
-                .imageUrl("http://example.com/image")
-                .brand("Brand")
-                .status("active")
-                .build();
 
-        // Create the response DTO
+        // Create the response DTO, as mapped from the row by the read repository
         ReadProductDTO productDTOResponse = new ReadProductDTO();
         productDTOResponse.setId(productId);
-        productDTOResponse.setName(productEntity.getName());
-        productDTOResponse.setDescription(productEntity.getDescription());
-        productDTOResponse.setPrice(productEntity.getPrice());
-        productDTOResponse.setQuantity(productEntity.getQuantity());
-        productDTOResponse.setCategory(productEntity.getCategory());
-        productDTOResponse.setImageUrl(productEntity.getImageUrl());
-        productDTOResponse.setStatus(productEntity.getStatus());
+        productDTOResponse.setName("Test Product");
+        productDTOResponse.setDescription("Description of test product");
+        productDTOResponse.setPrice(new BigDecimal("100.00"));
+        productDTOResponse.setQuantity(10);
+        productDTOResponse.setCategory("Category");
+        productDTOResponse.setImageUrl("http://example.com/image");
+        productDTOResponse.setStatus("active");
 
-        // Mock the behavior of the repository and mapper
-        when(productRepository.findById(productId)).thenReturn(Mono.just(productEntity));
-        when(productEntityMapper.toDTO(productEntity)).thenReturn(productDTOResponse);
+        // Mock the behavior of the read repository
+        when(productReadRepository.findById(productId)).thenReturn(Mono.just(productDTOResponse));
 
         // Execute the method
         Mono<ReadProductDTO> result = productService.getProductById(productId);
@@ -136,10 +200,53 @@ public class ProductServiceITest {
         // Verify the result
         assertNotNull(result);
         assertEquals(productDTOResponse.getName(), result.block().getName());
+        assertEquals(new PopularityProperties().getDetailViewWeight(), productPopularity.estimate(productId));
 
-        // Verify that the repository and mapper were called
-        verify(productRepository, times(1)).findById(productId);
-        verify(productEntityMapper, times(1)).toDTO(any(ProductEntity.class));
+        // Verify that the read repository was called and no entity was loaded or mapped
+        verify(productReadRepository, times(1)).findById(productId);
+        verify(productRepository, never()).findById(anyLong());
+        verify(productEntityMapper, never()).toDTO(any(ProductEntity.class));
+    }
+
+    /**
+     * Test case for the getProductById method when the database is unavailable.
+     * This test verifies that the product is served from the catalog snapshot.
+     */
+    @Test
+    void testGetProductById_DatabaseUnavailable() {
+        Long productId = 1L;
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("Connection refused");
+        ReadProductDTO snapshotProduct = new ReadProductDTO();
+        snapshotProduct.setId(productId);
+        snapshotProduct.setName("Test Product");
+
+        when(productReadRepository.findById(productId)).thenReturn(Mono.error(failure));
+        when(catalogSnapshot.fallbackFindById(productId, failure)).thenReturn(Mono.just(snapshotProduct));
+
+        StepVerifier.create(productService.getProductById(productId))
+                .expectNext(snapshotProduct)
+                .verifyComplete();
+
+        verify(productEntityMapper, never()).toDTO(any(ProductEntity.class));
+    }
+
+    /**
+     * Test case for the getProductById method when the database hangs.
+     * This test verifies that the read gives up after its timeout and is served from the catalog snapshot.
+     */
+    @Test
+    void testGetProductById_SlowDatabase() {
+        Long productId = 1L;
+        ReadProductDTO snapshotProduct = new ReadProductDTO();
+        snapshotProduct.setId(productId);
+
+        when(productReadRepository.findById(productId)).thenReturn(Mono.delay(Duration.ofSeconds(10)).then(Mono.<ReadProductDTO>empty()));
+        when(catalogSnapshot.fallbackFindById(eq(productId), any(QueryTimeoutException.class))).thenReturn(Mono.just(snapshotProduct));
+
+        StepVerifier.create(productService.getProductById(productId))
+                .expectNext(snapshotProduct)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
     }
 
     /**
@@ -150,7 +257,7 @@ public class ProductServiceITest {
     void testGetProductById_NotFound() {
         // Behavior when product is not found
         Long productId = 1L;
-        when(productRepository.findById(productId)).thenReturn(Mono.empty());
+        when(productReadRepository.findById(productId)).thenReturn(Mono.empty());
 
         // Execute the method
         Mono<ReadProductDTO> result = productService.getProductById(productId);
@@ -159,7 +266,7 @@ public class ProductServiceITest {
         assertThrows(EntityNotFoundException.class, result::block);
 
         // Verify that the repository was called
-        verify(productRepository, times(1)).findById(productId);
+        verify(productReadRepository, times(1)).findById(productId);
     }
 
     /**
@@ -180,5 +287,30 @@ public class ProductServiceITest {
         // Verify that the repository was called
         result.block();  // Should complete without error
         verify(productRepository, times(1)).deleteById(productId);
+        verify(productEventPublisher, times(1)).publishAfterCommit(ProductChangedEvent.deleted(productId));
+    }
+
+    /**
+     * Test case for the adjustStock method when the quantity would drop below zero.
+     * This test verifies that nothing is published and the available quantity is reported.
+     */
+    @Test
+    void testAdjustStock_InsufficientStock() {
+        Long productId = 1L;
+        ReadProductDTO product = new ReadProductDTO();
+        product.setId(productId);
+        product.setQuantity(3);
+
+        when(productRepository.adjustQuantity(productId, -5)).thenReturn(Mono.just(0));
+        when(productReadRepository.findById(productId)).thenReturn(Mono.just(product));
+
+        StepVerifier.create(productService.adjustStock(productId, -5))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(InsufficientStockException.class, ex);
+                    assertTrue(ex.getMessage().contains("disponible: 3"));
+                })
+                .verify();
+
+        verify(productEventPublisher, never()).publishAfterCommit(any(ProductChangedEvent.class));
     }
 }
@@ -0,0 +1,155 @@
+package com.keola.microservice.product.service;
+
+import com.keola.microservice.product.config.WriteCoalescingProperties;
+import com.keola.microservice.product.entity.ProductEntity;
+import com.keola.microservice.product.exception.WriteQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests ProductWriteCoalescer against a mocked DatabaseClient that records the statements it is given.
+ * A statement fails when it binds a product named "bad" together with other rows, or on its own.
+ * Generated ids come back in reverse order, so callers must be matched on the returned ordinal.
+ */
+public class ProductWriteCoalescerTest {
+
+    private final List<List<String>> statements = new ArrayList<>(); // Names bound by each statement, in order.
+    private final AtomicLong nextId = new AtomicLong(100);
+    private WriteCoalescingProperties properties;
+    private DatabaseClient databaseClient;
+    private ProductWriteCoalescer coalescer;
+    private boolean hang; // Statements never complete, to fill the queue.
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new WriteCoalescingProperties();
+        properties.setEnabled(true);
+        properties.setWindow(Duration.ofMillis(50));
+        properties.setMaxBatchSize(3);
+        databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        RowsFetchSpec<ProductWriteCoalescer.GeneratedId> rows = mock(RowsFetchSpec.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> {
+            statements.add(new ArrayList<>());
+            return spec;
+        });
+        when(spec.bind(anyInt(), any())).thenAnswer(invocation -> {
+            int index = invocation.getArgument(0);
+            if (index % 10 == 0) {
+                statements.get(statements.size() - 1).add(invocation.getArgument(1));
+            }
+            return spec;
+        });
+        when(spec.bindNull(anyInt(), any())).thenReturn(spec);
+        doReturn(rows).when(spec).map(any(Function.class));
+        when(rows.all()).thenAnswer(invocation -> {
+            if (hang) {
+                return Flux.never();
+            }
+            List<String> names = statements.get(statements.size() - 1);
+            if (names.contains("bad")) {
+                return Flux.error(new IllegalStateException("value too long for type character varying(100)"));
+            }
+            long firstId = nextId.getAndAdd(names.size());
+            return Flux.range(0, names.size())
+                    .map(i -> names.size() - 1 - i)
+                    .map(ordinal -> new ProductWriteCoalescer.GeneratedId(ordinal, firstId + ordinal));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.destroy();
+        }
+    }
+
+    @Test
+    void testConcurrentInsertsShareOneStatementAndGetTheirOwnIds() {
+        coalescer = new ProductWriteCoalescer(databaseClient, properties, new SimpleMeterRegistry());
+
+        List<ProductEntity> saved = Flux.merge(coalescer.insert(product("a")), coalescer.insert(product("b")), coalescer.insert(product("c")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(List.of("a", "b", "c")), statements);
+        assertEquals(3, saved.size());
+        for (ProductEntity product : saved) {
+            assertEquals(100 + List.of("a", "b", "c").indexOf(product.getName()), product.getId());
+        }
+    }
+
+    @Test
+    void testFailedBatchIsRetriedRowByRowAndOnlyTheOffendingRowFails() {
+        coalescer = new ProductWriteCoalescer(databaseClient, properties, new SimpleMeterRegistry());
+
+        Mono<ProductEntity> good = coalescer.insert(product("a")).cache();
+        Mono<ProductEntity> bad = coalescer.insert(product("bad")).cache();
+        Mono<ProductEntity> other = coalescer.insert(product("c")).cache();
+        Flux.merge(good, bad.onErrorResume(ex -> Mono.empty()), other).blockLast(Duration.ofSeconds(5));
+
+        assertNotNull(good.block().getId());
+        assertNotNull(other.block().getId());
+        assertThrows(IllegalStateException.class, bad::block);
+        assertEquals(List.of(List.of("a", "bad", "c"), List.of("a"), List.of("bad"), List.of("c")), statements);
+    }
+
+    @Test
+    void testInsertsAreRejectedOnceTheQueueIsFull() {
+        hang = true;
+        properties.setMaxBatchSize(1);
+        properties.setMaxInFlightBatches(1);
+        properties.setMaxQueuedInserts(4);
+        coalescer = new ProductWriteCoalescer(databaseClient, properties, new SimpleMeterRegistry());
+
+        List<Throwable> rejections = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            coalescer.insert(product("p" + i)).subscribe(null, rejections::add);
+        }
+
+        assertFalse(rejections.isEmpty());
+        assertTrue(rejections.stream().allMatch(WriteQueueFullException.class::isInstance));
+        assertTrue(statements.size() <= 1);
+    }
+
+    @Test
+    void testGeneratedIdsAreOrderedByOrdinalAndIncompleteResultsAreRejected() {
+        List<ProductWriteCoalescer.GeneratedId> shuffled = List.of(
+                new ProductWriteCoalescer.GeneratedId(2, 7), new ProductWriteCoalescer.GeneratedId(0, 5), new ProductWriteCoalescer.GeneratedId(1, 6));
+
+        assertEquals(List.of(5L, 6L, 7L), ProductWriteCoalescer.byOrdinal(shuffled, 3).block());
+        assertThrows(IllegalStateException.class, () -> ProductWriteCoalescer.byOrdinal(shuffled.subList(0, 2), 3).block());
+        assertThrows(IllegalStateException.class, () -> ProductWriteCoalescer.byOrdinal(
+                List.of(new ProductWriteCoalescer.GeneratedId(0, 5), new ProductWriteCoalescer.GeneratedId(0, 6)), 2).block());
+    }
+
+    private static ProductEntity product(String name) {
+        return ProductEntity.builder()
+                .name(name)
+                .price(new BigDecimal("9.99"))
+                .quantity(1)
+                .status("activo")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+}
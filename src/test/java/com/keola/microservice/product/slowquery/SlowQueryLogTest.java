@@ -0,0 +1,190 @@
+package com.keola.microservice.product.slowquery;
+
+import com.keola.microservice.product.config.SlowQueryProperties;
+import com.keola.microservice.product.models.SlowQueryReport;
+import io.r2dbc.proxy.core.Binding;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests SlowQueryLog with mocked proxy execution events and a mocked connection for EXPLAIN.
+ * The captured plan repeats the bound values, as Postgres does, so its redaction can be checked.
+ */
+public class SlowQueryLogTest {
+
+    private static final String PLAN = "Index Scan using idx_product_name on tbl_product  (cost=0.29..8.31 rows=1 width=120) "
+            + "(actual time=0.015..0.016 rows=1 loops=1)\n"
+            + "  Index Cond: ((name)::text = 'Secret Widget'::text)\n"
+            + "  Filter: (quantity > 42)\n"
+            + "  Buffers: shared hit=3\n"
+            + "Execution Time: 0.031 ms";
+
+    private SlowQueryProperties properties;
+    private final List<String> explained = new ArrayList<>(); // Statements sent to the explain connection.
+    private Connection explainConnection;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SlowQueryProperties();
+        properties.setThreshold(Duration.ofMillis(100));
+        properties.setBufferSize(3);
+        properties.setExplainTopShapes(1);
+    }
+
+    @Test
+    void testShapeRemovesLiteralsAndCollapsesWhitespace() {
+        assertEquals("SELECT * FROM tbl_product WHERE name = ? AND price > ? AND id = $1",
+                SlowQueryLog.shapeOf("SELECT *\n  FROM tbl_product WHERE name = 'O''Brien' AND price > 10.5 AND id = $1"));
+        assertEquals("SELECT col2 FROM t2 LIMIT ?", SlowQueryLog.shapeOf("SELECT col2 FROM t2 LIMIT 20"));
+    }
+
+    @Test
+    void testPlanLiteralsAreRedactedButCostsAreKept() {
+        String redacted = SlowQueryLog.redactPlan(PLAN);
+
+        assertFalse(redacted.contains("Secret Widget"));
+        assertFalse(redacted.contains("42"));
+        assertTrue(redacted.contains("(cost=0.29..8.31 rows=1 width=120) (actual time=0.015..0.016 rows=1 loops=1)"));
+        assertTrue(redacted.contains("Buffers: shared hit=3"));
+        assertTrue(redacted.contains("Execution Time: 0.031 ms"));
+        assertTrue(redacted.contains("((name)::text = '?'::text)"));
+        assertTrue(redacted.contains("(quantity > ?)"));
+    }
+
+    @Test
+    void testStatementsUnderTheThresholdAreNotRecorded() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+
+        slowQueryLog.afterQuery(execution("SELECT 1", null, 99));
+        slowQueryLog.afterQuery(execution("SELECT 2", null, 100));
+
+        SlowQueryReport report = slowQueryLog.report();
+        assertEquals(100, report.getThresholdMs());
+        assertEquals(List.of("SELECT ?"), report.getRecent().stream().map(SlowQueryReport.Entry::getSql).toList());
+        assertEquals(1, report.getShapes().get(0).getCount());
+    }
+
+    @Test
+    void testRecentEntriesWrapAroundNewestFirstWithRedactedValues() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+
+        for (int i = 1; i <= 5; i++) {
+            slowQueryLog.afterQuery(execution("UPDATE tbl_product SET name = 'name " + i + "' WHERE id = $1", bindings(i), 100 + i));
+        }
+
+        List<SlowQueryReport.Entry> recent = slowQueryLog.report().getRecent();
+        assertEquals(List.of(105.0, 104.0, 103.0), recent.stream().map(SlowQueryReport.Entry::getDurationMs).toList());
+        for (SlowQueryReport.Entry entry : recent) {
+            assertEquals("UPDATE tbl_product SET name = ? WHERE id = $1", entry.getSql());
+            assertEquals(List.of("$1=<Integer>"), entry.getParameters());
+        }
+        SlowQueryReport.Shape shape = slowQueryLog.report().getShapes().get(0);
+        assertEquals(5, shape.getCount());
+        assertEquals(105.0, shape.getMaxMs());
+        assertEquals(103.0, shape.getAvgMs(), 0.001);
+    }
+
+    @Test
+    void testOnlyTheSlowestSelectShapesAreExplainedOnce() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+        slowQueryLog.setExplainConnectionFactory(explainConnectionFactory());
+
+        slowQueryLog.afterQuery(execution("SELECT * FROM tbl_product WHERE name = 'Secret Widget' AND id = $1", bindings(7), 500));
+        slowQueryLog.afterQuery(execution("SELECT * FROM tbl_product WHERE name = 'Secret Widget' AND id = $1", bindings(8), 600));
+        slowQueryLog.afterQuery(execution("SELECT * FROM tbl_product WHERE category = $1", bindings(9), 200));
+        slowQueryLog.afterQuery(execution("DELETE FROM tbl_product WHERE id = $1", bindings(10), 900));
+
+        assertEquals(List.of("SET LOCAL statement_timeout = 30000",
+                "EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM tbl_product WHERE name = 'Secret Widget' AND id = $1"), explained);
+        verify(explainConnection).beginTransaction(any(TransactionDefinition.class));
+        verify(explainConnection).rollbackTransaction();
+        verify(explainConnection, never()).commitTransaction();
+        List<SlowQueryReport.Shape> shapes = slowQueryLog.report().getShapes();
+        assertEquals(List.of("DELETE FROM tbl_product WHERE id = $1",
+                        "SELECT * FROM tbl_product WHERE name = ? AND id = $1",
+                        "SELECT * FROM tbl_product WHERE category = $1"),
+                shapes.stream().map(SlowQueryReport.Shape::getSql).toList());
+        assertNull(shapes.get(0).getExplain());
+        assertEquals(SlowQueryLog.redactPlan(PLAN), shapes.get(1).getExplain());
+        assertNull(shapes.get(2).getExplain());
+    }
+
+    @Test
+    void testSelectsWithoutParametersAreExplained() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties);
+        slowQueryLog.setExplainConnectionFactory(explainConnectionFactory());
+
+        slowQueryLog.afterQuery(execution("SELECT id, name FROM tbl_product", null, 900));
+
+        assertEquals("EXPLAIN (ANALYZE, BUFFERS) SELECT id, name FROM tbl_product", explained.get(explained.size() - 1));
+        assertEquals(SlowQueryLog.redactPlan(PLAN), slowQueryLog.report().getShapes().get(0).getExplain());
+    }
+
+    private static QueryExecutionInfo execution(String sql, Bindings bindings, long millis) {
+        QueryInfo queryInfo = mock(QueryInfo.class);
+        when(queryInfo.getQuery()).thenReturn(sql);
+        when(queryInfo.getBindingsList()).thenReturn(bindings == null ? List.of() : List.of(bindings));
+        QueryExecutionInfo execution = mock(QueryExecutionInfo.class);
+        when(execution.getExecuteDuration()).thenReturn(Duration.ofMillis(millis));
+        when(execution.getQueries()).thenReturn(List.of(queryInfo));
+        when(execution.isSuccess()).thenReturn(true);
+        return execution;
+    }
+
+    private static Bindings bindings(int value) {
+        BoundValue boundValue = mock(BoundValue.class);
+        when(boundValue.getValue()).thenReturn(value);
+        Binding binding = mock(Binding.class);
+        when(binding.getKey()).thenReturn(0);
+        when(binding.getBoundValue()).thenReturn(boundValue);
+        Bindings bindings = mock(Bindings.class);
+        TreeSet<Binding> indexBindings = new TreeSet<>((a, b) -> 0);
+        indexBindings.add(binding);
+        when(bindings.getIndexBindings()).thenReturn(indexBindings);
+        when(bindings.getNamedBindings()).thenReturn(new TreeSet<>());
+        return bindings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConnectionFactory explainConnectionFactory() {
+        Result result = mock(Result.class);
+        doReturn(Flux.fromArray(PLAN.split("\n"))).when(result).map(any(BiFunction.class));
+        doReturn(Mono.empty()).when(result).getRowsUpdated();
+        Statement statement = mock(Statement.class);
+        doReturn(Flux.just(result)).when(statement).execute();
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement(anyString())).thenAnswer(invocation -> {
+            explained.add(invocation.getArgument(0));
+            return statement;
+        });
+        doReturn(Mono.empty()).when(connection).beginTransaction(any(TransactionDefinition.class));
+        doReturn(Mono.empty()).when(connection).rollbackTransaction();
+        doReturn(Mono.empty()).when(connection).close();
+        explainConnection = connection;
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        doReturn(Mono.just(connection)).when(connectionFactory).create();
+        return connectionFactory;
+    }
+}
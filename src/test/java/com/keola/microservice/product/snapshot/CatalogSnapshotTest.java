@@ -0,0 +1,159 @@
+package com.keola.microservice.product.snapshot;
+
+import com.keola.microservice.product.config.CatalogSnapshotProperties;
+import com.keola.microservice.product.dto.ReadProductDTO;
+import com.keola.microservice.product.exception.EntityNotFoundException;
+import com.keola.microservice.product.snapshot.CatalogSnapshotFormat.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests CatalogSnapshotWriter and CatalogSnapshot together: snapshots are written from a mocked
+ * DatabaseClient into a temporary directory, then read back through the memory-mapped reader.
+ */
+public class CatalogSnapshotTest {
+
+    private static final IllegalStateException DATABASE_DOWN = new IllegalStateException("database down");
+
+    private static final List<Row> ROWS = List.of(
+            new Row(3, "Wireless Mouse", "Ergonomic wireless mouse", new BigDecimal("19.99"), 50,
+                    "Electronics", "https://example.com/mouse.jpg", "Logitech", "activo"),
+            new Row(10, "Café ñandú 日本 🚀", null, null, 0, null, null, null, null),
+            new Row(25, "Desk Lamp", "LED desk lamp", new BigDecimal("1234567890123.5"), Integer.MAX_VALUE,
+                    "Furniture", "", "Philips", "inactivo"));
+
+    private Path path;
+    private CatalogSnapshotProperties properties;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp(@TempDir Path directory) {
+        path = directory.resolve("catalog.snapshot");
+        properties = new CatalogSnapshotProperties();
+        properties.setPath(path);
+        snapshot = new CatalogSnapshot(properties);
+    }
+
+    @Test
+    void testWrittenProductsAreReadBackById() {
+        write(ROWS);
+
+        assertTrue(snapshot.isAvailable());
+        for (Row row : ROWS) {
+            assertEquals(dto(row), snapshot.fallbackFindById(row.id(), DATABASE_DOWN).block());
+        }
+        for (long missing : new long[]{0, 2, 4, 11, 24, 26, Long.MAX_VALUE}) {
+            StepVerifier.create(snapshot.fallbackFindById(missing, DATABASE_DOWN))
+                    .expectError(EntityNotFoundException.class)
+                    .verify();
+        }
+    }
+
+    @Test
+    void testListingMatchesLookupsInIdOrder() {
+        write(ROWS);
+
+        List<ReadProductDTO> listed = snapshot.fallbackFindAll(DATABASE_DOWN).collectList().block();
+
+        assertEquals(ROWS.stream().map(CatalogSnapshotTest::dto).toList(), listed);
+        for (ReadProductDTO product : listed) {
+            assertEquals(product, snapshot.fallbackFindById(product.getId(), DATABASE_DOWN).block());
+        }
+    }
+
+    @Test
+    void testEmptyCatalogAndMissingSnapshotFallBackToTheDatabaseError() {
+        StepVerifier.create(snapshot.fallbackFindAll(DATABASE_DOWN))
+                .expectErrorMatches(ex -> ex == DATABASE_DOWN)
+                .verify();
+
+        write(List.of());
+
+        assertTrue(snapshot.isAvailable());
+        StepVerifier.create(snapshot.fallbackFindAll(DATABASE_DOWN)).verifyComplete();
+        StepVerifier.create(snapshot.fallbackFindById(1L, DATABASE_DOWN))
+                .expectError(EntityNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testTruncatedOrCorruptFilesAreRejected() throws IOException {
+        write(ROWS);
+        byte[] valid = Files.readAllBytes(path);
+
+        assertRejected(Arrays.copyOf(valid, valid.length - 5)); // Index cut short
+        assertRejected(Arrays.copyOf(valid, CatalogSnapshotFormat.HEADER_SIZE - 1)); // Shorter than the header
+        assertRejected(new byte[64]); // Not a snapshot
+        ByteBuffer badOffset = ByteBuffer.wrap(valid.clone());
+        int indexOffset = (int) badOffset.getLong(CatalogSnapshotFormat.INDEX_OFFSET_OFFSET);
+        badOffset.putLong(indexOffset + CatalogSnapshotFormat.INDEX_ENTRY_SIZE + 8, valid.length); // Record past the data section
+        assertRejected(badOffset.array());
+        ByteBuffer unsorted = ByteBuffer.wrap(valid.clone());
+        unsorted.putLong(indexOffset + CatalogSnapshotFormat.INDEX_ENTRY_SIZE, 1L); // Ids out of order
+        assertRejected(unsorted.array());
+    }
+
+    @Test
+    void testRejectedFileKeepsThePreviousSnapshot() throws IOException {
+        write(ROWS);
+        Path corrupt = path.resolveSibling("corrupt.snapshot");
+        Files.write(corrupt, Arrays.copyOf(Files.readAllBytes(path), 40));
+
+        assertThrows(IllegalStateException.class, () -> snapshot.load(corrupt));
+
+        assertEquals(dto(ROWS.get(0)), snapshot.fallbackFindById(3L, DATABASE_DOWN).block());
+    }
+
+    private void assertRejected(byte[] content) throws IOException {
+        Files.write(path, content);
+        CatalogSnapshot rejecting = new CatalogSnapshot(properties);
+
+        assertDoesNotThrow(rejecting::loadExisting);
+        assertFalse(rejecting.isAvailable());
+        assertThrows(IllegalStateException.class, () -> rejecting.load(path));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(List<Row> rows) {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        RowsFetchSpec<Row> fetched = mock(RowsFetchSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        doReturn(fetched).when(spec).map(any(Function.class));
+        when(fetched.all()).thenReturn(Flux.fromIterable(rows));
+
+        new CatalogSnapshotWriter(databaseClient, snapshot, properties).writeSnapshot().block();
+    }
+
+    private static ReadProductDTO dto(Row row) {
+        return ReadProductDTO.builder()
+                .id(row.id())
+                .name(row.name())
+                .description(row.description())
+                .price(row.price())
+                .quantity(row.quantity())
+                .category(row.category())
+                .imageUrl(row.imageUrl())
+                .status(row.status())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.keola.microservice.product.suggest;
+
+import com.keola.microservice.product.config.SuggestProperties;
+import com.keola.microservice.product.event.ProductChangedEvent;
+import com.keola.microservice.product.models.ProductSuggestion;
+import com.keola.microservice.product.repo.ProductReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductSuggestServiceTest {
+
+    private ProductReadRepository productReadRepository;
+    private SuggestProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductSuggestService productSuggestService;
+
+    @BeforeEach
+    void setUp() {
+        productReadRepository = mock(ProductReadRepository.class);
+        properties = new SuggestProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        productSuggestService = new ProductSuggestService(productReadRepository, properties, meterRegistry);
+        when(productReadRepository.findAllSuggestSources()).thenReturn(Flux.just(
+                new ProductSuggestSource(1L, "Cafetera eléctrica", "Oster", 5, "activo"),
+                new ProductSuggestSource(2L, "Café molido", "Juan Valdez", 80, "activo"),
+                new ProductSuggestSource(3L, "Silla de oficina", "Ñandú", 20, "activo"),
+                new ProductSuggestSource(4L, "Caja organizadora", "Ñandú", 0, "agotado"),
+                new ProductSuggestSource(5L, "Cafetera italiana", "Bialetti", 40, "inactivo")));
+        productSuggestService.reload().block();
+    }
+
+    @Test
+    void testMatchesIgnoringCaseAndAccentsRankedByStock() {
+        assertEquals(List.of(2L, 1L), ids(productSuggestService.suggest("CAFE", null)));
+        assertEquals(List.of(2L, 1L), ids(productSuggestService.suggest("  café", null)));
+        assertEquals(List.of(1L), ids(productSuggestService.suggest("cafet", null)));
+    }
+
+    @Test
+    void testMatchesWordsOfNameAndBrand() {
+        assertEquals(List.of(3L), ids(productSuggestService.suggest("ofic", null)));
+        assertEquals(List.of(3L, 4L), ids(productSuggestService.suggest("nandu", null)));
+        assertEquals(List.of(3L), ids(productSuggestService.suggest("silla de o", null)));
+        assertEquals(List.of(), ids(productSuggestService.suggest("bialetti", null)));
+        assertEquals(List.of(2L), ids(productSuggestService.suggest("ca", 1)));
+    }
+
+    @Test
+    void testProductChangesAreVisibleBeforeTheNextReload() {
+        when(productReadRepository.findSuggestSourceById(6L))
+                .thenReturn(Mono.just(new ProductSuggestSource(6L, "Cafetera de cápsulas", "Nespresso", 200, "activo")));
+        when(productReadRepository.findSuggestSourceById(2L))
+                .thenReturn(Mono.just(new ProductSuggestSource(2L, "Té verde", "Hornimans", 80, "activo")));
+
+        productSuggestService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 6L, null, null));
+        productSuggestService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L, null, null));
+        productSuggestService.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        assertEquals(List.of(6L), ids(productSuggestService.suggest("caf", null)));
+        assertEquals(List.of(2L), ids(productSuggestService.suggest("te", null)));
+    }
+
+    @Test
+    void testPendingChangesAreFoldedIntoTheIndex() {
+        properties.setMaxPendingChanges(1);
+        productSuggestService.onProductChanged(ProductChangedEvent.deleted(1L));
+        productSuggestService.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        // The rebuild runs in the background
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("product.suggest.pending-changes").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, meterRegistry.get("product.suggest.pending-changes").gauge().value());
+        assertEquals(3, meterRegistry.get("product.suggest.products").gauge().value());
+        assertEquals(List.of(2L), ids(productSuggestService.suggest("caf", null)));
+        assertEquals(List.of(), ids(productSuggestService.suggest("silla", null)));
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getId).toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.keola.microservice.product.timing;
+
+import com.keola.microservice.product.timing.RequestTimings.Stage;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for the ServerTiming operators.
+ * It verifies that stages are recorded only when RequestTimings is present in the Reactor context.
+ */
+public class ServerTimingTest {
+
+    /**
+     * Test case verifying that database and mapping time are recorded for a timed request.
+     */
+    @Test
+    void testStagesRecordedWhenTimed() {
+        RequestTimings timings = new RequestTimings();
+
+        Mono<String> result = ServerTiming.timed(Stage.DB, Mono.delay(Duration.ofMillis(20)))
+                .transform(ServerTiming.mapMono(Stage.MAPPING, value -> "value-" + value))
+                .contextWrite(context -> context.put(RequestTimings.CONTEXT_KEY, timings));
+
+        StepVerifier.create(result)
+                .expectNext("value-0")
+                .verifyComplete();
+
+        assertTrue(timings.get(Stage.DB) >= Duration.ofMillis(20).toNanos());
+        assertTrue(timings.get(Stage.MAPPING) > 0);
+        assertTrue(timings.toHeaderValue().startsWith("db;desc=\"Database\";dur="));
+    }
+
+    /**
+     * Test case verifying that untimed requests pass through unchanged.
+     */
+    @Test
+    void testPassThroughWhenNotTimed() {
+        StepVerifier.create(ServerTiming.timed(Stage.DB, Mono.just(1))
+                        .transform(ServerTiming.mapMono(Stage.MAPPING, value -> value + 1)))
+                .expectNext(2)
+                .verifyComplete();
+    }
+}